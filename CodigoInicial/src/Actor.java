@@ -27,4 +27,10 @@ public interface Actor {
      * @param location A nova localização.
      */
     void setLocation(Location location);
+
+    /**
+     * Retorna a espécie do ator, usada como índice nas máscaras de dieta.
+     * @return A espécie do ator.
+     */
+    Species getSpecies();
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Verificação de alocação do passo: com as populações ainda vivas, um passo sobre um
+ * campo denso não deve alocar nada além de dois custos que não são lixo do passo:
+ * <ul>
+ * <li>o crescimento das listas do passo, evitado com {@link Simulator#reserve} antes
+ *     da medida (a de atores chega a algumas vezes o número de células, por isso a
+ *     reserva é de {@value #RESERVE_PER_CELL} entradas por célula);</li>
+ * <li>os recém-nascidos que o {@link AnimalPool} precisou criar por estar vazio,
+ *     descontados explicitamente: cada criação contada por {@link AnimalPool#created}
+ *     vale o tamanho de um animal da espécie, medido antes do laço.</li>
+ * </ul>
+ * Os bytes alocados por passo são medidos pelo {@link ThreadMXBean} do thread que roda
+ * a simulação (o passo roda todo nesse thread). O padrão é um campo de 300x300 com
+ * aquecimento curto, porque num campo pequeno ou depois de muitos passos os animais
+ * se extinguem e a medida passaria sem medir nada; o aquecimento precisa de ao menos
+ * um passo, o que cria o segundo campo.
+ * <p>
+ * Uso: {@code java AllocationCheck [lado=300] [aquecimento=5] [passos=20] [limite=1024]};
+ * termina com código 1 se a média de bytes por passo medido, sem os recém-nascidos,
+ * passar do limite, se algum passo medido terminar sem animais vivos, ou se a JVM não
+ * medir alocação por thread.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class AllocationCheck {
+
+    /** Entradas reservadas nas listas do passo por célula do campo. */
+    private static final int RESERVE_PER_CELL = 5;
+
+    /**
+     * Ponto de entrada.
+     * @param args Lado da grade, passos de aquecimento, passos medidos e limite em bytes por passo.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long limit = args.length > 3 ? Long.parseLong(args[3]) : 1024;
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean allocation)
+                || !allocation.isThreadAllocatedMemorySupported()) {
+            System.out.println("A JVM não mede a alocação por thread");
+            System.exit(1);
+            return;
+        }
+        allocation.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        // Tamanho de um recém-nascido de cada espécie (a primeira criação carrega a classe)
+        long[] animalBytes = new long[Species.count()];
+        for (int id = 0; id < Species.count(); id++) {
+            if (Species.byId(id) == Species.PLANT) continue;
+            for (int i = 0; i < 2; i++) {
+                long before = allocation.getThreadAllocatedBytes(thread);
+                Species.byId(id).createAnimal();
+                animalBytes[id] = allocation.getThreadAllocatedBytes(thread) - before;
+            }
+        }
+
+        Simulator simulator = new Simulator(size, size, false, true);
+        simulator.simulate(warmup);
+        simulator.reserve(RESERVE_PER_CELL * size * size);
+        long total = 0, newborns = 0, worst = 0;
+        int allocating = 0;
+        int fewest = Integer.MAX_VALUE, most = 0;
+        for (int i = 0; i < steps; i++) {
+            long bornBefore = newbornBytes(animalBytes);
+            long before = allocation.getThreadAllocatedBytes(thread);
+            simulator.simulateOneStep();
+            long bytes = allocation.getThreadAllocatedBytes(thread) - before;
+            long born = newbornBytes(animalBytes) - bornBefore;
+            newborns += born;
+            total += bytes - born;
+            worst = Math.max(worst, bytes - born);
+            if (bytes > born) allocating++;
+
+            int animals = animalCount(simulator.field);
+            fewest = Math.min(fewest, animals);
+            most = Math.max(most, animals);
+        }
+        simulator.close();
+
+        double mean = (double) total / steps;
+        System.out.println(String.format(Locale.ROOT,
+            "%dx%d, %d passos, de %d a %d animais vivos: %.1f bytes por passo em média "
+            + "(mais %.1f de recém-nascidos criados fora da reserva), pior passo %d bytes, %d passos alocaram",
+            size, size, steps, fewest, most, mean, (double) newborns / steps, worst, allocating));
+        if (fewest == 0) {
+            System.out.println("Medida inválida: um passo medido terminou sem animais vivos "
+                               + "(use um campo maior ou menos aquecimento)");
+            System.exit(1);
+        }
+        if (mean > limit) {
+            System.out.println("Regressão: a média passou do limite de " + limit + " bytes por passo");
+            System.exit(1);
+        }
+    }
+
+    /** @return Os bytes dos animais que o {@link AnimalPool} desta thread já criou. */
+    private static long newbornBytes(long[] animalBytes) {
+        long bytes = 0;
+        for (int id = 0; id < animalBytes.length; id++) {
+            if (animalBytes[id] > 0) bytes += AnimalPool.created(Species.byId(id)) * animalBytes[id];
+        }
+        return bytes;
+    }
+
+    /** @return Quantos animais (de qualquer espécie que não planta) há no campo. */
+    private static int animalCount(Field field) {
+        int animals = 0;
+        for (int id = 0; id < Species.count(); id++) {
+            if (Species.byId(id) != Species.PLANT) animals += field.getCount(Species.byId(id));
+        }
+        return animals;
+    }
+}
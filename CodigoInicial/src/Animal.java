@@ -18,9 +18,12 @@ public abstract class Animal implements Actor {
     private int age;
     /** Nível de energia/fome do animal */
     private int foodLevel; 
-    
-    /** Um gerador de números aleatórios compartilhado para controlar a reprodução. */
-    protected static final Random rand = new Random();
+    /** Quantos passos cada ação representa (ver {@link UpdateSchedule}). */
+    private int actionPeriod = 1;
+    /** Estado de infecção: 0 sadio, positivo passos de contágio restantes, negativo imune. */
+    private int infection;
+    /** Próximo animal livre na pilha da espécie em {@link AnimalPool} (null fora da reserva). */
+    Animal nextFree;
 
     /**
      * Construtor para um animal.
@@ -43,6 +46,9 @@ public abstract class Animal implements Actor {
         giveBirth(currentField, updatedField, newActors);
 
         Location nextLocation = findFood(currentField);
+        if (nextLocation == null) {
+            nextLocation = approachPrey(currentField);
+        }
         if (nextLocation == null) {
             nextLocation = currentField.freeAdjacentLocation(getLocation());
         }
@@ -57,20 +63,61 @@ public abstract class Animal implements Actor {
     private void attemptMove(Field currentField, Field updatedField, Location nextLocation) {
         if (nextLocation != null) {
             Terrain terrain = currentField.getTerrainAt(nextLocation);
-            String actorName = this.getClass().getSimpleName();
-            
-            if (!Barriers.isForbidden(actorName, terrain)) {
-                updatedField.clear(getLocation());
-                setLocation(nextLocation);
-                updatedField.place(this, nextLocation);
+            if (!Barriers.isForbidden(getSpecies(), terrain)) {
+                updatedField.clear(getLocation(), this);
+                moveTo(currentField, updatedField, nextLocation);
             } else {
-                updatedField.place(this, getLocation());
+                SimulationEvents.recordBlockedMove();
+                stay(currentField, updatedField);
             }
         } else {
-            updatedField.place(this, getLocation());
+            stay(currentField, updatedField);
+        }
+    }
+
+    /**
+     * Move o animal para uma célula do campo de destino, reivindicando-a com
+     * {@link Field#claim}. Se outro animal já tomou a célula, tenta as demais células
+     * vizinhas livres em ordem fixa (a primeira que aceitar o terreno e puder ser
+     * tomada); se nenhuma servir, o animal fica onde está, também por reivindicação.
+     * Se nem a própria célula puder ser tomada, o animal perdeu a disputa por lugar e
+     * morre sem espaço (registrado como tal, ver {@link SimulationEvents#recordDeathByCrowding}).
+     * @param currentField O campo atual.
+     * @param updatedField O campo de destino.
+     * @param target A célula escolhida.
+     */
+    protected void moveTo(Field currentField, Field updatedField, Location target) {
+        if (updatedField.claim(this, target)) {
+            setLocation(target);
+            return;
+        }
+        int free = currentField.freeAdjacentMask(getLocation());
+        while (free != 0) {
+            int bit = Integer.numberOfTrailingZeros(free);
+            free &= free - 1;
+            Location where = currentField.neighbourLocation(getLocation(), bit);
+            if (!where.equals(target) && !Barriers.isForbidden(getSpecies(), currentField.getTerrainAt(where))
+                    && updatedField.claim(this, where)) {
+                setLocation(where);
+                return;
+            }
+        }
+        if (!updatedField.claim(this, getLocation())) {
+            setDead();
+            SimulationEvents.recordDeathByCrowding();
         }
     }
 
+    /**
+     * Mantém o animal na sua célula no campo de destino, reivindicando-a como num
+     * movimento (ver {@link #moveTo}), em vez de sobrescrever quem já estiver nela.
+     * @param currentField O campo atual.
+     * @param updatedField O campo de destino.
+     */
+    protected void stay(Field currentField, Field updatedField) {
+        moveTo(currentField, updatedField, getLocation());
+    }
+
     // Métodos Abstratos de Espécie
     
     /** @return A idade máxima permitida para esta espécie. */
@@ -89,6 +136,9 @@ public abstract class Animal implements Actor {
     /** @return A idade mínima para ser apto para reprodução. */
     public abstract int getBreedingAge();
 
+    /** @return Os passos de reserva de comida que uma refeição dá ao animal. */
+    public abstract int getFoodValue();
+
     /**
      * Tenta localizar e consumir comida no campo atual.
      * A comida encontrada é marcada para remoção no campo atual.
@@ -108,10 +158,33 @@ public abstract class Animal implements Actor {
     public abstract void giveBirth(Field currentField, Field updatedField, List<Actor> newActors);
     
     /** * Define se este animal pode comer outro objeto.
+     * A consulta é feita na matriz de dietas ({@link Diet}) com um teste de bit.
      * @param obj O objeto potencial a ser comido.
      * @return true se o animal puder comer o objeto.
      */
-    public abstract boolean canEat(Object obj);
+    public boolean canEat(Object obj) {
+        return Diet.canEat(getSpecies(), obj);
+    }
+
+    /**
+     * Come o ocupante de uma célula vizinha que {@link #canEat} aceitou. As dietas
+     * podem misturar animais e plantas (ver {@link Diet#loadDiets(String)}), então o
+     * ocupante não é convertido para o tipo da presa habitual: um animal é marcado como
+     * comido, uma planta só sai da célula. A reserva de comida do predador fica por
+     * conta de quem chama.
+     * @param currentField O campo atual.
+     * @param where A célula do ocupante.
+     * @param obj O ocupante da célula.
+     * @return false se o ocupante for um animal que já morreu neste passo.
+     */
+    protected boolean eat(Field currentField, Location where, Object obj) {
+        if (obj instanceof Animal prey) {
+            if (!prey.isAlive()) return false;
+            prey.setEaten(getSpecies());
+        }
+        currentField.clear(where);
+        return true;
+    }
 
     // Métodos de Estado
 
@@ -120,11 +193,55 @@ public abstract class Animal implements Actor {
         return alive;
     }
 
+    /**
+     * Devolve o animal ao estado de recém-nascido, para ser reaproveitado por
+     * {@link AnimalPool}: vivo, com idade 0, sem comida e sem localização.
+     */
+    void recycle() {
+        this.alive = true;
+        this.age = 0;
+        this.foodLevel = 0;
+        this.location = null;
+        this.actionPeriod = 1;
+        this.infection = 0;
+    }
+
+    /**
+     * Define quantos passos a próxima ação do animal representa. Com período k,
+     * a idade e a fome avançam k unidades e a reprodução usa a probabilidade de k passos.
+     * @param steps O período de atualização da espécie.
+     */
+    void setActionPeriod(int steps) {
+        this.actionPeriod = steps;
+    }
+
+    /**
+     * @return O estado de infecção (ver {@link EventLayers}): 0 sadio, positivo
+     *         passos de contágio restantes, negativo imune.
+     */
+    int getInfection() {
+        return infection;
+    }
+
+    /** @param infection O novo estado de infecção. */
+    void setInfection(int infection) {
+        this.infection = infection;
+    }
+
     /** Indica que o animal não está mais vivo. */
     protected void setDead() {
         this.alive = false;
     }
 
+    /**
+     * Indica que o animal foi comido por um predador.
+     * @param predator A espécie do predador.
+     */
+    protected void setEaten(Species predator) {
+        setDead();
+        SimulationEvents.recordPredation(predator);
+    }
+
     /** @return A localização atual do animal. */
     public Location getLocation() {
         return location;
@@ -162,33 +279,95 @@ public abstract class Animal implements Actor {
 
     /**
      * Aumenta a idade em uma unidade e verifica a idade máxima.
+     * Um animal já morto (comido antes de agir, por exemplo) não muda nem tem a morte
+     * registrada de novo: cada morte tem uma causa só.
      */
     protected void incrementAge() {
-        age++;
+        if (!alive) return;
+        age += actionPeriod;
         if (age > getMaxAge()) {
             setDead();
+            SimulationEvents.recordDeathByAge();
         }
     }
     
     /**
      * Diminui o nível de fome em uma unidade e verifica se o animal morreu de fome.
+     * Como em {@link #incrementAge()}, só conta para um animal ainda vivo: quem morreu
+     * de velhice no mesmo passo não é registrado também como morto de fome.
      */
     protected void incrementHunger() {
-        this.foodLevel--;
+        if (!alive) return;
+        this.foodLevel -= actionPeriod;
         if (foodLevel <= 0) {
             setDead();
+            SimulationEvents.recordDeathByStarvation();
         }
     }
 
     /**
      * Gera um número de nascimentos.
+     * @param currentField O campo atual, cujo gerador faz os sorteios.
      * @return O número de nascimentos 
      */
-    protected int breed() {
+    protected int breed(Field currentField) {
         int births = 0;
-        if (canBreed() && rand.nextDouble() <= getBreedingProbability()) {
+        Random rand = currentField.getRandom();
+        if (canBreed() && rand.nextDouble() <= UpdateSchedule.rescale(getBreedingProbability(), actionPeriod)) {
             births = rand.nextInt(getMaxLitterSize()) + 1;
         }
         return births;
     }
+
+    /**
+     * Sem comida adjacente, procura a presa mais próxima dentro do raio de visão da
+     * espécie (ver {@link Vision}) e escolhe a célula vizinha na direção dela. Sem
+     * presa à vista, segue o campo de fluxo da espécie, se houver (ver {@link FlowFields}).
+     * @param currentField O campo atual.
+     * @return A célula vizinha em direção à comida, ou null se não houver presa à vista
+     *         nem campo de fluxo que leve a alguma, ou se a célula nessa direção estiver
+     *         ocupada (o animal então dá um passo ao acaso).
+     */
+    protected Location approachPrey(Field currentField) {
+        int radius = Vision.getRadius(getSpecies());
+        if (radius > 1) {
+            Location prey = currentField.nearestOf(getLocation(), Diet.getPreyMask(getSpecies()), radius,
+                                                   Vision.isLineOfSight());
+            if (prey != null) {
+                int dr = Integer.signum(prey.getRow() - getLocation().getRow());
+                int dc = Integer.signum(prey.getCol() - getLocation().getCol());
+                return stepTowards(currentField, (dr + 1) * 3 + (dc + 1));
+            }
+        }
+        FlowFields flow = currentField.getFlowFields();
+        if (flow == null) return null;
+        int bit = flow.directionAt(getSpecies(), getLocation().getRow(), getLocation().getCol());
+        return bit == FlowFields.NO_DIRECTION ? null : stepTowards(currentField, bit);
+    }
+
+    /**
+     * Só devolve uma célula livre no campo atual: um ocupante que ainda não agiu apagaria
+     * ou sobrescreveria o animal ao sair ou ficar no lugar. Isso vale também para o campo
+     * de fluxo, cujas direções podem ter até k passos de atraso.
+     * @return A célula vizinha de um bit da janela 3x3, ou null se ela estiver ocupada ou
+     *         se o bit não for vizinho na {@link Topology} do campo (uma diagonal na de
+     *         von Neumann, por exemplo).
+     */
+    private Location stepTowards(Field currentField, int bit) {
+        if ((currentField.freeAdjacentMask(getLocation()) >>> bit & 1) == 0) return null;
+        return currentField.neighbourLocation(getLocation(), bit);
+    }
+
+    /**
+     * Conta os ocupantes de uma espécie no quadrado de raio dado em volta deste
+     * animal (ver {@link Field#countNear}), para comportamentos que dependem da
+     * densidade local (ex: lotação, fuga de predadores).
+     * @param currentField O campo atual.
+     * @param species A espécie a contar.
+     * @param radius O raio, em células.
+     * @return O número de células do quadrado ocupadas pela espécie.
+     */
+    protected int countNearby(Field currentField, Species species, int radius) {
+        return currentField.countNear(species, getLocation(), radius);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+/**
+ * Reserva de animais mortos para reaproveitamento, uma pilha por espécie.
+ * <p>
+ * As populações do modelo explodem e despencam (ninhadas de até 5 coelhos, milhares
+ * de presas mortas em um passo). Em vez de criar um objeto a cada nascimento e deixar
+ * um lixo a cada morte, o simulador devolve os animais mortos com {@link #release}
+ * e os nascimentos os retiram com {@link #obtain}, já com idade, comida e estado de
+ * vida de um animal novo.
+ * <p>
+ * Cada thread tem a sua reserva, então simulações em threads diferentes (ex: no
+ * {@link Benchmark}) não disputam nem compartilham animais. Um animal só deve ser
+ * devolvido no fim do passo em que morreu: até lá ele ainda pode estar no campo atual,
+ * onde outro animal pode encontrá-lo (e vê-lo morto).
+ * <p>
+ * As pilhas são encadeadas pelos próprios animais ({@link Animal#nextFree}), então
+ * devolver um animal nunca aumenta um array: a reserva não aloca nada depois de criada.
+ * Só os nascimentos com a pilha vazia criam um animal, e {@link #created} conta esses
+ * casos para quem mede a alocação do passo (ver {@link AllocationCheck}).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class AnimalPool {
+
+    /** Máximo de animais guardados por espécie; o excedente vira lixo normalmente. */
+    public static final int MAX_POOLED = 65536;
+
+    private static final ThreadLocal<AnimalPool> POOLS = ThreadLocal.withInitial(AnimalPool::new);
+
+    /** Topo da pilha de animais livres, indexado pelo ordinal de {@link Species}. */
+    private final Animal[] free = new Animal[Species.count()];
+    /** Tamanho de cada pilha. */
+    private final int[] sizes = new int[Species.count()];
+    /** Animais criados por {@link #obtain} com a pilha vazia, por espécie. */
+    private final long[] created = new long[Species.count()];
+
+    /**
+     * Cria uma reserva vazia.
+     */
+    private AnimalPool() {
+    }
+
+    /**
+     * Retorna um animal novo da espécie: um reaproveitado, se houver, ou um recém-criado.
+     * @param species A espécie do animal (não pode ser de planta).
+     * @return Um animal vivo, com idade 0, sem comida e sem localização.
+     */
+    public static Animal obtain(Species species) {
+        AnimalPool pool = POOLS.get();
+        int id = species.ordinal();
+        Animal animal = pool.free[id];
+        if (animal == null) {
+            pool.created[id]++;
+            return species.createAnimal();
+        }
+        pool.free[id] = animal.nextFree;
+        pool.sizes[id]--;
+        animal.nextFree = null;
+        animal.recycle();
+        return animal;
+    }
+
+    /**
+     * Devolve um animal morto à reserva. O animal não pode mais estar na lista de
+     * atores nem ser lido do campo no passo atual.
+     * @param animal O animal morto.
+     */
+    public static void release(Animal animal) {
+        AnimalPool pool = POOLS.get();
+        int id = animal.getSpecies().ordinal();
+        if (pool.sizes[id] < MAX_POOLED) {
+            animal.nextFree = pool.free[id];
+            pool.free[id] = animal;
+            pool.sizes[id]++;
+        }
+    }
+
+    /**
+     * @param species Uma espécie.
+     * @return Quantos animais da espécie estão guardados na reserva desta thread.
+     */
+    public static int available(Species species) {
+        return POOLS.get().sizes[species.ordinal()];
+    }
+
+    /**
+     * @param species Uma espécie.
+     * @return Quantos animais da espécie {@link #obtain} já criou nesta thread por
+     *         encontrar a pilha vazia (cada um é uma alocação).
+     */
+    public static long created(Species species) {
+        return POOLS.get().created[species.ordinal()];
+    }
+}
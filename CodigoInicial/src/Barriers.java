@@ -9,6 +9,13 @@ import java.util.Set;
 /**
  * Gerencia as restrições de movimento de atores (animais) com base no tipo de {@link Terrain}.
  * As restrições são carregadas de um arquivo e armazenadas em um mapa estático.
+ * <p>
+ * O nome do ator no arquivo pode ser o da espécie em inglês ou em português (ver
+ * {@link Species#fromName}). Até a consulta por espécie, as linhas LOBO, AGUIA, COBRA
+ * e CACADOR de {@code restricoes_atores.txt} eram comparadas com o nome da classe
+ * (WOLF, EAGLE, ...) e nunca valiam: lobos atravessavam rios e montanhas, e águias,
+ * cobras e caçadores andavam por qualquer terreno. Agora elas valem, o que muda as
+ * trajetórias e as populações dessas espécies em relação às versões anteriores.
  * @author Grupo 1
  * @version 2025
  */
@@ -17,6 +24,8 @@ public class Barriers {
     private static final String ACTOR_RESTRICTIONS_FILE = "restricoes_atores.txt";
     /** Mapa que armazena: Chave=Nome do Ator (String), Valor=Set de Terrenos Proibidos (Terrain). */
     private static final Map<String, Set<Terrain>> RESTRICTIONS = new HashMap<>();
+    /** Terrenos proibidos por espécie, como máscara de bits indexada pelo ordinal de {@link Terrain}. */
+    private static final long[] FORBIDDEN = new long[Species.count()];
 
     /**
      * Carrega as restrições de terreno para todos os atores do arquivo configurado.
@@ -46,6 +55,16 @@ public class Barriers {
                         }
                     }
                     RESTRICTIONS.put(actorName, barriers);
+
+                    // O nome pode ser o da espécie em inglês ou em português (ex: WOLF ou LOBO)
+                    Species species = Species.fromName(actorName);
+                    if (species != null) {
+                        long mask = 0;
+                        for (Terrain terrain : barriers) {
+                            mask |= 1L << terrain.ordinal();
+                        }
+                        FORBIDDEN[species.ordinal()] = mask;
+                    }
                 }
             }
         } catch (java.io.FileNotFoundException e) {
@@ -61,7 +80,22 @@ public class Barriers {
      * @return true se o ator não pode entrar no terreno, false caso contrário.
      */
     public static boolean isForbidden(String actorName, Terrain terrain) {
+        Species species = Species.fromName(actorName);
+        if (species != null) {
+            return isForbidden(species, terrain);
+        }
         Set<Terrain> actorBarriers = RESTRICTIONS.getOrDefault(actorName.toUpperCase(), Collections.emptySet());
         return actorBarriers.contains(terrain);
     }
-}
\ No newline at end of file
+
+    /**
+     * Consulta se um tipo de terreno é proibido para uma espécie.
+     * É um teste de bit, sem criar strings, usado a cada movimento dos animais.
+     * @param species A espécie do ator.
+     * @param terrain O tipo de terreno a ser verificado.
+     * @return true se a espécie não pode entrar no terreno, false caso contrário.
+     */
+    public static boolean isForbidden(Species species, Terrain terrain) {
+        return (FORBIDDEN[species.ordinal()] >>> terrain.ordinal() & 1) != 0;
+    }
+}
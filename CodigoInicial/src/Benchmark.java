@@ -0,0 +1,296 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de escala: roda simulações sem janela sobre uma matriz de tamanhos de
+ * grade, densidades iniciais e números de threads, e gera um relatório em CSV e em
+ * Markdown que pode ser comparado entre versões.
+ * <p>
+ * Cada combinação roda em uma JVM própria (com as mesmas opções da JVM do
+ * benchmark, ex: -Xmx), para que o pico de heap e o tempo de GC de uma não
+ * contaminem a outra e para que falta de memória vire só uma linha "OOM".
+ * <p>
+ * O motor executa cada passo em um único thread. Com N threads, o benchmark roda N
+ * simulações independentes ao mesmo tempo e mede a vazão somada. Cada simulação tem
+ * o seu gerador (ver {@link Simulator#setRandom}), mas a localização das constantes
+ * de {@link Plant} é escrita por todas, então o eixo de threads mede também a disputa
+ * por esse estado compartilhado, e não só a escala do motor.
+ * <p>
+ * Uso: {@code java Benchmark [--sizes 50,256,1024] [--densities padrao,0.1,1.0]
+ * [--threads 1,2] [--steps 20] [--timeout 600] [--out benchmark]}
+ * <p>
+ * A densidade "padrao" usa as probabilidades de criação do {@link Simulator}; um
+ * número entre 0 e 1 é a fração de células ocupadas (1.0 = tudo ocupado).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class Benchmark {
+
+    private static final String DEFAULT_SIZES = "50,128,256,512,1024,2048,4096,8192";
+    private static final String DEFAULT_DENSITIES = "padrao,0.1,1.0";
+    private static final String DEFAULT_THREADS = "1,2,4";
+    private static final String DEFAULT_DENSITY_NAME = "padrao";
+    private static final String RESULT_PREFIX = "RESULTADO;";
+    private static final String CSV_HEADER =
+        "tamanho,densidade,threads,passos,passos_por_s,primeiro_passo_ms,pico_heap_mb,gc_ms,situacao";
+
+    /**
+     * Resultado de uma combinação do benchmark.
+     * @param size O lado da grade.
+     * @param density A densidade inicial ("padrao" ou fração).
+     * @param threads O número de simulações simultâneas.
+     * @param steps O número de passos de cada simulação.
+     * @param stepsPerSecond A vazão somada de todas as simulações.
+     * @param firstStepMillis Tempo da criação até o fim do primeiro passo.
+     * @param peakHeapMb O pico de uso do heap.
+     * @param gcMillis O tempo total de coleta de lixo.
+     * @param status "OK", "OOM", "TEMPO ESGOTADO" ou uma mensagem de erro.
+     */
+    private record Result(int size, String density, int threads, int steps, double stepsPerSecond,
+                          double firstStepMillis, double peakHeapMb, long gcMillis, String status) {
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%d,%s,%d,%d,%.2f,%.1f,%.1f,%d,%s",
+                                 size, density, threads, steps, stepsPerSecond, firstStepMillis,
+                                 peakHeapMb, gcMillis, status);
+        }
+
+        String toMarkdown() {
+            if (!status.equals("OK")) {
+                return String.format(Locale.ROOT, "| %d | %s | %d | %d | - | - | - | - | %s |",
+                                     size, density, threads, steps, status);
+            }
+            return String.format(Locale.ROOT, "| %d | %s | %d | %d | %.2f | %.1f | %.1f | %d | %s |",
+                                 size, density, threads, steps, stepsPerSecond, firstStepMillis,
+                                 peakHeapMb, gcMillis, status);
+        }
+
+        static Result failed(int size, String density, int threads, int steps, String status) {
+            return new Result(size, density, threads, steps, 0, 0, 0, 0, status);
+        }
+    }
+
+    /**
+     * Ponto de entrada. Com {@code --run} executa uma única combinação (processo filho);
+     * caso contrário, percorre a matriz e escreve o relatório.
+     * @param args As opções descritas na documentação da classe.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--run")) {
+            runOne(Integer.parseInt(args[1]), args[2], Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+
+        String sizes = DEFAULT_SIZES;
+        String densities = DEFAULT_DENSITIES;
+        String threads = DEFAULT_THREADS;
+        int steps = 20;
+        long timeoutSeconds = 600;
+        String out = "benchmark";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes" -> sizes = args[i + 1];
+                case "--densities" -> densities = args[i + 1];
+                case "--threads" -> threads = args[i + 1];
+                case "--steps" -> steps = Integer.parseInt(args[i + 1]);
+                case "--timeout" -> timeoutSeconds = Long.parseLong(args[i + 1]);
+                case "--out" -> out = args[i + 1];
+                default -> {
+                    System.err.println("Opção desconhecida: " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            for (String density : densities.split(",")) {
+                for (String threadCount : threads.split(",")) {
+                    Result result = fork(Integer.parseInt(size.trim()), density.trim(),
+                                         Integer.parseInt(threadCount.trim()), steps, timeoutSeconds);
+                    System.out.println(result.toCsv());
+                    results.add(result);
+                }
+            }
+        }
+        writeReport(results, out);
+        System.out.println("Relatório gravado em " + out + ".csv e " + out + ".md");
+    }
+
+    /**
+     * Roda uma combinação em uma JVM filha e lê o resultado da saída dela.
+     */
+    private static Result fork(int size, String density, int threads, int steps, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Benchmark");
+        command.add("--run");
+        command.add(String.valueOf(size));
+        command.add(density);
+        command.add(String.valueOf(threads));
+        command.add(String.valueOf(steps));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        // A saída é lida em outro thread para o filho nunca bloquear com o buffer cheio
+        List<String> lines = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    synchronized (lines) {
+                        lines.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                // O processo terminou; o que foi lido basta
+            }
+        });
+        reader.start();
+
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            reader.join();
+            return Result.failed(size, density, threads, steps, "TEMPO ESGOTADO");
+        }
+        reader.join();
+
+        synchronized (lines) {
+            for (String line : lines) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    return parse(line.substring(RESULT_PREFIX.length()));
+                }
+            }
+            boolean outOfMemory = lines.stream().anyMatch(l -> l.contains("OutOfMemoryError"));
+            return Result.failed(size, density, threads, steps,
+                                 outOfMemory ? "OOM" : "ERRO (código " + process.exitValue() + ")");
+        }
+    }
+
+    /**
+     * Executa uma combinação neste processo e imprime a linha de resultado.
+     */
+    private static void runOne(int size, String density, int threads, int steps) throws InterruptedException {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long gcStart = gcMillis();
+
+        try {
+            long start = System.nanoTime();
+            Simulator[] simulators = new Simulator[threads];
+            for (int i = 0; i < threads; i++) {
+                simulators[i] = new Simulator(size, size, false, true);
+                simulators[i].setRandom(new Random(Randomizer.mix(size, i)));
+                if (!density.equals(DEFAULT_DENSITY_NAME)) {
+                    simulators[i].populate(Double.parseDouble(density));
+                }
+            }
+            simulators[0].simulateOneStep();
+            double firstStepMillis = (System.nanoTime() - start) / 1e6;
+
+            long runStart = System.nanoTime();
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                Simulator simulator = simulators[i];
+                // A primeira simulação já deu um passo
+                int remaining = i == 0 ? steps - 1 : steps;
+                workers[i] = new Thread(() -> simulator.simulate(remaining), "benchmark-" + i);
+                workers[i].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - runStart) / 1e9;
+            for (Simulator simulator : simulators) {
+                simulator.close();
+            }
+            // O passo inicial da primeira simulação fica fora da vazão
+            double stepsPerSecond = (threads * steps - 1) / Math.max(seconds, 1e-9);
+
+            Result result = new Result(size, density, threads, steps, stepsPerSecond, firstStepMillis,
+                                       peakHeapBytes() / 1e6, gcMillis() - gcStart, "OK");
+            System.out.println(RESULT_PREFIX + result.toCsv());
+        } catch (OutOfMemoryError e) {
+            System.out.println(RESULT_PREFIX + Result.failed(size, density, threads, steps, "OOM").toCsv());
+        }
+    }
+
+    /**
+     * Converte uma linha CSV de resultado de volta em um {@link Result}.
+     */
+    private static Result parse(String csv) {
+        String[] f = csv.split(",", 9);
+        return new Result(Integer.parseInt(f[0]), f[1], Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+                          Double.parseDouble(f[4]), Double.parseDouble(f[5]), Double.parseDouble(f[6]),
+                          Long.parseLong(f[7]), f[8]);
+    }
+
+    /** @return A soma dos picos de uso das áreas de heap desde o último reset. */
+    private static long peakHeapBytes() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    /** @return O tempo total gasto em coletas de lixo até agora. */
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Escreve o relatório em CSV e em Markdown.
+     */
+    private static void writeReport(List<Result> results, String out) throws IOException {
+        try (PrintWriter csv = new PrintWriter(out + ".csv", StandardCharsets.UTF_8)) {
+            csv.println(CSV_HEADER);
+            for (Result result : results) {
+                csv.println(result.toCsv());
+            }
+        }
+        try (PrintWriter md = new PrintWriter(out + ".md", StandardCharsets.UTF_8)) {
+            md.println("# Benchmark de escala");
+            md.println();
+            md.println("JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                       + ", " + Runtime.getRuntime().availableProcessors() + " processador(es), opções: "
+                       + String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+            md.println();
+            md.println("Com N threads rodam N simulações independentes, cada uma com o seu gerador; a "
+                       + "localização das constantes de `Plant` é compartilhada, então a vazão com várias "
+                       + "threads inclui a disputa por esse estado.");
+            md.println();
+            md.println("| Tamanho | Densidade | Threads | Passos | Passos/s | Primeiro passo (ms) "
+                       + "| Pico de heap (MB) | GC (ms) | Situação |");
+            md.println("|---:|---|---:|---:|---:|---:|---:|---:|---|");
+            for (Result result : results) {
+                md.println(result.toMarkdown());
+            }
+        }
+    }
+}
@@ -40,6 +40,14 @@ public class Counter {
     public void increment() {
         count++;
     }
+
+    /**
+     * Incrementa o contador de uma só vez.
+     * @param amount Quantidade a somar.
+     */
+    public void increment(int amount) {
+        count += amount;
+    }
     
     /**
      * Reseta o contador para zero.
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Tabelas de somas acumuladas (summed-area tables) por espécie sobre um {@link Field}:
+ * a entrada (r, c) guarda quantas células de [0, r) x [0, c) a espécie ocupa. Com
+ * elas, a contagem de qualquer retângulo sai de quatro leituras, em O(1), e a
+ * pergunta "quantos X há a até R células daqui" não depende de R.
+ * <p>
+ * As tabelas são refeitas uma vez por passo, a partir dos bitboards do campo atual,
+ * antes de os atores agirem, e não acompanham o passo: as contagens são as do início
+ * dele e ainda incluem as presas que {@code findFood} já comeu (e tirou do campo
+ * atual) durante o passo. A reconstrução
+ * é feita em paralelo: primeiro as somas de cada linha (faixas de linhas em
+ * paralelo), depois o acúmulo vertical (faixas de colunas em paralelo). Cada tabela
+ * ocupa (linhas + 1) x (colunas + 1) inteiros, então só as espécies pedidas são
+ * acompanhadas; as demais são contadas pela pirâmide do campo
+ * (ver {@link Field#countNear}).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class DensityTables {
+
+    /** Linhas por tarefa na passada horizontal e colunas por tarefa na vertical. */
+    private static final int BAND = Field.CHUNK_SIZE;
+
+    /** Tabela de cada espécie, pelo ordinal (null se a espécie não é acompanhada). */
+    private final int[][] tables = new int[Species.count()][];
+    /** Espécies acompanhadas. */
+    private final Species[] tracked;
+    /** O campo a partir do qual as tabelas foram construídas (null antes da primeira vez). */
+    private Field source;
+    private int depth, width;
+
+    /**
+     * Cria tabelas para as espécies dadas (todas, se nenhuma for informada).
+     * @param species As espécies acompanhadas.
+     */
+    public DensityTables(Species... species) {
+        this.tracked = species.length > 0 ? species.clone() : Species.values();
+    }
+
+    /**
+     * Refaz as tabelas a partir do estado atual de um campo.
+     * @param field O campo.
+     */
+    public void rebuild(Field field) {
+        source = field;
+        depth = field.getDepth();
+        width = field.getWidth();
+        int size = (depth + 1) * (width + 1);
+        for (Species species : tracked) {
+            int id = species.ordinal();
+            if (tables[id] == null || tables[id].length != size) {
+                tables[id] = new int[size];
+            }
+        }
+
+        int rowBands = (depth + BAND - 1) / BAND;
+        int colBands = (width + 1 + BAND - 1) / BAND;
+        IntStream.range(0, tracked.length * rowBands).parallel()
+                 .forEach(task -> sumRows(field, tracked[task / rowBands], task % rowBands));
+        IntStream.range(0, tracked.length * colBands).parallel()
+                 .forEach(task -> sumColumns(tables[tracked[task / colBands].ordinal()], task % colBands));
+    }
+
+    /**
+     * Passada horizontal: a linha r + 1 da tabela recebe as somas da linha r do campo.
+     */
+    private void sumRows(Field field, Species species, int band) {
+        int[] table = tables[species.ordinal()];
+        int stride = width + 1;
+        int rowEnd = Math.min(depth, (band + 1) * BAND);
+        for (int row = band * BAND; row < rowEnd; row++) {
+            int offset = (row + 1) * stride + 1;
+            int sum = 0;
+            for (int chunkCol = 0; chunkCol < field.getChunkCols(); chunkCol++) {
+                long word = field.speciesCellsInRow(species, row, chunkCol);
+                int colStart = chunkCol * Field.CHUNK_SIZE;
+                int cols = Math.min(Field.CHUNK_SIZE, width - colStart);
+                if (word == 0) {
+                    Arrays.fill(table, offset + colStart, offset + colStart + cols, sum);
+                    continue;
+                }
+                for (int i = 0; i < cols; i++) {
+                    sum += (int) (word >>> i) & 1;
+                    table[offset + colStart + i] = sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Passada vertical: acumula as linhas da tabela, numa faixa de colunas.
+     */
+    private void sumColumns(int[] table, int band) {
+        int stride = width + 1;
+        int colStart = band * BAND;
+        int colEnd = Math.min(stride, colStart + BAND);
+        for (int row = 2; row <= depth; row++) {
+            int offset = row * stride;
+            for (int col = colStart; col < colEnd; col++) {
+                table[offset + col] += table[offset - stride + col];
+            }
+        }
+    }
+
+    /**
+     * @param field Um campo.
+     * @param species Uma espécie.
+     * @return true se as tabelas foram construídas a partir desse campo e acompanham a espécie.
+     */
+    public boolean covers(Field field, Species species) {
+        return field == source && tables[species.ordinal()] != null;
+    }
+
+    /**
+     * Conta uma espécie em um retângulo de células (recortado ao campo), em O(1).
+     * @param species A espécie (deve ser acompanhada).
+     * @param row A primeira linha.
+     * @param col A primeira coluna.
+     * @param rows O número de linhas.
+     * @param cols O número de colunas.
+     * @return O número de células do retângulo ocupadas pela espécie.
+     */
+    public int count(Species species, int row, int col, int rows, int cols) {
+        int[] table = tables[species.ordinal()];
+        int r0 = Math.max(0, row), c0 = Math.max(0, col);
+        int r1 = Math.min(depth, row + rows), c1 = Math.min(width, col + cols);
+        if (r0 >= r1 || c0 >= c1) return 0;
+        int stride = width + 1;
+        return table[r1 * stride + c1] - table[r0 * stride + c1] - table[r1 * stride + c0] + table[r0 * stride + c0];
+    }
+
+    /**
+     * Conta uma espécie no quadrado de raio dado em torno de uma célula (a própria
+     * célula incluída), em O(1).
+     * @param species A espécie (deve ser acompanhada).
+     * @param row A linha do centro.
+     * @param col A coluna do centro.
+     * @param radius O raio, em células (1 = a vizinhança 3x3).
+     * @return O número de células do quadrado ocupadas pela espécie.
+     */
+    public int countInRadius(Species species, int row, int col, int radius) {
+        return count(species, row - radius, col - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.File;
+import java.util.Scanner;
+
+/**
+ * Matriz predador/presa pré-calculada.
+ * Cada espécie predadora tem uma máscara de bits ({@code long}) onde o bit {@code k}
+ * indica que ela pode comer a espécie de ordinal {@code k}. Assim, saber se um animal
+ * pode comer o ocupante de uma célula é uma leitura de array e um teste de bit.
+ * As dietas podem ser carregadas de um arquivo para testar variações da cadeia alimentar.
+ * @author Grupo 1
+ * @version 2025
+ */
+public class Diet {
+
+    private static final String DIET_FILE = "dietas.txt";
+    /** Máscara de presas indexada pelo ordinal do predador. */
+    private static final long[] PREY_MASKS = new long[Species.count()];
+
+    static {
+        loadDefaults();
+    }
+
+    /**
+     * Restaura as dietas originais do modelo (as mesmas descritas em Mecanica.txt).
+     */
+    public static void loadDefaults() {
+        long animals = Species.RABBIT.mask() | Species.FOX.mask() | Species.WOLF.mask()
+                     | Species.EAGLE.mask() | Species.SNAKE.mask() | Species.HUNTER.mask();
+
+        setPrey(Species.RABBIT, Species.PLANT.mask());
+        setPrey(Species.FOX, Species.RABBIT.mask());
+        setPrey(Species.WOLF, Species.RABBIT.mask() | Species.FOX.mask());
+        setPrey(Species.EAGLE, Species.RABBIT.mask() | Species.SNAKE.mask());
+        // Cobra come qualquer animal, exceto o caçador
+        setPrey(Species.SNAKE, animals & ~Species.HUNTER.mask());
+        // Caçador ataca qualquer animal, exceto águias e cobras
+        setPrey(Species.HUNTER, animals & ~Species.EAGLE.mask() & ~Species.SNAKE.mask());
+        setPrey(Species.PLANT, 0L);
+    }
+
+    /**
+     * Carrega as dietas do arquivo configurado.
+     */
+    public static void loadDiets() {
+        loadDiets(DIET_FILE);
+    }
+
+    /**
+     * Carrega as dietas de um arquivo no formato {@code PREDADOR=PRESA1,PRESA2}.
+     * Cada linha substitui a dieta do predador; espécies sem linha mantêm a dieta atual.
+     * O arquivo é lido como UTF-8 (os comentários podem ter acentos); com o charset da
+     * plataforma, um acento num sistema ASCII encerrava a leitura sem aviso.
+     * @param fileName Caminho do arquivo de dietas.
+     */
+    public static void loadDiets(String fileName) {
+        try (Scanner scanner = new Scanner(new File(fileName), "UTF-8")) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+
+                // Ignora linhas inválidas
+                if (line.isEmpty() || line.startsWith("#") || !line.contains("=")) {
+                    continue;
+                }
+
+                String[] parts = line.split("=", -1);
+                Species predator = Species.fromName(parts[0]);
+                if (predator == null) {
+                    System.err.println("Aviso: Espécie inválida '" + parts[0].trim() + "' no arquivo de dietas");
+                    continue;
+                }
+
+                long mask = 0L;
+                for (String p : parts[1].split(",")) {
+                    if (p.isBlank()) continue;
+                    Species prey = Species.fromName(p);
+                    if (prey != null) {
+                        mask |= prey.mask();
+                    } else {
+                        System.err.println("Aviso: Presa inválida '" + p.trim() +
+                                           "' para o predador " + predator);
+                    }
+                }
+                setPrey(predator, mask);
+            }
+        } catch (java.io.FileNotFoundException e) {
+            System.err.println("Aviso: Arquivo de dietas não encontrado: " + fileName +
+                               ". Usando as dietas padrão.");
+        }
+    }
+
+    /**
+     * Define a dieta de uma espécie.
+     * @param predator A espécie predadora.
+     * @param preyMask Máscara com os bits das espécies que ela pode comer.
+     */
+    public static void setPrey(Species predator, long preyMask) {
+        PREY_MASKS[predator.ordinal()] = preyMask;
+    }
+
+    /**
+     * @param predator A espécie predadora.
+     * @return A máscara de bits das espécies que o predador pode comer.
+     */
+    public static long getPreyMask(Species predator) {
+        return PREY_MASKS[predator.ordinal()];
+    }
+
+    /**
+     * Consulta se um predador pode comer o ocupante de uma célula.
+     * @param predator A espécie predadora.
+     * @param obj O ocupante da célula (pode ser null).
+     * @return true se o ocupante for de uma espécie presente na dieta do predador.
+     */
+    public static boolean canEat(Species predator, Object obj) {
+        Species prey = Species.of(obj);
+        return prey != null && (PREY_MASKS[predator.ordinal()] & prey.mask()) != 0;
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Verificação de dietas que misturam animais e plantas: com {@code FOX=PLANT,RABBIT}
+ * e {@code RABBIT=PLANT,FOX} carregadas de um arquivo, uma raposa precisa conseguir
+ * comer uma planta e um coelho, uma raposa, e a simulação precisa rodar alguns passos
+ * sem erro. As dietas são carregadas depois de criar o {@link Simulator}, porque ele
+ * recarrega o arquivo padrão.
+ * <p>
+ * Uso: {@code java DietCheck [lado=100] [passos=50]}; termina com código 1 se alguma
+ * refeição falhar ou se o passo lançar uma exceção.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class DietCheck {
+
+    private static final List<String> CROSS_DIET = List.of(
+        "FOX=PLANT,RABBIT",
+        "RABBIT=PLANT,FOX",
+        "HUNTER=PLANT,RABBIT,FOX,WOLF,HUNTER");
+
+    /**
+     * Ponto de entrada.
+     * @param args Lado da grade e passos simulados.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        Path file = Files.createTempFile("dietas", ".txt");
+        Files.write(file, CROSS_DIET);
+        Simulator simulator = new Simulator(size, size, false, true);
+        Diet.loadDiets(file.toString());
+        Files.delete(file);
+
+        int failures = 0;
+        String problem = foxEatsPlant();
+        System.out.println("Raposa come planta: " + (problem == null ? "ok" : problem));
+        if (problem != null) failures++;
+        problem = rabbitEatsFox();
+        System.out.println("Coelho come raposa: " + (problem == null ? "ok" : problem));
+        if (problem != null) failures++;
+
+        try {
+            simulator.simulate(steps);
+            System.out.println(size + "x" + size + ", " + steps + " passos com as dietas cruzadas: ok");
+        } catch (RuntimeException e) {
+            System.out.println(size + "x" + size + ", passo com as dietas cruzadas falhou: " + e);
+            failures++;
+        } finally {
+            simulator.close();
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Uma raposa com fome e uma planta como única vizinha.
+     * @return null se a raposa comeu a planta, ou a descrição do problema.
+     */
+    private static String foxEatsPlant() {
+        Field field = new Field(8, 8);
+        Fox fox = new Fox();
+        fox.setFoodLevel(1);
+        Location center = field.locationAt(4, 4);
+        fox.setLocation(center);
+        field.place(fox, center);
+        Location where = field.locationAt(3, 4);
+        Plant.SAGE.setLocation(where);
+        field.place(Plant.SAGE, where);
+
+        Location eaten = fox.findFood(field);
+        if (!where.equals(eaten)) return "a raposa não achou a planta em " + where;
+        if (field.getObjectAt(where) != null) return "a planta continua no campo";
+        if (fox.getFoodLevel() != fox.getFoodValue()) return "reserva de comida " + fox.getFoodLevel();
+        return null;
+    }
+
+    /**
+     * Um coelho com uma raposa como única vizinha.
+     * @return null se o coelho comeu a raposa, ou a descrição do problema.
+     */
+    private static String rabbitEatsFox() {
+        Field field = new Field(8, 8);
+        Rabbit rabbit = new Rabbit();
+        rabbit.setFoodLevel(1);
+        Location center = field.locationAt(4, 4);
+        rabbit.setLocation(center);
+        field.place(rabbit, center);
+        Fox fox = new Fox();
+        Location where = field.locationAt(5, 5);
+        fox.setLocation(where);
+        field.place(fox, where);
+
+        Location eaten = rabbit.findFood(field);
+        if (!where.equals(eaten)) return "o coelho não achou a raposa em " + where;
+        if (fox.isAlive()) return "a raposa continua viva";
+        if (field.getObjectAt(where) != null) return "a raposa continua no campo";
+        return null;
+    }
+}
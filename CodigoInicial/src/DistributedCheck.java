@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verificação da simulação em faixas ({@link DistributedSimulator}), para uma semente fixa:
+ * <ul>
+ * <li>uma faixa só precisa dar, a cada passo, as mesmas populações que um
+ *     {@link Simulator} de um processo só com o mesmo terreno e gerador;</li>
+ * <li>N faixas no próprio processo ({@code --local}) precisam dar, a cada passo, as
+ *     mesmas populações que N faixas em processos {@link StripeWorker} separados.</li>
+ * </ul>
+ * N faixas não são comparadas com o processo só: os atores de faixas diferentes agem
+ * ao mesmo tempo, com sorteios próprios, e as trajetórias são outras (ver {@link Stripe}).
+ * <p>
+ * Uso: {@code java DistributedCheck [linhas=120] [colunas=80] [faixas=4] [passos=30] [semente=42]};
+ * termina com código 1 no primeiro passo em que alguma comparação divergir.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class DistributedCheck {
+
+    /**
+     * Ponto de entrada.
+     * @param args Linhas, colunas, faixas, passos e semente.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int steps = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+        Simulator single = new Simulator(new Field(depth, width, seed, 0), Stripe.randomFor(seed, 0), 0, depth);
+        List<String> expected = new ArrayList<>();
+        FieldStats stats = new FieldStats();
+        for (int step = 0; step < steps; step++) {
+            single.simulateOneStep();
+            stats.reset();
+            expected.add(stats.getPopulationDetails(single.field));
+        }
+        single.close();
+
+        int failures = 0;
+        List<String> oneStripe = run(DistributedSimulator.local(depth, width, 1, seed), steps);
+        failures += compare("1 faixa", "processo só", expected, oneStripe);
+
+        List<String> local = run(DistributedSimulator.local(depth, width, count, seed), steps);
+        List<String> remote = run(DistributedSimulator.remote(depth, width, count, seed), steps);
+        failures += compare(count + " faixas locais", count + " faixas em processos", remote, local);
+
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executa os passos e encerra o coordenador.
+     * @return As populações de cada passo.
+     */
+    private static List<String> run(DistributedSimulator simulator, int steps)
+            throws IOException, InterruptedException {
+        List<String> populations = new ArrayList<>();
+        for (int step = 0; step < steps; step++) {
+            populations.add(simulator.simulateOneStep().getPopulationDetails());
+        }
+        simulator.close();
+        return populations;
+    }
+
+    /**
+     * Compara duas execuções passo a passo e mostra o primeiro passo diferente.
+     * @return 0 se forem iguais, 1 se não.
+     */
+    private static int compare(String name, String reference, List<String> expected, List<String> actual) {
+        for (int step = 0; step < expected.size(); step++) {
+            if (!expected.get(step).equals(actual.get(step))) {
+                System.out.println(name + " diverge de " + reference + " no passo " + (step + 1) + ":\n  "
+                                   + expected.get(step) + "\n  " + actual.get(step));
+                return 1;
+            }
+        }
+        System.out.println(name + " = " + reference + " em " + expected.size() + " passos: "
+                           + actual.get(actual.size() - 1));
+        return 0;
+    }
+}
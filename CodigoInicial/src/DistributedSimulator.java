@@ -0,0 +1,321 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Coordenador da simulação dividida em faixas horizontais ({@link Stripe}).
+ * <p>
+ * Cada faixa roda em um processo Java próprio ({@link StripeWorker}) na mesma máquina,
+ * conectado ao coordenador por um socket local. A cada passo o coordenador mantém
+ * todas as faixas em sincronia: repassa os ocupantes das linhas de borda (fantasmas)
+ * entre vizinhas, depois os animais que migraram e os fantasmas que foram comidos, e
+ * por fim soma as contagens em um {@link FieldStats}.
+ * <p>
+ * Com {@code --local} as mesmas faixas rodam dentro do próprio coordenador, pelo mesmo
+ * protocolo de passos. O que é garantido, e verificado por {@link DistributedCheck}:
+ * <ul>
+ * <li>com uma faixa, o resultado é o de um {@link Simulator} num processo só com o
+ *     mesmo terreno e gerador;</li>
+ * <li>com N faixas, as duas formas produzem exatamente as mesmas populações a cada passo.</li>
+ * </ul>
+ * Com mais de uma faixa o resultado não é o do processo só: lá os atores agem um de
+ * cada vez, em ordem única e com uma só sequência de sorteios, e aqui cada faixa age ao
+ * mesmo tempo com os seus sorteios, vendo a vizinha só como ela estava no início do
+ * passo (ver {@link Stripe}). Outro número de faixas dá, portanto, outras trajetórias.
+ * <p>
+ * Uso: {@code java DistributedSimulator <linhas> <colunas> <faixas> <passos> <semente> [--local]}
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class DistributedSimulator {
+
+    /**
+     * Uma faixa vista pelo coordenador, local ou em outro processo.
+     * As fases são separadas em "iniciar" e "terminar" para que as faixas remotas
+     * trabalhem em paralelo enquanto o coordenador espera pelas respostas.
+     */
+    private interface StripeEndpoint {
+        /** Inicia o passo e retorna os ocupantes das linhas de borda {primeira, última}. */
+        Stripe.Ghost[][] startStep() throws IOException;
+
+        /** Envia as linhas fantasmas e manda a faixa executar os atores. */
+        void startAct(Stripe.Ghost[] above, Stripe.Ghost[] below) throws IOException;
+
+        /** Espera o fim da execução e retorna os migrantes e os fantasmas comidos. */
+        Outbox finishAct() throws IOException;
+
+        /** Envia os migrantes recebidos das vizinhas e os ocupantes de borda que elas comeram. */
+        void startSettle(List<Stripe.Migrant> incoming, BitSet eatenFirst, BitSet eatenLast) throws IOException;
+
+        /** Espera o fim do passo e retorna a contagem por espécie. */
+        int[] finishSettle() throws IOException;
+
+        /** Encerra a faixa. */
+        void close() throws IOException;
+    }
+
+    /**
+     * O que uma faixa manda às vizinhas no fim da execução dos atores.
+     * @param up Os migrantes para a faixa de cima.
+     * @param down Os migrantes para a faixa de baixo.
+     * @param eatenAbove As colunas da última linha da faixa de cima comidas.
+     * @param eatenBelow As colunas da primeira linha da faixa de baixo comidas.
+     */
+    private record Outbox(List<Stripe.Migrant> up, List<Stripe.Migrant> down,
+                          BitSet eatenAbove, BitSet eatenBelow) {
+    }
+
+    /**
+     * Faixa executada no próprio processo do coordenador.
+     */
+    private static class LocalStripe implements StripeEndpoint {
+        private final Stripe stripe;
+        private Stripe.Ghost[] above, below;
+        private List<Stripe.Migrant> incoming;
+        private BitSet eatenFirst, eatenLast;
+
+        LocalStripe(Stripe stripe) {
+            this.stripe = stripe;
+        }
+
+        public Stripe.Ghost[][] startStep() {
+            return new Stripe.Ghost[][] { stripe.boundaryRow(true), stripe.boundaryRow(false) };
+        }
+
+        public void startAct(Stripe.Ghost[] above, Stripe.Ghost[] below) {
+            this.above = above;
+            this.below = below;
+        }
+
+        public Outbox finishAct() {
+            stripe.act(above, below);
+            return new Outbox(new ArrayList<>(stripe.getMigrantsUp()), new ArrayList<>(stripe.getMigrantsDown()),
+                              (BitSet) stripe.getEatenAbove().clone(), (BitSet) stripe.getEatenBelow().clone());
+        }
+
+        public void startSettle(List<Stripe.Migrant> incoming, BitSet eatenFirst, BitSet eatenLast) {
+            this.incoming = incoming;
+            this.eatenFirst = eatenFirst;
+            this.eatenLast = eatenLast;
+        }
+
+        public int[] finishSettle() {
+            stripe.settle(incoming, eatenFirst, eatenLast);
+            return stripe.getCounts();
+        }
+
+        public void close() {
+            stripe.close();
+        }
+    }
+
+    /**
+     * Faixa executada em um processo {@link StripeWorker}.
+     */
+    private static class RemoteStripe implements StripeEndpoint {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        RemoteStripe(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void configure(int index, int count, int depth, int width, long seed) throws IOException {
+            out.writeInt(index);
+            out.writeInt(count);
+            out.writeInt(depth);
+            out.writeInt(width);
+            out.writeLong(seed);
+            out.flush();
+        }
+
+        public Stripe.Ghost[][] startStep() throws IOException {
+            out.writeInt(StripeWorker.CMD_STEP);
+            out.flush();
+            return new Stripe.Ghost[][] { StripeWorker.readGhosts(in), StripeWorker.readGhosts(in) };
+        }
+
+        public void startAct(Stripe.Ghost[] above, Stripe.Ghost[] below) throws IOException {
+            StripeWorker.writeGhosts(out, above);
+            StripeWorker.writeGhosts(out, below);
+            out.flush();
+        }
+
+        public Outbox finishAct() throws IOException {
+            return new Outbox(StripeWorker.readMigrants(in), StripeWorker.readMigrants(in),
+                              StripeWorker.readBitSet(in), StripeWorker.readBitSet(in));
+        }
+
+        public void startSettle(List<Stripe.Migrant> incoming, BitSet eatenFirst, BitSet eatenLast)
+                throws IOException {
+            StripeWorker.writeMigrants(out, incoming);
+            StripeWorker.writeBitSet(out, eatenFirst);
+            StripeWorker.writeBitSet(out, eatenLast);
+            out.flush();
+        }
+
+        public int[] finishSettle() throws IOException {
+            int[] counts = new int[Species.count()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readInt();
+            }
+            return counts;
+        }
+
+        public void close() throws IOException {
+            out.writeInt(StripeWorker.CMD_STOP);
+            out.flush();
+            socket.close();
+        }
+    }
+
+    private final List<StripeEndpoint> stripes;
+    private final List<Process> workers;
+    private final FieldStats stats = new FieldStats();
+
+    /**
+     * Cria o coordenador para um conjunto de faixas já conectadas.
+     */
+    private DistributedSimulator(List<StripeEndpoint> stripes, List<Process> workers) {
+        this.stripes = stripes;
+        this.workers = workers;
+    }
+
+    /**
+     * Cria um coordenador com todas as faixas no próprio processo.
+     * @param depth O número de linhas do mundo.
+     * @param width O número de colunas do mundo.
+     * @param count O número de faixas.
+     * @param seed A semente da execução.
+     * @return O coordenador.
+     */
+    static DistributedSimulator local(int depth, int width, int count, long seed) {
+        List<StripeEndpoint> stripes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            stripes.add(new LocalStripe(new Stripe(i, count, depth, width, seed)));
+        }
+        return new DistributedSimulator(stripes, List.of());
+    }
+
+    /**
+     * Cria um coordenador com cada faixa num processo {@link StripeWorker} próprio.
+     * @param depth O número de linhas do mundo.
+     * @param width O número de colunas do mundo.
+     * @param count O número de faixas.
+     * @param seed A semente da execução.
+     * @return O coordenador.
+     * @throws IOException Se não for possível iniciar ou conectar os processos.
+     */
+    static DistributedSimulator remote(int depth, int width, int count, long seed) throws IOException {
+        List<StripeEndpoint> stripes = new ArrayList<>();
+        List<Process> workers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, count, InetAddress.getLoopbackAddress())) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int i = 0; i < count; i++) {
+                workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                               "StripeWorker", String.valueOf(server.getLocalPort()))
+                            .inheritIO().start());
+            }
+            for (int i = 0; i < count; i++) {
+                RemoteStripe stripe = new RemoteStripe(server.accept());
+                stripe.configure(i, count, depth, width, seed);
+                stripes.add(stripe);
+            }
+        }
+        return new DistributedSimulator(stripes, workers);
+    }
+
+    /**
+     * Executa um passo em todas as faixas, em sincronia.
+     * @return As estatísticas somadas de todas as faixas.
+     */
+    public FieldStats simulateOneStep() throws IOException {
+        int n = stripes.size();
+
+        // 1. Troca das linhas de borda (fantasmas)
+        Stripe.Ghost[][][] boundaries = new Stripe.Ghost[n][][];
+        for (int i = 0; i < n; i++) {
+            boundaries[i] = stripes.get(i).startStep();
+        }
+        for (int i = 0; i < n; i++) {
+            Stripe.Ghost[] above = i > 0 ? boundaries[i - 1][1] : null;
+            Stripe.Ghost[] below = i < n - 1 ? boundaries[i + 1][0] : null;
+            stripes.get(i).startAct(above, below);
+        }
+
+        // 2. Troca dos migrantes (primeiro os que vêm de cima, depois os de baixo) e dos fantasmas comidos
+        List<Outbox> outboxes = new ArrayList<>(n);
+        for (StripeEndpoint stripe : stripes) {
+            outboxes.add(stripe.finishAct());
+        }
+        for (int i = 0; i < n; i++) {
+            List<Stripe.Migrant> incoming = new ArrayList<>();
+            if (i > 0) incoming.addAll(outboxes.get(i - 1).down());
+            if (i < n - 1) incoming.addAll(outboxes.get(i + 1).up());
+            BitSet eatenFirst = i > 0 ? outboxes.get(i - 1).eatenBelow() : null;
+            BitSet eatenLast = i < n - 1 ? outboxes.get(i + 1).eatenAbove() : null;
+            stripes.get(i).startSettle(incoming, eatenFirst, eatenLast);
+        }
+
+        // 3. Junta as contagens de todas as faixas
+        stats.reset();
+        for (StripeEndpoint stripe : stripes) {
+            stats.addCounts(stripe.finishSettle());
+        }
+        return stats;
+    }
+
+    /**
+     * Encerra todas as faixas e espera o fim dos processos.
+     */
+    public void close() throws IOException, InterruptedException {
+        for (StripeEndpoint stripe : stripes) {
+            stripe.close();
+        }
+        for (Process worker : workers) {
+            worker.waitFor();
+        }
+    }
+
+    /**
+     * Ponto de entrada do coordenador.
+     * @param args linhas, colunas, faixas, passos, semente e opcionalmente --local.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 5) {
+            System.err.println("Uso: java DistributedSimulator <linhas> <colunas> <faixas> <passos> <semente> [--local]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int width = Integer.parseInt(args[1]);
+        int count = Math.max(1, Math.min(Integer.parseInt(args[2]), depth));
+        int steps = Integer.parseInt(args[3]);
+        long seed = Long.parseLong(args[4]);
+        boolean local = args.length > 5 && args[5].equals("--local");
+
+        Barriers.loadRestrictions();
+        Diet.loadDiets();
+
+        DistributedSimulator simulator = local ? local(depth, width, count, seed)
+                                               : remote(depth, width, count, seed);
+        for (int step = 1; step <= steps; step++) {
+            FieldStats stats = simulator.simulateOneStep();
+            System.out.println("Passo " + step + ": " + stats.getPopulationDetails());
+        }
+        simulator.close();
+    }
+}
@@ -1,4 +1,3 @@
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -24,11 +23,11 @@ public class Eagle extends Animal {
     }
     
     /**
-     * Define se a águia pode comer o objeto fornecido.
+     * Retorna a espécie da águia, usada na matriz de dietas.
      */
     @Override
-    public boolean canEat(Object obj) {
-        return (obj instanceof Rabbit) || (obj instanceof Snake);
+    public Species getSpecies() {
+        return Species.EAGLE;
     }
 
     /**
@@ -36,19 +35,16 @@ public class Eagle extends Animal {
      */
     @Override
     public Location findFood(Field currentField) {
-        Iterator<Location> adjacent = currentField.adjacentLocations(getLocation()).iterator();
-        while (adjacent.hasNext()) {
-            Location where = adjacent.next();
+        int candidates = currentField.adjacentMaskOf(getLocation(), Diet.getPreyMask(getSpecies()));
+        while (candidates != 0) {
+            int bit = currentField.randomBit(candidates);
+            candidates &= ~(1 << bit);
+            Location where = currentField.neighbourLocation(getLocation(), bit);
             Object obj = currentField.getObjectAt(where);
 
-            if (canEat(obj)) {
-                Animal prey = (Animal) obj;
-                if (prey.isAlive()) {
-                    prey.setDead();
-                    currentField.clear(where); 
-                    setFoodLevel(FOOD_VALUE);
-                    return where;
-                }
+            if (canEat(obj) && eat(currentField, where, obj)) {
+                setFoodLevel(FOOD_VALUE);
+                return where;
             }
         }
         return null;
@@ -60,17 +56,24 @@ public class Eagle extends Animal {
      */
     @Override
     public void giveBirth(Field currentField, Field updatedField, List<Actor> newActors) {
-        List<Location> freeLocations = currentField.getFreeAdjacent(getLocation());
-        int births = breed();
+        int free = currentField.freeAdjacentMask(getLocation());
+        int births = breed(currentField);
         
-        for (int i = 0; i < births && !freeLocations.isEmpty(); i++) {
-            Location newLoc = freeLocations.remove(0);
+        int born = 0;
+        while (born < births && free != 0) {
+            int bit = currentField.randomBit(free);
+            free &= ~(1 << bit);
+            Location newLoc = currentField.neighbourLocation(getLocation(), bit);
             
-            Eagle newAnimal = new Eagle();
+            Eagle newAnimal = (Eagle) AnimalPool.obtain(Species.EAGLE);
+            // Célula já tomada no campo de destino: o filhote tenta a próxima livre
+            if (!updatedField.claim(newAnimal, newLoc)) {
+                AnimalPool.release(newAnimal);
+                continue;
+            }
             newAnimal.setLocation(newLoc);
-            
-            updatedField.place(newAnimal, newLoc);
             newActors.add(newAnimal);
+            born++;
         }
     }
     
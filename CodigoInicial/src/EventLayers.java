@@ -0,0 +1,311 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Camadas de eventos sobre o {@link Field}: incêndios na vegetação densa e contágio
+ * entre animais vizinhos da mesma espécie, como autômatos celulares.
+ * <p>
+ * As duas camadas só guardam a frente do evento: as células em chamas e os animais
+ * contagiosos. A cada passo só a frente é visitada, então o custo depende do tamanho
+ * da frente, não do campo, e um incêndio pode atravessar milhões de células sem que
+ * o campo seja varrido.
+ * <ul>
+ *   <li>Fogo: uma célula de {@link Terrain#DENSE_VEGETATION} acesa queima por um passo,
+ *       mata o animal ou a planta que estiver nela e passa o fogo a cada vizinha de
+ *       vegetação densa com a probabilidade de propagação. Cada célula queima uma vez
+ *       só: as queimadas ficam marcadas num mapa de bits por bloco de 64x64 (uma palavra
+ *       por linha, como nos bitboards do campo), alocado só para os blocos atingidos.</li>
+ *   <li>Contágio: um animal infectado passa a doença a cada vizinho sadio da mesma
+ *       espécie com a probabilidade de transmissão, morre com a letalidade por passo
+ *       e, se sobreviver ao período de contágio, fica imune. O estado fica no próprio
+ *       animal (ver {@link Animal#getInfection()}).</li>
+ * </ul>
+ * A vizinhança segue a topologia do campo (ver {@link Topology}). As mortes são só
+ * marcadas aqui; o {@link Simulator} retira os mortos no passo seguinte, como os
+ * demais.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class EventLayers {
+
+    /** Probabilidade padrão de o fogo passar para cada vizinha de vegetação densa. */
+    public static final double DEFAULT_FIRE_SPREAD = 0.6;
+    /** Probabilidade padrão de contágio de cada vizinho sadio, por passo. */
+    public static final double DEFAULT_TRANSMISSION = 0.25;
+    /** Período padrão de contágio, em passos. */
+    public static final int DEFAULT_INFECTIOUS_STEPS = 8;
+    /** Probabilidade padrão de um infectado morrer, por passo. */
+    public static final double DEFAULT_LETHALITY = 0.05;
+    /** Estado de infecção de um animal curado. */
+    private static final int IMMUNE = -1;
+
+    private final double fireSpread;
+    private final double transmission;
+    private final int infectiousSteps;
+    private final double lethality;
+
+    /** Células em chamas (linha nos 32 bits altos, coluna nos baixos) e as do próximo passo. */
+    private long[] burning = new long[64], nextBurning = new long[64];
+    private int burningCount;
+    /** Células já acesas, por bloco (null se o bloco nunca pegou fogo). */
+    private long[][] scorched = new long[0][];
+    private int chunkCols;
+    private long terrainId;
+    /** Animais contagiosos e os do próximo passo. */
+    private List<Animal> infected = new ArrayList<>(), nextInfected = new ArrayList<>();
+    private long burnedCells, fireDeaths, infections, diseaseDeaths;
+
+    /**
+     * Cria as camadas com as probabilidades padrão.
+     */
+    public EventLayers() {
+        this(DEFAULT_FIRE_SPREAD, DEFAULT_TRANSMISSION, DEFAULT_INFECTIOUS_STEPS, DEFAULT_LETHALITY);
+    }
+
+    /**
+     * Cria as camadas.
+     * @param fireSpread A probabilidade de o fogo passar para cada vizinha de vegetação densa.
+     * @param transmission A probabilidade de contágio de cada vizinho sadio, por passo.
+     * @param infectiousSteps Quantos passos um animal infectado contagia antes de ficar imune.
+     * @param lethality A probabilidade de um infectado morrer, por passo.
+     */
+    public EventLayers(double fireSpread, double transmission, int infectiousSteps, double lethality) {
+        if (infectiousSteps < 1) {
+            throw new IllegalArgumentException("Período de contágio inválido: " + infectiousSteps);
+        }
+        this.fireSpread = fireSpread;
+        this.transmission = transmission;
+        this.infectiousSteps = infectiousSteps;
+        this.lethality = lethality;
+    }
+
+    /**
+     * Acende o fogo numa célula, se ela for de vegetação densa e ainda não tiver queimado.
+     * @param field O campo.
+     * @param row A linha.
+     * @param col A coluna.
+     * @return true se a célula pegou fogo.
+     */
+    public boolean ignite(Field field, int row, int col) {
+        adapt(field);
+        if (field.getTerrainAt(row, col) != Terrain.DENSE_VEGETATION || !scorch(row, col)) {
+            return false;
+        }
+        if (burningCount == burning.length) {
+            burning = Arrays.copyOf(burning, burningCount * 2);
+        }
+        burning[burningCount++] = pack(row, col);
+        return true;
+    }
+
+    /**
+     * Infecta um animal sadio que está no campo.
+     * @param animal O animal.
+     * @return true se o animal foi infectado (false se já estava doente, imune ou morto).
+     */
+    public boolean infect(Animal animal) {
+        if (!animal.isAlive() || animal.getLocation() == null || animal.getInfection() != 0) {
+            return false;
+        }
+        animal.setInfection(infectiousSteps);
+        infected.add(animal);
+        infections++;
+        return true;
+    }
+
+    /**
+     * Avança um passo das duas camadas, visitando só a frente de cada evento.
+     * @param field O campo atual.
+     */
+    public void step(Field field) {
+        adapt(field);
+        if (burningCount > 0) {
+            spreadFire(field);
+        }
+        if (!infected.isEmpty()) {
+            spreadDisease(field);
+        }
+    }
+
+    /**
+     * Queima as células da frente do fogo e acende as vizinhas que pegarem fogo.
+     */
+    private void spreadFire(Field field) {
+        Random random = field.getRandom();
+        int nextCount = 0;
+        for (int i = 0; i < burningCount; i++) {
+            int row = (int) (burning[i] >>> 32), col = (int) burning[i];
+            Location location = field.locationAt(row, col);
+            Object occupant = field.getObjectAt(location);
+            if (occupant instanceof Animal animal) {
+                if (animal.isAlive()) {
+                    animal.setDead();
+                    fireDeaths++;
+                }
+            } else if (occupant != null) {
+                field.clear(location);
+                fireDeaths++;
+            }
+            burnedCells++;
+
+            for (int mask = field.neighbourMask(location); mask != 0; mask &= mask - 1) {
+                Location next = field.neighbourLocation(location, Integer.numberOfTrailingZeros(mask));
+                int nextRow = next.getRow(), nextCol = next.getCol();
+                if (field.getTerrainAt(nextRow, nextCol) != Terrain.DENSE_VEGETATION
+                        || isScorched(nextRow, nextCol) || random.nextDouble() >= fireSpread) {
+                    continue;
+                }
+                scorch(nextRow, nextCol);
+                if (nextCount == nextBurning.length) {
+                    nextBurning = Arrays.copyOf(nextBurning, nextCount * 2);
+                }
+                nextBurning[nextCount++] = pack(nextRow, nextCol);
+            }
+        }
+        long[] swap = burning;
+        burning = nextBurning;
+        nextBurning = swap;
+        burningCount = nextCount;
+    }
+
+    /**
+     * Passa a doença dos infectados aos vizinhos da mesma espécie e avança o período
+     * de contágio de cada um. Quem saiu do campo (morto, migrado ou agregado) sai da frente.
+     */
+    private void spreadDisease(Field field) {
+        Random random = field.getRandom();
+        nextInfected.clear();
+        for (Animal animal : infected) {
+            Location location = animal.getLocation();
+            if (!animal.isAlive() || animal.getInfection() <= 0 || location == null
+                    || field.getObjectAt(location) != animal) {
+                continue;
+            }
+            long sameSpecies = 1L << animal.getSpecies().ordinal();
+            for (int mask = field.adjacentMaskOf(location, sameSpecies); mask != 0; mask &= mask - 1) {
+                Location next = field.neighbourLocation(location, Integer.numberOfTrailingZeros(mask));
+                if (field.getObjectAt(next) instanceof Animal neighbour && neighbour.isAlive()
+                        && neighbour.getInfection() == 0 && random.nextDouble() < transmission) {
+                    neighbour.setInfection(infectiousSteps);
+                    nextInfected.add(neighbour);
+                    infections++;
+                }
+            }
+            if (random.nextDouble() < lethality) {
+                animal.setDead();
+                diseaseDeaths++;
+            } else if (animal.getInfection() == 1) {
+                animal.setInfection(IMMUNE);
+            } else {
+                animal.setInfection(animal.getInfection() - 1);
+                nextInfected.add(animal);
+            }
+        }
+        List<Animal> swap = infected;
+        infected = nextInfected;
+        nextInfected = swap;
+    }
+
+    /**
+     * Apaga o fogo, esquece as células queimadas e a lista de infectados (o estado dos
+     * animais fica como está). Usado quando a simulação é reiniciada.
+     */
+    public void clear() {
+        burningCount = 0;
+        Arrays.fill(scorched, null);
+        infected.clear();
+    }
+
+    /**
+     * Ajusta o mapa de células queimadas ao campo; um campo de outro terreno ou
+     * tamanho começa sem queimadas.
+     */
+    private void adapt(Field field) {
+        int chunks = field.getChunkRows() * field.getChunkCols();
+        if (chunks != scorched.length || field.getChunkCols() != chunkCols || field.getTerrainId() != terrainId) {
+            scorched = new long[chunks][];
+            chunkCols = field.getChunkCols();
+            terrainId = field.getTerrainId();
+            burningCount = 0;
+        }
+    }
+
+    /**
+     * Marca uma célula como queimada.
+     * @return false se ela já estava marcada.
+     */
+    private boolean scorch(int row, int col) {
+        int chunk = (row / Field.CHUNK_SIZE) * chunkCols + col / Field.CHUNK_SIZE;
+        long[] words = scorched[chunk];
+        if (words == null) {
+            words = scorched[chunk] = new long[Field.CHUNK_SIZE];
+        }
+        long bit = 1L << (col % Field.CHUNK_SIZE);
+        int word = row % Field.CHUNK_SIZE;
+        if ((words[word] & bit) != 0) return false;
+        words[word] |= bit;
+        return true;
+    }
+
+    /**
+     * @param row A linha.
+     * @param col A coluna.
+     * @return true se a célula já pegou fogo (está em chamas ou queimada).
+     */
+    public boolean isScorched(int row, int col) {
+        int chunk = (row / Field.CHUNK_SIZE) * chunkCols + col / Field.CHUNK_SIZE;
+        if (chunk >= scorched.length || scorched[chunk] == null) return false;
+        return (scorched[chunk][row % Field.CHUNK_SIZE] & (1L << (col % Field.CHUNK_SIZE))) != 0;
+    }
+
+    /**
+     * Percorre a frente do fogo: serve para consultas avulsas, não para varrer o campo.
+     * @param row A linha.
+     * @param col A coluna.
+     * @return true se a célula está em chamas neste passo.
+     */
+    public boolean isBurning(int row, int col) {
+        long cell = pack(row, col);
+        for (int i = 0; i < burningCount; i++) {
+            if (burning[i] == cell) return true;
+        }
+        return false;
+    }
+
+    /** @return O número de células em chamas. */
+    public int getBurningCount() {
+        return burningCount;
+    }
+
+    /** @return O número de animais contagiosos. */
+    public int getInfectedCount() {
+        return infected.size();
+    }
+
+    /** @return Quantas células já queimaram. */
+    public long getBurnedCells() {
+        return burnedCells;
+    }
+
+    /** @return Quantos animais e plantas o fogo matou. */
+    public long getFireDeaths() {
+        return fireDeaths;
+    }
+
+    /** @return Quantos animais foram infectados, contando os infectados à mão. */
+    public long getInfections() {
+        return infections;
+    }
+
+    /** @return Quantos animais a doença matou. */
+    public long getDiseaseDeaths() {
+        return diseaseDeaths;
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
@@ -1,4 +1,8 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
 import java.util.Random;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
@@ -6,80 +10,503 @@ import java.util.ArrayList;
 /**
  * Representa o campo (grade) da simulação, armazenando objetos (atores)
  * em células e mantendo os tipos de {@link Terrain} de cada célula.
+ * <p>
+ * A grade é dividida em blocos (chunks) de 64x64 células. Cada bloco guarda seus
+ * objetos e mapas de bits (bitboards) de ocupação: um geral e um por {@link Species},
+ * com uma palavra {@code long} por linha do bloco. Consultas de vizinhança
+ * (célula livre, presa adjacente) viram operações sobre palavras combinadas com a
+ * máscara de dieta, e contagens de população viram {@link Long#bitCount}.
+ * <p>
+ * No modo denso todos os blocos existem desde o início. No modo esparso (mundos
+ * muito grandes e quase vazios) um bloco só é alocado na primeira escrita e é
+ * liberado quando fica vazio; o terreno é calculado a partir de uma semente, sem
+ * ocupar memória por célula.
+ * <p>
+ * No modo off-heap o terreno, os ids dos ocupantes e os bitboards ficam em um
+ * {@link OffHeapGrid} (memória direta ou arquivo mapeado), e o heap só guarda a
+ * tabela de animais do passo: o uso de heap não depende do tamanho da grade.
+ * <p>
+ * Um campo e as cópias feitas a partir dele (ver {@link #Field(Field)}) compartilham
+ * o terreno, as instâncias de {@link Location} de cada célula (modo denso) e os blocos
+ * livres (modo esparso). Com dois campos reaproveitados a cada passo
+ * (ver {@link #clear()}), um passo em regime não aloca memória além dos novos animais.
+ * <p>
+ * Escalonamento por regiões ativas: um bloco é ativo se ele ou um bloco vizinho tem
+ * animais. Blocos inativos (vazios ou só com plantas) passam de um campo para o outro
+ * sem serem percorridos (ver {@link #prepareNext(Field, boolean[])}), de modo que o
+ * custo de um passo depende da atividade e não da área.
+ * <p>
+ * Movimentos e nascimentos ocupam células do campo de destino com
+ * {@link #claim(Object, Location)}, que só toma a célula se não houver um animal vivo
+ * nela (compare-and-set na célula, sem travas). Várias threads podem reivindicar
+ * células ao mesmo tempo; {@link #place} e {@link #clear(Location)} continuam sendo
+ * de um único escritor.
+ * <p>
+ * Pirâmide de densidade: o campo mantém, por espécie, as contagens de blocos
+ * alinhados de 2^L x 2^L células para todos os níveis L, até um único bloco com o
+ * campo inteiro. A base da pirâmide já existe e é atualizada a cada colocação ou
+ * remoção: os bitboards (níveis até 32x32, no máximo uma palavra por linha do bloco)
+ * e os contadores de cada bloco (nível 64x64). Os níveis acima dos blocos recebem
+ * só a diferença de cada contador de bloco desde a última consulta, sem encarecer
+ * cada movimento. Nada é recalculado a partir das células: a contagem de um bloco
+ * de qualquer nível custa no máximo 32 palavras (ver {@link #getBlockCount}) e a de
+ * um retângulo qualquer desce a pirâmide só pelas bordas (ver {@link #countRegion}).
+ * O modo off-heap não mantém a pirâmide e conta direto nos bitboards.
+ * <p>
+ * A vizinhança imediata segue uma {@link Topology} (por padrão a de Moore limitada
+ * pelas bordas). Tabelas pré-calculadas por linha e por coluna dão os bits válidos da
+ * janela 3x3 e as linhas e colunas vizinhas, então montar uma janela ou achar um
+ * vizinho não testa bordas, nem mesmo no toro.
  *
  * @author Grupo 1
  * @version 2025
  */
 public class Field {
-    
+
     // Atributos
     private final int depth;
     private final int width;
-    private final Object[][] cells; // Matriz que armazena os objetos (Actor)
-    private final Terrain[][] terrainMap; // Matriz que armazena o tipo de terreno
-    private static final Random RAND = new Random();
+    private final Terrain[][] terrainMap; // Matriz que armazena o tipo de terreno (null no modo esparso)
+    private final long terrainSeed; // Semente do terreno (identifica o terreno do campo)
+    private final boolean sparse;
+    private static final Random RAND = Randomizer.getRandom();
+    /**
+     * Gerador dos sorteios feitos sobre o campo (ordem dos vizinhos, ver {@link #randomBit});
+     * compartilhado com o campo de origem, e o do {@link Randomizer} se não houver.
+     */
+    private Random random;
+
+    /** Grade fora do heap (null nos modos denso e esparso). */
+    private final OffHeapGrid grid;
+    /** Página da grade usada por este campo. */
+    private final int page;
+    /** Animais deste campo no modo off-heap; o id de ocupante aponta para esta lista. */
+    private final List<Object> entities;
+    /** Posições de {@link #entities} liberadas (a célula mudou de ocupante), reusadas antes de crescer. */
+    private int[] freeEntities = new int[0];
+    private int freeEntityCount;
+    private static final Plant[] PLANTS = Plant.values();
+
+    /** Log2 do lado de um bloco (64 células); uma palavra por linha de bloco. */
+    private static final int CHUNK_SHIFT = 6;
+    /** Lado de um bloco, em células. */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** Camada de ocupação geral (as demais camadas são ordinais de {@link Species}). */
+    private static final int OCCUPIED_LAYER = -1;
+    /** Bit da própria célula na janela 3x3 de vizinhança (bit = (dr+1)*3 + (dc+1)). */
+    private static final int CENTER_BIT = 4;
+    /** Resultado das buscas de coluna sem resultado (as colunas do toro podem ser negativas). */
+    private static final int NO_COLUMN = Integer.MIN_VALUE;
+
+    // Acessos atômicos usados por claim(); os demais métodos usam leitura e escrita simples
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Chunk[].class);
+    private static final VarHandle POPULATION;
+    private static final VarHandle ANIMALS;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            POPULATION = lookup.findVarHandle(Chunk.class, "population", int.class);
+            ANIMALS = lookup.findVarHandle(Chunk.class, "animals", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int chunkRows;
+    private final int chunkCols;
+    /** Localizações já criadas, por bloco e célula (null nos modos esparso e off-heap). */
+    private final Location[][] locations;
+    /** Blocos vazios guardados para reuso no modo esparso (null nos demais modos). */
+    private final ArrayDeque<Chunk> chunkPool;
+    /** Blocos alterados desde que este campo passou a ser o campo de destino. */
+    private final boolean[] changed;
+    /** Blocos em ordem de linha; no modo esparso, null indica bloco vazio. */
+    private final Chunk[] chunks;
+    /** Nível do topo da pirâmide (um único bloco cobre o campo inteiro). */
+    private final int topLevel;
+    /**
+     * Níveis da pirâmide acima dos blocos: pyramid[i] guarda os blocos de 2^(CHUNK_SHIFT + 1 + i)
+     * células de lado, por espécie e em ordem de linha (vazio no modo off-heap).
+     */
+    private final int[][] pyramid;
+    /** Linhas e colunas de blocos de cada nível de {@link #pyramid}. */
+    private final int[] pyramidRows, pyramidCols;
+    /** Contador de cada bloco (por espécie) já somado em {@link #pyramid}. */
+    private final int[] pyramidFolded;
+    /** Se algum contador de bloco pode ter mudado desde a última soma em {@link #pyramid}. */
+    private boolean pyramidStale;
+    /** Tabelas de somas acumuladas usadas por {@link #countNear} (null se não houver). */
+    private DensityTables densityTables;
+    /** Campos de fluxo seguidos pelos animais deste campo (null se não houver). */
+    private FlowFields flowFields;
+    /** Camadas de fogo e contágio sobre este campo (null se não houver). */
+    private EventLayers eventLayers;
+    /** Topologia da vizinhança imediata. */
+    private Topology topology;
+    /** Máscara de vizinhos da topologia nas linhas pares e ímpares. */
+    private int[] parityMasks;
+    /** Bits da janela 3x3 que caem dentro do campo, por linha e por coluna. */
+    private int[] validRows, validCols;
+    /**
+     * Linha e coluna vizinhas para cada deslocamento: neighbourRows[row * 3 + dr + 1].
+     * No toro já dão a volta; fora do campo repetem a própria linha (ou coluna), que
+     * {@link #validRows} e {@link #validCols} descartam.
+     */
+    private int[] neighbourRows, neighbourCols;
+
+    /**
+     * Bloco de 64x64 células com seus objetos e bitboards.
+     */
+    private static class Chunk {
+        /** Objetos das células, em ordem de linha dentro do bloco. */
+        final Object[] cells = new Object[CHUNK_SIZE * CHUNK_SIZE];
+        /** Bitboard das células ocupadas por qualquer objeto. */
+        final long[] occupied = new long[CHUNK_SIZE];
+        /** Bitboards por espécie, indexados pelo ordinal de {@link Species}. */
+        final long[][] speciesBits = new long[Species.count()][CHUNK_SIZE];
+        /** Número de células ocupadas no bloco. */
+        int population;
+        /** Número de células ocupadas por animais (espécies diferentes de planta). */
+        int animals;
+        /** Número de células ocupadas por cada espécie. */
+        final int[] speciesCount = new int[Species.count()];
+
+        /** @return A camada pedida (ocupação geral ou uma espécie). */
+        long[] layer(int layer) {
+            return layer == OCCUPIED_LAYER ? occupied : speciesBits[layer];
+        }
+
+        /** Esvazia o bloco. */
+        void clear() {
+            Arrays.fill(cells, null);
+            Arrays.fill(occupied, 0L);
+            for (long[] bits : speciesBits) {
+                Arrays.fill(bits, 0L);
+            }
+            Arrays.fill(speciesCount, 0);
+            population = 0;
+            animals = 0;
+        }
+    }
 
     /**
      * Construtor auxiliar.
      * @param depth Número de linhas do campo.
      * @param width Número de colunas do campo.
-     * @param initTerrain Se deve gerar o terreno aleatoriamente.
+     * @param sparse Se os blocos devem ser alocados sob demanda.
+     * @param terrainMap Terreno pré-calculado (null no modo esparso).
+     * @param terrainSeed Semente do terreno.
+     * @param grid Grade fora do heap, ou null.
+     * @param page Página da grade usada pelo campo.
+     * @param source Campo com o qual compartilhar localizações e blocos livres, ou null.
      */
-    private Field(int depth, int width, boolean initTerrain) {
+    private Field(int depth, int width, boolean sparse, Terrain[][] terrainMap, long terrainSeed,
+                  OffHeapGrid grid, int page, Field source) {
         this.depth = depth;
         this.width = width;
-        cells = new Object[depth][width];
-        terrainMap = new Terrain[depth][width];
-        if (initTerrain) {
-            generateTerrain();
+        this.sparse = sparse;
+        this.terrainMap = terrainMap;
+        this.terrainSeed = terrainSeed;
+        this.grid = grid;
+        this.page = page;
+        this.entities = grid != null ? new ArrayList<>() : null;
+
+        chunkRows = (depth + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunkCols = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunks = grid != null ? null : new Chunk[chunkRows * chunkCols];
+        changed = new boolean[chunkRows * chunkCols];
+        Arrays.fill(changed, true);
+        topLevel = CHUNK_SHIFT + 32 - Integer.numberOfLeadingZeros(Math.max(chunkRows, chunkCols) - 1);
+        int levelsAbove = grid != null ? 0 : topLevel - CHUNK_SHIFT;
+        pyramid = new int[levelsAbove][];
+        pyramidRows = new int[levelsAbove];
+        pyramidCols = new int[levelsAbove];
+        for (int i = 0; i < levelsAbove; i++) {
+            pyramidRows[i] = ((chunkRows - 1) >> (i + 1)) + 1;
+            pyramidCols[i] = ((chunkCols - 1) >> (i + 1)) + 1;
+            pyramid[i] = new int[Species.count() * pyramidRows[i] * pyramidCols[i]];
+        }
+        pyramidFolded = new int[levelsAbove > 0 ? Species.count() * chunkRows * chunkCols : 0];
+        if (source != null) {
+            random = source.random;
+            locations = source.locations;
+            chunkPool = source.chunkPool;
+            topology = source.topology;
+            parityMasks = source.parityMasks;
+            validRows = source.validRows;
+            validCols = source.validCols;
+            neighbourRows = source.neighbourRows;
+            neighbourCols = source.neighbourCols;
         } else {
-            // Inicializa com terreno PLAIN por padrão se não for para gerar
-            for (int r = 0; r < depth; r++) {
-                for (int c = 0; c < width; c++) {
-                    terrainMap[r][c] = Terrain.PLAIN;
-                }
+            random = RAND;
+            buildTopology(Topology.BOUNDED);
+            locations = sparse || grid != null ? null : new Location[chunkRows * chunkCols][];
+            chunkPool = sparse ? new ArrayDeque<>() : null;
+        }
+        if (!sparse && grid == null) {
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk();
             }
         }
     }
-    
+
     /**
      * Construtor de cópia (para criar o campo de destino no ciclo act).
+     * O terreno nunca muda depois de gerado, então é compartilhado em vez de copiado.
+     * No modo off-heap o novo campo usa a outra página da grade, que é esvaziada;
+     * por isso só dois campos da mesma grade podem estar em uso ao mesmo tempo.
      * @param sourceField O campo a ser copiado.
      */
     public Field(Field sourceField) {
-        this(sourceField.getDepth(), sourceField.getWidth(), false);
-        // Copia apenas os tipos de terreno
-        for (int r = 0; r < depth; r++) {
-            System.arraycopy(sourceField.terrainMap[r], 0, this.terrainMap[r], 0, width);
+        this(sourceField.depth, sourceField.width, sourceField.sparse,
+             sourceField.terrainMap, sourceField.terrainSeed,
+             sourceField.grid, 1 - sourceField.page, sourceField);
+        if (grid != null) {
+            grid.clearPage(page);
         }
     }
-    
+
+    /**
+     * Construtor de uma janela de linhas de um mundo cujo terreno é calculado pela
+     * semente (o mesmo terreno do modo esparso). Usado pelas faixas da simulação
+     * distribuída ({@link Stripe}), em que cada processo guarda só as suas linhas.
+     * @param depth Número de linhas da janela.
+     * @param width Número de colunas.
+     * @param terrainSeed Semente do terreno do mundo inteiro.
+     * @param firstRow Linha do mundo que corresponde à linha 0 da janela.
+     */
+    public Field(int depth, int width, long terrainSeed, int firstRow) {
+        this(depth, width, false, windowTerrain(depth, width, terrainSeed, firstRow), terrainSeed, null, 0, null);
+    }
+
+    /**
+     * Construtor do modo off-heap: usa a página atual da grade, preservando o
+     * conteúdo (por exemplo, de um arquivo reaberto).
+     * @param grid A grade fora do heap.
+     */
+    public Field(OffHeapGrid grid) {
+        this(grid.getDepth(), grid.getWidth(), false, null, grid.getTerrainSeed(),
+             grid, grid.getCurrentPage(), null);
+    }
+
     /**
      * Construtor principal que também gera o terreno.
      * @param depth Número de linhas do campo.
      * @param width Número de colunas do campo.
      */
     public Field(int depth, int width) {
-        this(depth, width, true);
+        this(depth, width, false);
+    }
+
+    /**
+     * Construtor que permite escolher o modo esparso.
+     * @param depth Número de linhas do campo.
+     * @param width Número de colunas do campo.
+     * @param sparse Se true, os blocos são alocados sob demanda e o terreno é calculado.
+     */
+    public Field(int depth, int width, boolean sparse) {
+        this(depth, width, sparse, sparse ? null : generateTerrain(depth, width), RAND.nextLong(), null, 0, null);
     }
 
     /**
      * Limpa todo o campo (apenas objetos), mantendo o terreno.
+     * Só os blocos ocupados são percorridos, e nada é alocado: o simulador usa este
+     * método para reaproveitar o campo do passo anterior como campo de destino.
      */
     public void clear() {
-        for (int row = 0; row < depth; row++) {
-            for (int col = 0; col < width; col++) {
-                cells[row][col] = null;
+        Arrays.fill(changed, true);
+        if (grid != null) {
+            grid.clearPage(page);
+            entities.clear();
+            freeEntityCount = 0;
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            clearChunk(i);
+        }
+    }
+
+    /**
+     * Marca os blocos ativos: os que têm animais e os seus 8 vizinhos. Nenhum animal
+     * alcança, em um passo, uma célula fora dos blocos ativos. No toro os vizinhos dão
+     * a volta pelas bordas, como os passos dos animais. No modo off-heap todos os
+     * blocos são considerados ativos.
+     * @param active Vetor de saída, com um elemento por bloco (linha * colunas + coluna).
+     */
+    public void findActiveChunks(boolean[] active) {
+        if (grid != null) {
+            Arrays.fill(active, true);
+            return;
+        }
+        Arrays.fill(active, false);
+        boolean wraps = topology.wraps();
+        for (int chunkRow = 0; chunkRow < chunkRows; chunkRow++) {
+            for (int chunkCol = 0; chunkCol < chunkCols; chunkCol++) {
+                Chunk chunk = chunks[chunkRow * chunkCols + chunkCol];
+                if (chunk == null || chunk.animals == 0) continue;
+
+                for (int dr = -1; dr <= 1; dr++) {
+                    int r = chunkRow + dr;
+                    if (wraps) r = (r + chunkRows) % chunkRows;
+                    else if (r < 0 || r >= chunkRows) continue;
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int c = chunkCol + dc;
+                        if (wraps) c = (c + chunkCols) % chunkCols;
+                        else if (c < 0 || c >= chunkCols) continue;
+                        active[r * chunkCols + c] = true;
+                    }
+                }
             }
         }
     }
 
+    /**
+     * Prepara este campo (o do passo anterior) para ser o destino do próximo passo.
+     * Os blocos ativos são esvaziados. Os inativos são trocados com os do campo atual:
+     * o conteúdo (plantas) passa para este campo sem ser percorrido, e o campo atual
+     * fica com o bloco antigo. As consultas por raio durante o passo ({@link #countNear},
+     * {@link #nearestOf}) podem chegar a ele, então, no passo em que um bloco para, o
+     * bloco antigo recebe uma cópia do atual; dali em diante os dois são iguais e a
+     * troca não custa nada.
+     * @param current O campo atual, que compartilha o terreno com este.
+     * @param active Os blocos ativos no campo atual (ver {@link #findActiveChunks}).
+     */
+    public void prepareNext(Field current, boolean[] active) {
+        if (grid != null) {
+            clear();
+            return;
+        }
+        pyramidStale = true;
+        current.pyramidStale = true;
+        for (int i = 0; i < chunks.length; i++) {
+            if (active[i]) {
+                changed[i] = true;
+                clearChunk(i);
+            } else {
+                changed[i] = false;
+                Chunk kept = current.chunks[i];
+                current.chunks[i] = chunks[i];
+                chunks[i] = kept;
+                // O bloco antigo ainda tem o conteúdo (e os animais) de antes de parar
+                if (current.changed[i]) current.copyChunk(i, kept);
+            }
+        }
+    }
+
+    /**
+     * Esvazia os blocos que acordaram durante o passo (ativos agora, mas não no início).
+     * Eles não têm animais; o conteúdo congelado é descartado para ser gerado de novo,
+     * o que equivale a avançar de uma vez todos os passos em que ficaram parados.
+     * @param wasActive Os blocos ativos no início do passo.
+     * @param isActive Os blocos ativos neste campo.
+     */
+    public void wakeChunks(boolean[] wasActive, boolean[] isActive) {
+        if (grid != null) {
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (isActive[i] && !wasActive[i]) {
+                changed[i] = true;
+                clearChunk(i);
+            }
+        }
+    }
+
+    /**
+     * @param chunkRow Linha do bloco.
+     * @param chunkCol Coluna do bloco.
+     * @return true se o bloco pode ter mudado desde o passo anterior (deve ser redesenhado).
+     */
+    public boolean isChunkChanged(int chunkRow, int chunkCol) {
+        return changed[chunkRow * chunkCols + chunkCol];
+    }
+
     /**
      * Limpa apenas uma célula específica.
      * @param location Posição a limpar.
      */
     public void clear(Location location) {
-        cells[location.getRow()][location.getCol()] = null;
+        place(null, location);
+    }
+
+    /**
+     * Limpa uma célula só se ela ainda guardar o objeto dado, para que quem sai de
+     * uma célula não apague outro animal que já a tenha tomado.
+     * @param location Posição a limpar.
+     * @param occupant O objeto que deve estar na célula.
+     */
+    public void clear(Location location, Object occupant) {
+        if (getObjectAt(location) == occupant) {
+            place(null, location);
+        }
+    }
+
+    /**
+     * Reivindica uma célula para um animal: o animal é colocado só se a célula não
+     * tiver um animal vivo (uma planta ou um animal morto são substituídos).
+     * A troca é feita com compare-and-set na célula e os bitboards e contadores do
+     * bloco são atualizados atomicamente, então várias threads podem reivindicar
+     * células deste campo ao mesmo tempo sem travas. No modo off-heap a reivindicação
+     * é serializada pela grade.
+     * @param animal O animal (não nulo).
+     * @param location A célula desejada.
+     * @return true se a célula foi tomada; false se outro animal chegou antes.
+     */
+    public boolean claim(Object animal, Location location) {
+        int row = location.getRow();
+        int col = location.getCol();
+        if (grid != null) {
+            synchronized (grid) {
+                if (isLiveAnimal(getObjectAt(location))) return false;
+                placeOffHeap(animal, row, col);
+                return true;
+            }
+        }
+        int index = chunkIndex(row, col);
+        pyramidStale = true;
+        Chunk chunk = (Chunk) CHUNKS.getVolatile(chunks, index);
+        if (chunk == null) {
+            // Bloco esparso ainda não alocado: quem perder a corrida usa o do vencedor
+            Chunk fresh = new Chunk();
+            chunk = (Chunk) CHUNKS.compareAndExchange(chunks, index, null, fresh);
+            if (chunk == null) chunk = fresh;
+        }
+        changed[index] = true;
+
+        int r = row & CHUNK_MASK;
+        long bit = 1L << (col & CHUNK_MASK);
+        int cell = (r << CHUNK_SHIFT) | (col & CHUNK_MASK);
+
+        Object previous;
+        do {
+            previous = CELLS.getVolatile(chunk.cells, cell);
+            if (isLiveAnimal(previous)) return false;
+        } while (!CELLS.compareAndSet(chunk.cells, cell, previous, animal));
+
+        Species old = Species.of(previous);
+        if (old != null) {
+            WORDS.getAndBitwiseAnd(chunk.speciesBits[old.ordinal()], r, ~bit);
+            COUNTS.getAndAdd(chunk.speciesCount, old.ordinal(), -1);
+            if (old != Species.PLANT) ANIMALS.getAndAdd(chunk, -1);
+        }
+        Species species = Species.of(animal);
+        WORDS.getAndBitwiseOr(chunk.speciesBits[species.ordinal()], r, bit);
+        COUNTS.getAndAdd(chunk.speciesCount, species.ordinal(), 1);
+        if (species != Species.PLANT) ANIMALS.getAndAdd(chunk, 1);
+        if (previous == null) {
+            WORDS.getAndBitwiseOr(chunk.occupied, r, bit);
+            POPULATION.getAndAdd(chunk, 1);
+        }
+        return true;
+    }
+
+    /** @return true se o objeto é um animal vivo (que não pode ser substituído). */
+    private static boolean isLiveAnimal(Object obj) {
+        return obj instanceof Animal animal && animal.isAlive();
     }
 
     /**
@@ -88,7 +515,54 @@ public class Field {
      * @param location Posição alvo.
      */
     public void place(Object obj, Location location) {
-        cells[location.getRow()][location.getCol()] = obj;
+        int row = location.getRow();
+        int col = location.getCol();
+        if (grid != null) {
+            placeOffHeap(obj, row, col);
+            return;
+        }
+        int index = chunkIndex(row, col);
+        changed[index] = true;
+        pyramidStale = true;
+        Chunk chunk = chunks[index];
+        if (chunk == null) {
+            if (obj == null) {
+                return;
+            }
+            chunk = chunkPool != null && !chunkPool.isEmpty() ? chunkPool.pop() : new Chunk();
+            chunks[index] = chunk;
+        }
+
+        int r = row & CHUNK_MASK;
+        long bit = 1L << (col & CHUNK_MASK);
+        int cell = (r << CHUNK_SHIFT) | (col & CHUNK_MASK);
+
+        Object previous = chunk.cells[cell];
+        Species old = Species.of(previous);
+        if (old != null) {
+            chunk.speciesBits[old.ordinal()][r] &= ~bit;
+            chunk.speciesCount[old.ordinal()]--;
+            if (old != Species.PLANT) chunk.animals--;
+        }
+        chunk.cells[cell] = obj;
+
+        Species species = Species.of(obj);
+        if (species != null) {
+            chunk.speciesBits[species.ordinal()][r] |= bit;
+            chunk.speciesCount[species.ordinal()]++;
+            if (species != Species.PLANT) chunk.animals++;
+        }
+        if (obj != null) {
+            chunk.occupied[r] |= bit;
+            if (previous == null) chunk.population++;
+        } else if (previous != null) {
+            chunk.occupied[r] &= ~bit;
+            chunk.population--;
+            if (sparse && chunk.population == 0) {
+                chunks[index] = null; // libera o bloco vazio (já limpo) para reuso
+                chunkPool.push(chunk);
+            }
+        }
     }
 
     /**
@@ -97,7 +571,103 @@ public class Field {
      * @return Objeto contido na célula ou null se vazia.
      */
     public Object getObjectAt(Location location) {
-        return cells[location.getRow()][location.getCol()];
+        int row = location.getRow();
+        int col = location.getCol();
+        if (grid != null) {
+            int id = grid.getOccupant(page, row, col);
+            if (id == 0) return null;
+            if (id <= PLANTS.length) return PLANTS[id - 1];
+            int index = id - PLANTS.length - 1;
+            // Ids de um arquivo reaberto não têm animal correspondente no heap
+            return index < entities.size() ? entities.get(index) : null;
+        }
+        Chunk chunk = chunks[chunkIndex(row, col)];
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.cells[((row & CHUNK_MASK) << CHUNK_SHIFT) | (col & CHUNK_MASK)];
+    }
+
+    /**
+     * Verifica se uma célula está ocupada, consultando só o bitboard de ocupação.
+     * Serve para varreduras que não querem criar uma {@link Location} por célula.
+     * @param row A linha.
+     * @param col A coluna.
+     * @return true se houver algum objeto na célula.
+     */
+    public boolean isOccupied(int row, int col) {
+        return bitAt(OCCUPIED_LAYER, row, col) != 0;
+    }
+
+    /**
+     * Retorna as células livres de uma linha de um bloco, como uma palavra de 64 bits
+     * (bit i = coluna {@code chunkCol * 64 + i}). Colunas além da largura do campo não
+     * aparecem. Usado pelo crescimento de plantas em bloco ({@link PlantGrowth}).
+     * @param row A linha do campo.
+     * @param chunkCol A coluna do bloco.
+     * @return A máscara de células livres (0 se o bloco não estiver alocado).
+     */
+    public long freeCellsInRow(int row, int chunkCol) {
+        if (grid != null) {
+            long free = 0;
+            int colStart = chunkCol << CHUNK_SHIFT;
+            for (int i = 0; i < CHUNK_SIZE && colStart + i < width; i++) {
+                if (!isOccupied(row, colStart + i)) free |= 1L << i;
+            }
+            return free;
+        }
+        Chunk chunk = chunks[(row >> CHUNK_SHIFT) * chunkCols + chunkCol];
+        if (chunk == null) return 0;
+        int validCols = Math.min(CHUNK_SIZE, width - (chunkCol << CHUNK_SHIFT));
+        long valid = validCols == CHUNK_SIZE ? -1L : (1L << validCols) - 1;
+        return ~chunk.occupied[row & CHUNK_MASK] & valid;
+    }
+
+    /**
+     * Retorna as células de uma linha de um bloco ocupadas por uma espécie, como uma
+     * palavra de 64 bits (bit i = coluna {@code chunkCol * 64 + i}).
+     * @param species A espécie.
+     * @param row A linha do campo.
+     * @param chunkCol A coluna do bloco.
+     * @return A máscara de células da espécie (0 se o bloco não estiver alocado).
+     */
+    public long speciesCellsInRow(Species species, int row, int chunkCol) {
+        return wordAt(species.ordinal(), row, chunkCol << CHUNK_SHIFT);
+    }
+
+    /**
+     * Coloca o mesmo objeto em várias células vazias de uma linha de um bloco de uma
+     * vez, atualizando bitboards e contadores com operações sobre a palavra inteira.
+     * @param obj O objeto (ex: uma {@link Plant}).
+     * @param row A linha do campo.
+     * @param chunkCol A coluna do bloco.
+     * @param mask As células (bits de {@link #freeCellsInRow}); todas devem estar vazias.
+     */
+    public void placeInRow(Object obj, int row, int chunkCol, long mask) {
+        if (mask == 0) return;
+        int colStart = chunkCol << CHUNK_SHIFT;
+        if (grid != null) {
+            for (long m = mask; m != 0; m &= m - 1) {
+                place(obj, locationAt(row, colStart + Long.numberOfTrailingZeros(m)));
+            }
+            return;
+        }
+        int index = (row >> CHUNK_SHIFT) * chunkCols + chunkCol;
+        Chunk chunk = chunks[index];
+        changed[index] = true;
+        pyramidStale = true;
+        int r = row & CHUNK_MASK;
+        int base = r << CHUNK_SHIFT;
+        for (long m = mask; m != 0; m &= m - 1) {
+            chunk.cells[base + Long.numberOfTrailingZeros(m)] = obj;
+        }
+        Species species = Species.of(obj);
+        int added = Long.bitCount(mask);
+        chunk.occupied[r] |= mask;
+        chunk.speciesBits[species.ordinal()][r] |= mask;
+        chunk.speciesCount[species.ordinal()] += added;
+        if (species != Species.PLANT) chunk.animals += added;
+        chunk.population += added;
     }
 
     /**
@@ -106,7 +676,23 @@ public class Field {
      * @return Tipo de terreno da célula.
      */
     public Terrain getTerrainAt(Location location) {
-        return terrainMap[location.getRow()][location.getCol()];
+        return getTerrainAt(location.getRow(), location.getCol());
+    }
+
+    /**
+     * Obtém o tipo de terreno de uma célula sem precisar de uma {@link Location}.
+     * @param row A linha.
+     * @param col A coluna.
+     * @return Tipo de terreno da célula.
+     */
+    public Terrain getTerrainAt(int row, int col) {
+        if (grid != null) {
+            return grid.getTerrain(row, col);
+        }
+        if (terrainMap != null) {
+            return terrainMap[row][col];
+        }
+        return proceduralTerrain(terrainSeed, row, col);
     }
 
     /** @return Profundidade (linhas) do campo. */
@@ -115,21 +701,121 @@ public class Field {
     /** @return Largura (colunas) do campo. */
     public int getWidth() { return width; }
 
+    /** @return true se o campo aloca blocos sob demanda. */
+    public boolean isSparse() { return sparse; }
+
+    /** @return true se o campo guarda a grade fora do heap. */
+    public boolean isOffHeap() { return grid != null; }
+
+    /**
+     * Marca este campo como o atual na grade fora do heap, para que um arquivo
+     * reaberto retome deste estado. Nos outros modos não faz nada.
+     */
+    public void makeCurrent() {
+        if (grid != null) {
+            grid.setCurrentPage(page);
+        }
+    }
+
+    /**
+     * Identifica o terreno do campo. Campos criados pelo construtor de cópia
+     * têm o mesmo identificador, pois compartilham o terreno.
+     * @return O identificador do terreno.
+     */
+    public long getTerrainId() { return terrainSeed; }
+
+    /** @return Número de linhas de blocos. */
+    public int getChunkRows() { return chunkRows; }
+
+    /** @return Número de colunas de blocos. */
+    public int getChunkCols() { return chunkCols; }
+
+    /**
+     * Indica se um bloco está alocado. No modo denso todos estão; no modo esparso
+     * só os que têm algum objeto, e os demais podem ser pulados por quem percorre o campo.
+     * @param chunkRow Linha do bloco.
+     * @param chunkCol Coluna do bloco.
+     * @return true se o bloco existe.
+     */
+    public boolean isChunkAllocated(int chunkRow, int chunkCol) {
+        if (grid != null) {
+            return true;
+        }
+        return chunks[chunkRow * chunkCols + chunkCol] != null;
+    }
+
     /**
      * Gera tipos de terreno aleatórios para cada célula do campo.
      */
-    private void generateTerrain() {
+    private static Terrain[][] generateTerrain(int depth, int width) {
+        Terrain[][] terrainMap = new Terrain[depth][width];
         for (int row = 0; row < depth; row++) {
             for (int col = 0; col < width; col++) {
-                double r = RAND.nextDouble();
-                if (r < 0.05) terrainMap[row][col] = Terrain.MOUNTAIN;
-                else if (r < 0.10) terrainMap[row][col] = Terrain.RIVER;
-                else if (r < 0.20) terrainMap[row][col] = Terrain.DENSE_VEGETATION;
-                else if (r < 0.25) terrainMap[row][col] = Terrain.CAVE;
-                else if (r < 0.30) terrainMap[row][col] = Terrain.BURROW;
-                else terrainMap[row][col] = Terrain.PLAIN;
+                terrainMap[row][col] = terrainFor(RAND.nextDouble());
             }
         }
+        return terrainMap;
+    }
+
+    /**
+     * Calcula o terreno de uma janela de linhas de um mundo com terreno procedural.
+     */
+    private static Terrain[][] windowTerrain(int depth, int width, long seed, int firstRow) {
+        Terrain[][] terrainMap = new Terrain[depth][width];
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                terrainMap[row][col] = proceduralTerrain(seed, firstRow + row, col);
+            }
+        }
+        return terrainMap;
+    }
+
+    /**
+     * Calcula o terreno de uma célula a partir da semente (modo esparso).
+     * Usa o misturador do SplitMix64 sobre (semente, linha, coluna).
+     */
+    private static Terrain proceduralTerrain(long seed, int row, int col) {
+        long h = seed + (((long) row << 32) | (col & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return terrainFor((h >>> 11) * 0x1.0p-53);
+    }
+
+    /** Converte um valor uniforme em [0, 1) no tipo de terreno. */
+    static Terrain terrainFor(double r) {
+        if (r < 0.05) return Terrain.MOUNTAIN;
+        else if (r < 0.10) return Terrain.RIVER;
+        else if (r < 0.20) return Terrain.DENSE_VEGETATION;
+        else if (r < 0.25) return Terrain.CAVE;
+        else if (r < 0.30) return Terrain.BURROW;
+        else return Terrain.PLAIN;
+    }
+
+    /**
+     * Retorna a localização de uma célula. No modo denso a mesma instância é
+     * devolvida para a mesma célula, sem alocar depois da primeira consulta.
+     * @param row A linha.
+     * @param col A coluna.
+     * @return A localização (linha, coluna).
+     */
+    public Location locationAt(int row, int col) {
+        if (locations == null) {
+            return new Location(row, col);
+        }
+        int index = chunkIndex(row, col);
+        Location[] chunkLocations = locations[index];
+        if (chunkLocations == null) {
+            chunkLocations = new Location[CHUNK_SIZE * CHUNK_SIZE];
+            locations[index] = chunkLocations;
+        }
+        int cell = ((row & CHUNK_MASK) << CHUNK_SHIFT) | (col & CHUNK_MASK);
+        Location location = chunkLocations[cell];
+        if (location == null) {
+            location = new Location(row, col);
+            chunkLocations[cell] = location;
+        }
+        return location;
     }
 
     /**
@@ -138,40 +824,24 @@ public class Field {
      * @return Uma localização adjacente livre ou null se não houver.
      */
     public Location freeAdjacentLocation(Location location) {
-        List<Location> adjacent = adjacentLocations(location);
-        for (Location loc : adjacent) {
-            if (getObjectAt(loc) == null) {
-                return loc;
-            }
+        int row = location.getRow();
+        int col = location.getCol();
+        int free = validNeighbours(row, col) & ~neighbours(OCCUPIED_LAYER, row, col);
+        if (free == 0) {
+            return null;
         }
-        return null;
+        return neighbourAt(row, col, randomBit(free));
     }
 
     /**
-     * Lista todas as localizações adjacentes (8 vizinhos), embaralhada.
+     * Lista todas as localizações adjacentes (os vizinhos da {@link Topology}), embaralhada.
      * @param location Posição de referência.
      * @return Lista embaralhada de vizinhos válidos.
      */
     public List<Location> adjacentLocations(Location location) {
-        List<Location> locations = new ArrayList<>();
         int row = location.getRow();
         int col = location.getCol();
-        
-        for (int r = -1; r <= 1; r++) {
-            for (int c = -1; c <= 1; c++) {
-                if (r == 0 && c == 0) continue; // Pula a própria localização
-                
-                int newRow = row + r;
-                int newCol = col + c;
-                
-                // Verifica se está dentro dos limites do campo
-                if (newRow >= 0 && newRow < depth && newCol >= 0 && newCol < width) {
-                    locations.add(new Location(newRow, newCol));
-                }
-            }
-        }
-        Collections.shuffle(locations);
-        return locations;
+        return toShuffledLocations(row, col, validNeighbours(row, col));
     }
 
     /**
@@ -180,12 +850,747 @@ public class Field {
      * @return Lista de posições vagas ao redor da posição fornecida.
      */
     public List<Location> getFreeAdjacent(Location location) {
-        List<Location> free = new ArrayList<>();
-        for (Location loc : adjacentLocations(location)) {
-            if (getObjectAt(loc) == null) {
-                free.add(loc);
+        int row = location.getRow();
+        int col = location.getCol();
+        return toShuffledLocations(row, col, validNeighbours(row, col) & ~neighbours(OCCUPIED_LAYER, row, col));
+    }
+
+    /**
+     * Retorna as localizações adjacentes ocupadas por alguma das espécies da máscara.
+     * Usado na busca por comida com a máscara de {@link Diet#getPreyMask(Species)}.
+     * @param location Posição de referência.
+     * @param speciesMask Máscara de bits das espécies procuradas.
+     * @return Lista embaralhada das posições vizinhas ocupadas por essas espécies.
+     */
+    public List<Location> adjacentLocationsOf(Location location, long speciesMask) {
+        return toShuffledLocations(location.getRow(), location.getCol(), adjacentMaskOf(location, speciesMask));
+    }
+
+    /**
+     * Janela 3x3 das células vizinhas livres, sem alocar uma lista.
+     * Bit = (dr+1)*3 + (dc+1); use {@link #randomBit(int)} e
+     * {@link #neighbourLocation(Location, int)} para percorrê-la em ordem aleatória.
+     * @param location Posição de referência.
+     * @return A máscara de 9 bits dos vizinhos livres.
+     */
+    public int freeAdjacentMask(Location location) {
+        int row = location.getRow();
+        int col = location.getCol();
+        return validNeighbours(row, col) & ~neighbours(OCCUPIED_LAYER, row, col);
+    }
+
+    /**
+     * Janela 3x3 das células vizinhas ocupadas por alguma das espécies da máscara,
+     * sem alocar uma lista (versão de {@link #adjacentLocationsOf(Location, long)}).
+     * @param location Posição de referência.
+     * @param speciesMask Máscara de bits das espécies procuradas.
+     * @return A máscara de 9 bits dos vizinhos encontrados.
+     */
+    public int adjacentMaskOf(Location location, long speciesMask) {
+        int row = location.getRow();
+        int col = location.getCol();
+        int found = 0;
+        for (long m = speciesMask; m != 0; m &= m - 1) {
+            found |= neighbours(Long.numberOfTrailingZeros(m), row, col);
+        }
+        return found;
+    }
+
+    /**
+     * Procura a célula mais próxima (distância de Chebyshev) ocupada por uma das
+     * espécies da máscara, até um raio, sem contar a própria célula. Os bitboards
+     * servem de índice espacial: cada linha é lida em palavras de 64 células, a partir
+     * do centro para cada lado, e as linhas são visitadas em ordem de distância, parando
+     * assim que nenhuma linha restante pode ter uma célula mais próxima. Com linha de
+     * visão, só a célula mais próxima de cada lado em cada linha é testada contra as
+     * montanhas no caminho. No toro a busca dá a volta nas bordas, até metade do campo
+     * para cada lado (depois disso o caminho mais curto é pelo outro lado).
+     * @param location O centro da busca.
+     * @param speciesMask Máscara de espécies procuradas (bits de {@link Species#mask()}).
+     * @param radius O raio máximo, em células.
+     * @param lineOfSight Se {@link Terrain#MOUNTAIN} bloqueia a visão.
+     * @return A célula encontrada, ou null se não houver nenhuma visível no raio.
+     */
+    public Location nearestOf(Location location, long speciesMask, int radius, boolean lineOfSight) {
+        int row = location.getRow();
+        int col = location.getCol();
+        boolean wraps = topology.wraps();
+        // No toro as colunas passam das bordas (negativas ou além da largura) e são trazidas de volta na leitura
+        int colLo = wraps ? col - Math.min(radius, width / 2) : Math.max(0, col - radius);
+        int colHi = wraps ? col + Math.min(radius, width / 2) : Math.min(width - 1, col + radius);
+        int best = radius + 1;
+        int bestRow = -1, bestCol = -1;
+
+        // Linhas na ordem 0, -1, +1, -2, +2...: uma linha a distância d não tem nada mais perto que d
+        for (int d = 0; d < best && (!wraps || 2 * d <= depth); d++) {
+            for (int side = -1; side <= 1 && d < best; side += 2) {
+                if (d == 0 && side > 0) break;
+                int r = row + side * d;
+                if (wraps) r = Math.floorMod(r, depth);
+                else if (r < 0 || r >= depth) continue;
+                int left = scanLeft(speciesMask, r, d == 0 ? col - 1 : col, colLo);
+                if (left != NO_COLUMN && Math.max(d, col - left) < best
+                        && (!lineOfSight || isVisible(row, col, row + side * d, left))) {
+                    best = Math.max(d, col - left);
+                    bestRow = r;
+                    bestCol = left;
+                }
+                int right = scanRight(speciesMask, r, d == 0 ? col + 1 : col, colHi);
+                if (right != NO_COLUMN && Math.max(d, right - col) < best
+                        && (!lineOfSight || isVisible(row, col, row + side * d, right))) {
+                    best = Math.max(d, right - col);
+                    bestRow = r;
+                    bestCol = right;
+                }
+            }
+        }
+        return bestRow < 0 ? null : locationAt(bestRow, Math.floorMod(bestCol, width));
+    }
+
+    /**
+     * Converte um bit da janela 3x3 na localização vizinha correspondente.
+     * @param location Posição de referência (centro da janela).
+     * @param bit O bit da janela (0 a 8).
+     * @return A localização vizinha.
+     */
+    public Location neighbourLocation(Location location, int bit) {
+        return neighbourAt(location.getRow(), location.getCol(), bit);
+    }
+
+    /**
+     * @param location Posição de referência (centro da janela).
+     * @return Os bits da janela 3x3 que são vizinhos da posição na topologia do campo.
+     */
+    public int neighbourMask(Location location) {
+        return validNeighbours(location.getRow(), location.getCol());
+    }
+
+    /**
+     * @return O gerador dos sorteios deste campo (o do {@link Randomizer}, se nenhum foi definido).
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Define o gerador dos sorteios deste campo. Os campos criados a partir deste
+     * (ver {@link #Field(Field)}) passam a usar o mesmo gerador.
+     * @param random O gerador.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Sorteia um dos bits ligados de uma janela 3x3. Retirar da máscara cada bit
+     * sorteado percorre a janela em ordem aleatória, como uma lista embaralhada.
+     * @param mask A máscara (não pode ser 0).
+     * @return O índice do bit sorteado.
+     */
+    public int randomBit(int mask) {
+        return nthSetBit(mask, random.nextInt(Integer.bitCount(mask)));
+    }
+
+    /**
+     * Conta quantas células estão ocupadas por uma espécie.
+     * @param species A espécie a contar.
+     * @return O número de células ocupadas pela espécie.
+     */
+    public int getCount(Species species) {
+        if (grid != null) {
+            return bitCount(species.ordinal());
+        }
+        // Soma dos contadores dos blocos: o custo depende do número de blocos, não da área
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) total += chunk.speciesCount[species.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Conta os ocupantes de cada espécie em um retângulo de células, para resumos de
+     * região. Usa a pirâmide de densidade (ver {@link #countRegion}).
+     * @param row A primeira linha.
+     * @param col A primeira coluna.
+     * @param rows O número de linhas.
+     * @param cols O número de colunas.
+     * @param counts Vetor indexado pelo ordinal de {@link Species}, que recebe as somas.
+     */
+    public void countBlock(int row, int col, int rows, int cols, int[] counts) {
+        for (int id = 0; id < counts.length; id++) {
+            counts[id] = countRegion(Species.byId(id), row, col, rows, cols);
+        }
+    }
+
+    /**
+     * Conta os ocupantes de uma espécie em um retângulo de células. A busca desce a
+     * pirâmide a partir do topo: blocos inteiramente dentro do retângulo somam o seu
+     * contador, e só os blocos cortados pela borda descem de nível, até o nível de
+     * um bloco (64x64), onde as linhas cortadas são contadas nos bitboards. O custo
+     * é O(log n) níveis mais as bordas do retângulo, e não a sua área.
+     * @param species A espécie.
+     * @param row A primeira linha.
+     * @param col A primeira coluna.
+     * @param rows O número de linhas.
+     * @param cols O número de colunas.
+     * @return O número de células do retângulo ocupadas pela espécie.
+     */
+    public int countRegion(Species species, int row, int col, int rows, int cols) {
+        int rowEnd = Math.min(depth, row + rows);
+        int colEnd = Math.min(width, col + cols);
+        row = Math.max(0, row);
+        col = Math.max(0, col);
+        if (row >= rowEnd || col >= colEnd) return 0;
+        if (grid != null) {
+            return countWords(species.ordinal(), row, col, rowEnd, colEnd);
+        }
+        return regionCount(species.ordinal(), topLevel, 0, 0, row, col, rowEnd, colEnd);
+    }
+
+    /**
+     * Conta uma espécie no quadrado de raio dado em torno de uma célula (a própria
+     * célula incluída). Se as tabelas de somas acumuladas deste campo acompanham a
+     * espécie (ver {@link #setDensityTables}), a contagem é O(1); senão, vem da
+     * pirâmide de densidade ({@link #countRegion}). Feita para ser chamada pelos
+     * animais durante {@code act}, sobre o campo atual: as tabelas dão as contagens do
+     * início do passo, com as presas já comidas nele; a pirâmide é somada de novo
+     * quando o campo muda e acompanha o passo.
+     * @param species A espécie.
+     * @param location O centro.
+     * @param radius O raio, em células (1 = a vizinhança 3x3).
+     * @return O número de células do quadrado ocupadas pela espécie.
+     */
+    public int countNear(Species species, Location location, int radius) {
+        int row = location.getRow();
+        int col = location.getCol();
+        DensityTables tables = densityTables;
+        if (tables != null && tables.covers(this, species)) {
+            return tables.countInRadius(species, row, col, radius);
+        }
+        return countRegion(species, row - radius, col - radius, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /**
+     * Associa a este campo tabelas de somas acumuladas, usadas por {@link #countNear}
+     * enquanto tiverem sido construídas a partir deste campo.
+     * @param tables As tabelas, ou null para usar só a pirâmide.
+     */
+    public void setDensityTables(DensityTables tables) {
+        this.densityTables = tables;
+    }
+
+    /**
+     * Associa a este campo os campos de fluxo que os animais seguem rumo à comida
+     * (ver {@link Animal#approachPrey(Field)}).
+     * @param flowFields Os campos de fluxo, ou null para nenhum.
+     */
+    public void setFlowFields(FlowFields flowFields) {
+        this.flowFields = flowFields;
+    }
+
+    /** @return Os campos de fluxo deste campo, ou null. */
+    public FlowFields getFlowFields() {
+        return flowFields;
+    }
+
+    /**
+     * Associa a este campo as camadas de eventos (fogo e contágio), para consultas
+     * como {@link EventLayers#isBurning(int, int)}.
+     * @param eventLayers As camadas, ou null para nenhuma.
+     */
+    public void setEventLayers(EventLayers eventLayers) {
+        this.eventLayers = eventLayers;
+    }
+
+    /** @return As camadas de eventos deste campo, ou null. */
+    public EventLayers getEventLayers() {
+        return eventLayers;
+    }
+
+    /**
+     * Escolhe a topologia da vizinhança imediata. As tabelas de vizinhos são
+     * calculadas aqui, uma vez; as cópias feitas depois a partir deste campo
+     * (ver {@link #Field(Field)}) herdam a topologia.
+     * @param topology A topologia.
+     */
+    public void setTopology(Topology topology) {
+        if (topology != this.topology) {
+            buildTopology(topology);
+        }
+    }
+
+    /** @return A topologia da vizinhança imediata. */
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Pré-calcula as tabelas de vizinhança de uma topologia: com elas, montar a
+     * janela 3x3 ou achar um vizinho são só leituras de tabela, sem testes de borda
+     * nem restos de divisão no toro.
+     */
+    private void buildTopology(Topology topology) {
+        this.topology = topology;
+        int center = ~(1 << CENTER_BIT);
+        parityMasks = new int[] { topology.getNeighbourMask(0) & center, topology.getNeighbourMask(1) & center };
+        boolean wraps = topology.wraps();
+        validRows = new int[depth];
+        neighbourRows = new int[depth * 3];
+        for (int row = 0; row < depth; row++) {
+            for (int d = 0; d < 3; d++) {
+                int r = row + d - 1;
+                boolean inside = r >= 0 && r < depth;
+                if (inside || wraps) validRows[row] |= 7 << (d * 3);
+                neighbourRows[row * 3 + d] = inside ? r : wraps ? (r + depth) % depth : row;
+            }
+        }
+        validCols = new int[width];
+        neighbourCols = new int[width * 3];
+        for (int col = 0; col < width; col++) {
+            for (int d = 0; d < 3; d++) {
+                int c = col + d - 1;
+                boolean inside = c >= 0 && c < width;
+                if (inside || wraps) validCols[col] |= 0b001001001 << d;
+                neighbourCols[col * 3 + d] = inside ? c : wraps ? (c + width) % width : col;
+            }
+        }
+    }
+
+    /**
+     * @return O número de níveis da pirâmide de densidade: o nível L tem blocos de
+     *         2^L x 2^L células (o nível 0 são as células) e o último cobre o campo inteiro.
+     */
+    public int getPyramidLevels() {
+        return topLevel + 1;
+    }
+
+    /**
+     * Conta uma espécie em um bloco alinhado da pirâmide de densidade. Níveis a
+     * partir do bloco (64x64) são um contador; os menores somam até 32 palavras dos
+     * bitboards.
+     * @param species A espécie.
+     * @param level O nível (lado do bloco = 2^level células).
+     * @param blockRow A linha do bloco no nível (linha da célula >> level).
+     * @param blockCol A coluna do bloco no nível (coluna da célula >> level).
+     * @return O número de células do bloco ocupadas pela espécie.
+     */
+    public int getBlockCount(Species species, int level, int blockRow, int blockCol) {
+        return blockCount(species.ordinal(), level, blockRow, blockCol);
+    }
+
+    /**
+     * Conta todas as espécies em um bloco alinhado da pirâmide de densidade (ex: um
+     * ladrilho da visão afastada ou de um mapa de calor).
+     * @param level O nível (lado do bloco = 2^level células).
+     * @param blockRow A linha do bloco no nível.
+     * @param blockCol A coluna do bloco no nível.
+     * @param counts Vetor indexado pelo ordinal de {@link Species}, que recebe as contagens.
+     */
+    public void getBlockCounts(int level, int blockRow, int blockCol, int[] counts) {
+        for (int id = 0; id < counts.length; id++) {
+            counts[id] = blockCount(id, level, blockRow, blockCol);
+        }
+    }
+
+    /**
+     * Retorna a espécie que ocupa uma célula, consultando os bitboards.
+     * Funciona mesmo quando o objeto não está disponível (grade off-heap reaberta).
+     * @param location Posição alvo.
+     * @return A espécie do ocupante, ou null se a célula estiver vazia.
+     */
+    public Species getSpeciesAt(Location location) {
+        for (int layer = 0; layer < Species.count(); layer++) {
+            if (bitAt(layer, location.getRow(), location.getCol()) != 0) {
+                return Species.byId(layer);
+            }
+        }
+        return null;
+    }
+
+    /** @return O número de células ocupadas por qualquer objeto. */
+    public int getOccupiedCount() {
+        if (grid != null) {
+            return bitCount(OCCUPIED_LAYER);
+        }
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) total += chunk.population;
+        }
+        return total;
+    }
+
+    // Métodos auxiliares dos blocos e bitboards
+
+    /**
+     * Posiciona um objeto na grade fora do heap: plantas viram ids fixos e animais
+     * são registrados na tabela do campo.
+     */
+    private void placeOffHeap(Object obj, int row, int col) {
+        long chunk = chunkIndex(row, col);
+        int r = row & CHUNK_MASK;
+        long bit = 1L << (col & CHUNK_MASK);
+
+        // Desliga o bit do ocupante anterior, qualquer que seja a espécie
+        for (int layer = 0; layer < Species.count(); layer++) {
+            long word = grid.getWord(page, layer, chunk, r);
+            if ((word & bit) != 0) {
+                grid.setWord(page, layer, chunk, r, word & ~bit);
+            }
+        }
+
+        // A posição do animal que estava na célula fica livre: cada célula tem a sua
+        int previous = grid.getOccupant(page, row, col);
+        if (previous > PLANTS.length && previous - PLANTS.length - 1 < entities.size()) {
+            int index = previous - PLANTS.length - 1;
+            entities.set(index, null);
+            if (freeEntityCount == freeEntities.length) {
+                freeEntities = Arrays.copyOf(freeEntities, Math.max(16, freeEntityCount * 2));
+            }
+            freeEntities[freeEntityCount++] = index;
+        }
+
+        int id = 0;
+        if (obj instanceof Plant plant) {
+            id = plant.ordinal() + 1;
+        } else if (obj != null) {
+            int index;
+            if (freeEntityCount > 0) {
+                index = freeEntities[--freeEntityCount];
+                entities.set(index, obj);
+            } else {
+                index = entities.size();
+                entities.add(obj);
+            }
+            id = PLANTS.length + 1 + index;
+        }
+        grid.setOccupant(page, row, col, id);
+
+        long occupiedWord = grid.getWord(page, OCCUPIED_LAYER, chunk, r);
+        grid.setWord(page, OCCUPIED_LAYER, chunk, r, obj != null ? occupiedWord | bit : occupiedWord & ~bit);
+        Species species = Species.of(obj);
+        if (species != null) {
+            int layer = species.ordinal();
+            grid.setWord(page, layer, chunk, r, grid.getWord(page, layer, chunk, r) | bit);
+        }
+    }
+
+    /**
+     * Esvazia um bloco (no modo esparso, devolve-o à reserva de blocos livres).
+     */
+    private void clearChunk(int index) {
+        Chunk chunk = chunks[index];
+        if (chunk == null || chunk.population == 0) return;
+        chunk.clear();
+        pyramidStale = true;
+        if (sparse) {
+            chunks[index] = null;
+            chunkPool.push(chunk);
+        }
+    }
+
+    /**
+     * Faz o bloco deste campo igual a outro (null = bloco vazio).
+     */
+    private void copyChunk(int index, Chunk source) {
+        if (source == null || source.population == 0) {
+            clearChunk(index);
+            return;
+        }
+        Chunk target = chunks[index];
+        if (target == null) {
+            target = chunkPool != null && !chunkPool.isEmpty() ? chunkPool.pop() : new Chunk();
+            chunks[index] = target;
+        }
+        System.arraycopy(source.cells, 0, target.cells, 0, target.cells.length);
+        System.arraycopy(source.occupied, 0, target.occupied, 0, CHUNK_SIZE);
+        for (int id = 0; id < target.speciesBits.length; id++) {
+            System.arraycopy(source.speciesBits[id], 0, target.speciesBits[id], 0, CHUNK_SIZE);
+        }
+        System.arraycopy(source.speciesCount, 0, target.speciesCount, 0, target.speciesCount.length);
+        target.population = source.population;
+        target.animals = source.animals;
+        pyramidStale = true;
+    }
+
+    // Métodos auxiliares da pirâmide de densidade
+
+    /**
+     * Leva aos níveis acima dos blocos a diferença de cada contador de bloco desde a
+     * última soma. O custo é um teste por bloco e espécie, mais log n somas por
+     * contador que mudou; blocos trocados entre campos ({@link #prepareNext}) entram
+     * pela mesma diferença.
+     */
+    private void foldPyramid() {
+        if (!pyramidStale || pyramid.length == 0) return;
+        pyramidStale = false;
+        int speciesCount = Species.count();
+        for (int index = 0; index < chunks.length; index++) {
+            Chunk chunk = chunks[index];
+            int folded = index * speciesCount;
+            for (int id = 0; id < speciesCount; id++) {
+                int delta = (chunk == null ? 0 : chunk.speciesCount[id]) - pyramidFolded[folded + id];
+                if (delta == 0) continue;
+                pyramidFolded[folded + id] += delta;
+                int chunkRow = index / chunkCols;
+                int chunkCol = index % chunkCols;
+                for (int i = 0; i < pyramid.length; i++) {
+                    chunkRow >>= 1;
+                    chunkCol >>= 1;
+                    pyramid[i][(id * pyramidRows[i] + chunkRow) * pyramidCols[i] + chunkCol] += delta;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A contagem de uma espécie em um bloco alinhado de um nível da pirâmide.
+     */
+    private int blockCount(int id, int level, int blockRow, int blockCol) {
+        long row = (long) blockRow << level;
+        long col = (long) blockCol << level;
+        if (row >= depth || col >= width) return 0;
+        level = Math.min(level, topLevel); // o bloco (0, 0) de um nível acima do topo é o campo inteiro
+        if (grid != null || level < CHUNK_SHIFT) {
+            return countWords(id, (int) row, (int) col,
+                              (int) Math.min(depth, row + (1L << level)), (int) Math.min(width, col + (1L << level)));
+        }
+        if (level > CHUNK_SHIFT) {
+            foldPyramid();
+            int i = level - CHUNK_SHIFT - 1;
+            return pyramid[i][(id * pyramidRows[i] + blockRow) * pyramidCols[i] + blockCol];
+        }
+        Chunk chunk = chunks[chunkIndex((int) row, (int) col)];
+        return chunk == null ? 0 : chunk.speciesCount[id];
+    }
+
+    /**
+     * Desce a pirâmide a partir de um bloco, somando a parte do retângulo
+     * [row, rowEnd) x [col, colEnd) que cai dentro dele.
+     */
+    private int regionCount(int id, int level, int blockRow, int blockCol, int row, int col, int rowEnd, int colEnd) {
+        int top = blockRow << level;
+        int left = blockCol << level;
+        int bottom = (int) Math.min(depth, (long) top + (1L << level));
+        int right = (int) Math.min(width, (long) left + (1L << level));
+        int r0 = Math.max(top, row), r1 = Math.min(bottom, rowEnd);
+        int c0 = Math.max(left, col), c1 = Math.min(right, colEnd);
+        if (r0 >= r1 || c0 >= c1) return 0;
+        if (r0 == top && r1 == bottom && c0 == left && c1 == right) {
+            return blockCount(id, level, blockRow, blockCol);
+        }
+        if (level <= CHUNK_SHIFT) {
+            return countWords(id, r0, c0, r1, c1);
+        }
+        int total = 0;
+        for (int dr = 0; dr < 2; dr++) {
+            for (int dc = 0; dc < 2; dc++) {
+                total += regionCount(id, level - 1, 2 * blockRow + dr, 2 * blockCol + dc, row, col, rowEnd, colEnd);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Conta os bits de uma camada no retângulo [row, rowEnd) x [col, colEnd), uma
+     * palavra por linha de bloco.
+     */
+    private int countWords(int layer, int row, int col, int rowEnd, int colEnd) {
+        int total = 0;
+        for (int c = col; c < colEnd; c = (c | CHUNK_MASK) + 1) {
+            int first = c & CHUNK_MASK;
+            int last = Math.min(colEnd - 1, c | CHUNK_MASK) & CHUNK_MASK;
+            long mask = (last == CHUNK_MASK ? -1L : (1L << (last + 1)) - 1) & (-1L << first);
+            for (int r = row; r < rowEnd; r++) {
+                total += Long.bitCount(wordAt(layer, r, c) & mask);
+            }
+        }
+        return total;
+    }
+
+    // Métodos auxiliares da busca por raio
+
+    /** @return A união das palavras das espécies da máscara que contém a célula. */
+    private long wordOf(long speciesMask, int row, int col) {
+        long word = 0;
+        for (long m = speciesMask; m != 0; m &= m - 1) {
+            word |= wordAt(Long.numberOfTrailingZeros(m), row, col);
+        }
+        return word;
+    }
+
+    /** @return A maior coluna em [lo, from] da linha com uma das espécies, ou -1. */
+    private int nearestLeft(long speciesMask, int row, int from, int lo) {
+        for (int c = from; c >= lo; c = (c & ~CHUNK_MASK) - 1) {
+            int base = c & ~CHUNK_MASK;
+            int top = c & CHUNK_MASK;
+            long mask = top == CHUNK_MASK ? -1L : (1L << (top + 1)) - 1;
+            if (lo > base) mask &= -1L << (lo - base);
+            long word = wordOf(speciesMask, row, c) & mask;
+            if (word != 0) return base + 63 - Long.numberOfLeadingZeros(word);
+        }
+        return -1;
+    }
+
+    /** @return A menor coluna em [from, hi] da linha com uma das espécies, ou -1. */
+    private int nearestRight(long speciesMask, int row, int from, int hi) {
+        for (int c = from; c <= hi; c = (c | CHUNK_MASK) + 1) {
+            int base = c & ~CHUNK_MASK;
+            long mask = -1L << (c & CHUNK_MASK);
+            if (hi - base < CHUNK_MASK) mask &= (1L << (hi - base + 1)) - 1;
+            long word = wordOf(speciesMask, row, c) & mask;
+            if (word != 0) return base + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    /**
+     * Versão de {@link #nearestLeft} que aceita colunas antes da borda esquerda (o
+     * trecho negativo, que só existe no toro, é lido no fim da linha).
+     * @return A maior coluna em [lo, from] com uma das espécies, ainda sem a volta
+     *         (negativa se estiver do outro lado da borda), ou {@link #NO_COLUMN}.
+     */
+    private int scanLeft(long speciesMask, int row, int from, int lo) {
+        int c = nearestLeft(speciesMask, row, from, Math.max(lo, 0));
+        if (c >= 0) return c;
+        if (lo >= 0) return NO_COLUMN;
+        c = nearestLeft(speciesMask, row, Math.min(from, -1) + width, lo + width);
+        return c < 0 ? NO_COLUMN : c - width;
+    }
+
+    /**
+     * Versão de {@link #nearestRight} que aceita colunas depois da borda direita (o
+     * trecho além da largura, que só existe no toro, é lido no começo da linha).
+     * @return A menor coluna em [from, hi] com uma das espécies, ainda sem a volta
+     *         (além da largura se estiver do outro lado da borda), ou {@link #NO_COLUMN}.
+     */
+    private int scanRight(long speciesMask, int row, int from, int hi) {
+        int c = nearestRight(speciesMask, row, from, Math.min(hi, width - 1));
+        if (c >= 0) return c;
+        if (hi < width) return NO_COLUMN;
+        c = nearestRight(speciesMask, row, Math.max(from, width) - width, hi - width);
+        return c < 0 ? NO_COLUMN : c + width;
+    }
+
+    /**
+     * @return true se nenhuma célula entre as duas (traçado de Bresenham, sem as
+     *         pontas) é {@link Terrain#MOUNTAIN}. O destino pode estar fora dos limites
+     *         (do outro lado de uma borda do toro); as células do traçado dão a volta.
+     */
+    private boolean isVisible(int fromRow, int fromCol, int toRow, int toCol) {
+        int dr = Math.abs(toRow - fromRow);
+        int dc = Math.abs(toCol - fromCol);
+        int stepRow = fromRow < toRow ? 1 : -1;
+        int stepCol = fromCol < toCol ? 1 : -1;
+        int err = dc - dr;
+        int r = fromRow, c = fromCol;
+        while (true) {
+            int e2 = 2 * err;
+            if (e2 > -dr) {
+                err -= dr;
+                c += stepCol;
+            }
+            if (e2 < dc) {
+                err += dc;
+                r += stepRow;
+            }
+            if (r == toRow && c == toCol) return true;
+            if (getTerrainAt(Math.floorMod(r, depth), Math.floorMod(c, width)) == Terrain.MOUNTAIN) return false;
+        }
+    }
+
+    /** @return O índice do bloco que contém a célula (linha, coluna). */
+    private int chunkIndex(int row, int col) {
+        return (row >> CHUNK_SHIFT) * chunkCols + (col >> CHUNK_SHIFT);
+    }
+
+    /** @return A palavra de uma camada que contém a célula (0 se o bloco não existir). */
+    private long wordAt(int layer, int row, int col) {
+        if (grid != null) {
+            return grid.getWord(page, layer, chunkIndex(row, col), row & CHUNK_MASK);
+        }
+        Chunk chunk = chunks[chunkIndex(row, col)];
+        if (chunk == null) {
+            return 0L;
+        }
+        return chunk.layer(layer)[row & CHUNK_MASK];
+    }
+
+    /** @return 1 se o bit da célula estiver ligado na camada, 0 caso contrário. */
+    private int bitAt(int layer, int row, int col) {
+        return (int) (wordAt(layer, row, col) >>> (col & CHUNK_MASK)) & 1;
+    }
+
+    /**
+     * Extrai de uma camada os 3 bits das colunas vizinhas de uma linha (col-1, col e
+     * col+1, ou as do outro lado no toro). No interior de um bloco é um único
+     * deslocamento; nas bordas do bloco e na última coluna os bits são lidos um a um.
+     */
+    private int rowWindow(int layer, int row, int col) {
+        int b = col & CHUNK_MASK;
+        if (b != 0 && b != CHUNK_MASK && col + 1 < width) {
+            return (int) (wordAt(layer, row, col) >>> (b - 1)) & 7;
+        }
+        return bitAt(layer, row, neighbourCols[col * 3])
+                | bitAt(layer, row, col) << 1
+                | bitAt(layer, row, neighbourCols[col * 3 + 2]) << 2;
+    }
+
+    /**
+     * Monta a janela 3x3 de uma camada ao redor da célula (9 bits, linha a linha).
+     * Só os bits que são vizinhos na topologia ficam ligados.
+     */
+    private int neighbours(int layer, int row, int col) {
+        return (rowWindow(layer, neighbourRows[row * 3], col)
+                | rowWindow(layer, row, col) << 3
+                | rowWindow(layer, neighbourRows[row * 3 + 2], col) << 6) & validNeighbours(row, col);
+    }
+
+    /** @return A janela 3x3 com os vizinhos da célula na topologia do campo. */
+    private int validNeighbours(int row, int col) {
+        return validRows[row] & validCols[col] & parityMasks[row & 1];
+    }
+
+    /** @return A localização correspondente a um bit da janela 3x3. */
+    private Location neighbourAt(int row, int col, int bit) {
+        return locationAt(neighbourRows[row * 3 + bit / 3], neighbourCols[col * 3 + bit % 3]);
+    }
+
+    /** @return O índice do n-ésimo bit ligado (a partir de 0) da máscara. */
+    private static int nthSetBit(int mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /** Converte uma janela 3x3 em uma lista embaralhada de localizações. */
+    private List<Location> toShuffledLocations(int row, int col, int window) {
+        List<Location> result = new ArrayList<>(Integer.bitCount(window));
+        for (int m = window; m != 0; m &= m - 1) {
+            result.add(neighbourAt(row, col, Integer.numberOfTrailingZeros(m)));
+        }
+        Collections.shuffle(result, random);
+        return result;
+    }
+
+    /** @return A soma dos bits ligados de uma camada em todos os blocos alocados. */
+    private int bitCount(int layer) {
+        int total = 0;
+        if (grid != null) {
+            for (long chunk = 0; chunk < grid.getChunkCount(); chunk++) {
+                for (int r = 0; r < CHUNK_SIZE; r++) {
+                    total += Long.bitCount(grid.getWord(page, layer, chunk, r));
+                }
+            }
+            return total;
+        }
+        for (Chunk chunk : chunks) {
+            if (chunk == null) continue;
+            for (long word : chunk.layer(layer)) {
+                total += Long.bitCount(word);
             }
         }
-        return free;
+        return total;
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,10 @@
-import java.util.HashMap;
+import java.util.EnumMap;
 
 /**
  * Responsável por calcular e manter estatísticas de população no campo.
- * - Armazena contagens por classe usando um mapa de {@link Counter}.
+ * - Armazena contagens por espécie usando um mapa de {@link Counter}.
+ * - As contagens vêm dos bitboards do {@link Field} (uma soma de bitCount por espécie).
+ * - Contagens por região vêm da pirâmide de densidade do {@link Field}.
  * - Permite verificar se a simulação ainda é viável (mais de uma espécie presente).
  *
  * @author Grupo 1
@@ -10,10 +12,12 @@ import java.util.HashMap;
  */
 public class FieldStats {
     
-    /** Mapa de contadores, indexado pela classe de cada entidade (Animal, Plant, etc.). */
-    private final HashMap<Class<?>, Counter> counters = new HashMap<>();
+    /** Mapa de contadores, indexado pela espécie de cada entidade (Animal, Plant, etc.). */
+    private final EnumMap<Species, Counter> counters = new EnumMap<>(Species.class);
     /** Indica se as contagens atuais são válidas ou precisam ser recalculadas. */
     private boolean countsValid = false;
+    /** Texto da população, reaproveitado entre passos. */
+    private final StringBuilder buffer = new StringBuilder();
 
     /**
      * Retorna uma string com os detalhes da população atual.
@@ -23,15 +27,39 @@ public class FieldStats {
      */
     public String getPopulationDetails(Field field) {
         if (!countsValid) generateCounts(field);
-        
-        StringBuilder buffer = new StringBuilder();
+        return getPopulationDetails();
+    }
+
+    /**
+     * Retorna uma string com os detalhes da população já contada, sem recalcular
+     * (ex: depois de {@link #addCounts(int[])}).
+     *
+     * @return string com nome e quantidade de cada classe presente.
+     */
+    public String getPopulationDetails() {
+        buffer.setLength(0);
         for (Counter c : counters.values()) {
             // Apenas mostra contagens > 0
             if (c.getCount() > 0) {
-                buffer.append(c.getName()).append(": ").append(c.getCount()).append(" ");
+                if (buffer.length() > 0) buffer.append(' ');
+                buffer.append(c.getName()).append(": ").append(c.getCount());
             }
         }
-        return buffer.toString().trim();
+        return buffer.toString();
+    }
+
+    /**
+     * Soma contagens calculadas em outro lugar, como as faixas de uma simulação
+     * distribuída, e marca as contagens como válidas.
+     * @param counts Contagem por espécie, indexada pelo ordinal de {@link Species}.
+     */
+    public void addCounts(int[] counts) {
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                counterFor(Species.byId(id)).increment(counts[id]);
+            }
+        }
+        countsValid = true;
     }
 
     /**
@@ -43,16 +71,25 @@ public class FieldStats {
     }
 
     /**
-     * Incrementa o contador associado a uma classe específica.
-     * @param entityClass Classe da entidade (ex.: Rabbit.class, Fox.class).
+     * Incrementa o contador associado a uma espécie.
+     * @param species Espécie da entidade (ex.: Species.RABBIT).
      */
-    public void incrementCount(Class<?> entityClass) {
-        Counter cnt = counters.get(entityClass);
+    public void incrementCount(Species species) {
+        counterFor(species).increment();
+    }
+
+    /**
+     * Retorna o contador de uma espécie, criando-o se necessário.
+     * @param species Espécie da entidade.
+     * @return O contador da espécie.
+     */
+    private Counter counterFor(Species species) {
+        Counter cnt = counters.get(species);
         if (cnt == null) {
-            cnt = new Counter(entityClass.getSimpleName());
-            counters.put(entityClass, cnt);
+            cnt = new Counter(species.getDisplayName());
+            counters.put(species, cnt);
         }
-        cnt.increment();
+        return cnt;
     }
 
     /**
@@ -65,30 +102,47 @@ public class FieldStats {
     public boolean isViable(Field field) {
         if (!countsValid) generateCounts(field);
         
-        long nonZeroCount = counters.values().stream()
-                                    .filter(c -> c.getCount() > 0)
-                                    .count();
-                                    
+        int nonZeroCount = 0;
+        for (Counter c : counters.values()) {
+            if (c.getCount() > 0) nonZeroCount++;
+        }
+
         return nonZeroCount > 1;
     }
 
     /**
-     * Percorre todo o campo e gera novas contagens de população.
+     * Gera novas contagens de população a partir dos bitboards do campo.
      * @param field Campo da simulação.
      */
     private void generateCounts(Field field) {
         reset();
-        for (int row = 0; row < field.getDepth(); row++) {
-            for (int col = 0; col < field.getWidth(); col++) {
-                Object obj = field.getObjectAt(new Location(row, col));
-                if (obj != null) {
-                    incrementCount(obj.getClass());
-                }
+        for (int id = 0; id < Species.count(); id++) {
+            Species species = Species.byId(id);
+            int count = field.getCount(species);
+            if (count > 0) {
+                counterFor(species).increment(count);
             }
         }
         countsValid = true;
     }
 
+    /**
+     * Conta uma espécie em uma região retangular do campo, pela pirâmide de
+     * densidade do {@link Field}: O(log n) níveis mais as bordas da região, sem
+     * percorrer as células.
+     *
+     * @param field Campo da simulação.
+     * @param species Espécie a contar.
+     * @param row Primeira linha da região.
+     * @param col Primeira coluna da região.
+     * @param rows Número de linhas da região.
+     * @param cols Número de colunas da região.
+     * @return O número de células da região ocupadas pela espécie.
+     */
+    public int getRegionCount(Field field, Species species, int row, int col, int rows, int cols) {
+        return field.countRegion(species, row, col, rows, cols);
+    }
+
     /**
      * Marca a contagem como finalizada (válida).
      */
@@ -0,0 +1,304 @@
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Janela de visualização (viewport) sobre o campo, com zoom e deslocamento.
+ * <p>
+ * Só as células visíveis são desenhadas. Com uma célula de pelo menos um pixel, cada
+ * célula visível é pintada com a cor do ocupante ou do terreno. Afastado (várias
+ * células por pixel), o campo é desenhado em ladrilhos de k x k células, com k
+ * potência de dois: cada ladrilho mostra a espécie dominante, misturada com a cor
+ * do terreno conforme a densidade de ocupação. Cada ladrilho é um bloco da pirâmide
+ * de densidade do {@link Field} ({@link Field#getBlockCounts}), lido em tempo
+ * constante, então o tempo de um quadro depende do tamanho da janela e não do
+ * tamanho do campo. O mesmo vale para os mapas de calor ({@link #renderHeatmap}),
+ * que podem usar qualquer nível da pirâmide.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class FieldViewport {
+
+    /** Zoom máximo, em pixels por célula. */
+    public static final double MAX_CELL_SIZE = 64;
+    /** Cor (RGB) do fundo e das linhas de separação. */
+    public static final int BACKGROUND = 0xFFFFFF;
+    /** Zoom a partir do qual as células são desenhadas com uma linha de separação. */
+    private static final double GRID_LINE_CELL_SIZE = 4;
+
+    private final int depth;
+    private final int width;
+    /** Largura e altura da área de desenho, em pixels. */
+    private int widthPx = 1, heightPx = 1;
+    /** Pixels por célula (menor que 1 quando afastado). */
+    private double cellSize = 1;
+    /** Célula (fracionária) no canto superior esquerdo da área de desenho. */
+    private double originRow, originCol;
+    /** Contagens de um ladrilho, reaproveitadas entre ladrilhos. */
+    private final int[] counts = new int[Species.count()];
+
+    /**
+     * Cria a janela para um campo com as dimensões dadas.
+     * @param depth O número de linhas do campo.
+     * @param width O número de colunas do campo.
+     */
+    public FieldViewport(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+    }
+
+    /**
+     * Define o tamanho da área de desenho.
+     * @param widthPx Largura em pixels.
+     * @param heightPx Altura em pixels.
+     */
+    public void setSize(int widthPx, int heightPx) {
+        this.widthPx = Math.max(1, widthPx);
+        this.heightPx = Math.max(1, heightPx);
+    }
+
+    /**
+     * Ajusta o zoom para o campo inteiro caber na área de desenho.
+     */
+    public void fit() {
+        cellSize = Math.min(MAX_CELL_SIZE, Math.min((double) widthPx / width, (double) heightPx / depth));
+        originRow = 0;
+        originCol = 0;
+    }
+
+    /**
+     * Aproxima ou afasta mantendo fixa a célula sob um ponto da área de desenho.
+     * @param factor Fator de zoom (maior que 1 aproxima).
+     * @param x Coordenada x do ponto, em pixels.
+     * @param y Coordenada y do ponto, em pixels.
+     */
+    public void zoom(double factor, int x, int y) {
+        double minCellSize = Math.min((double) widthPx / width, (double) heightPx / depth);
+        double newSize = Math.max(Math.min(minCellSize, 1), Math.min(MAX_CELL_SIZE, cellSize * factor));
+        double col = originCol + x / cellSize;
+        double row = originRow + y / cellSize;
+        cellSize = newSize;
+        originCol = col - x / cellSize;
+        originRow = row - y / cellSize;
+        clampOrigin();
+    }
+
+    /**
+     * Desloca a janela.
+     * @param dx Deslocamento horizontal em pixels (positivo arrasta o campo para a direita).
+     * @param dy Deslocamento vertical em pixels.
+     */
+    public void pan(int dx, int dy) {
+        originCol -= dx / cellSize;
+        originRow -= dy / cellSize;
+        clampOrigin();
+    }
+
+    /** Mantém ao menos parte do campo visível. */
+    private void clampOrigin() {
+        originCol = Math.max(Math.min(originCol, width - widthPx / cellSize), 0);
+        originRow = Math.max(Math.min(originRow, depth - heightPx / cellSize), 0);
+    }
+
+    /** @return true se o campo está afastado a ponto de desenhar ladrilhos. */
+    public boolean isOverview() {
+        return cellSize < 1;
+    }
+
+    /** @return O lado dos ladrilhos em células (1 quando cada célula tem seu pixel). */
+    public int getBlockSize() {
+        int k = 1;
+        while (k * cellSize < 1) k <<= 1;
+        return k;
+    }
+
+    /** @return O nível da pirâmide de densidade dos ladrilhos (log2 de {@link #getBlockSize()}). */
+    public int getBlockLevel() {
+        return Integer.numberOfTrailingZeros(getBlockSize());
+    }
+
+    /** @return A primeira linha visível. */
+    public int getFirstRow() { return (int) originRow; }
+
+    /** @return A primeira coluna visível. */
+    public int getFirstCol() { return (int) originCol; }
+
+    /** @return A linha seguinte à última visível. */
+    public int getEndRow() { return Math.min(depth, (int) Math.ceil(originRow + heightPx / cellSize)); }
+
+    /** @return A coluna seguinte à última visível. */
+    public int getEndCol() { return Math.min(width, (int) Math.ceil(originCol + widthPx / cellSize)); }
+
+    /** @return O pixel x da borda esquerda de uma coluna. */
+    private int x(double col) {
+        return (int) Math.floor((col - originCol) * cellSize);
+    }
+
+    /** @return O pixel y da borda superior de uma linha. */
+    private int y(double row) {
+        return (int) Math.floor((row - originRow) * cellSize);
+    }
+
+    /**
+     * Pinta um retângulo de pixels, recortado à área de desenho.
+     */
+    private void fill(int[] pixels, int x, int y, int w, int h, int rgb) {
+        int x0 = Math.max(0, x), x1 = Math.min(widthPx, x + w);
+        int y0 = Math.max(0, y), y1 = Math.min(heightPx, y + h);
+        for (int py = y0; py < y1; py++) {
+            int offset = py * widthPx;
+            for (int px = x0; px < x1; px++) {
+                pixels[offset + px] = rgb;
+            }
+        }
+    }
+
+    /**
+     * Desenha as células visíveis de uma região do campo, uma por uma (zoom de
+     * pelo menos um pixel por célula). Escreve direto nos pixels da imagem, sem
+     * uma chamada de desenho por célula.
+     * @param pixels Os pixels (RGB) da área de desenho, linha a linha.
+     * @param field O campo.
+     * @param rowStart Primeira linha da região.
+     * @param colStart Primeira coluna da região.
+     * @param rowEnd Linha seguinte à última da região.
+     * @param colEnd Coluna seguinte à última da região.
+     * @param occupantColor Cor (RGB) de cada ocupante.
+     * @param terrainColors Cor (RGB) de cada terreno, pelo ordinal.
+     */
+    public void renderCells(int[] pixels, Field field, int rowStart, int colStart, int rowEnd, int colEnd,
+                            ToIntFunction<Object> occupantColor, int[] terrainColors) {
+        rowStart = Math.max(rowStart, getFirstRow());
+        colStart = Math.max(colStart, getFirstCol());
+        rowEnd = Math.min(rowEnd, getEndRow());
+        colEnd = Math.min(colEnd, getEndCol());
+        int gap = cellSize >= GRID_LINE_CELL_SIZE ? 1 : 0;
+
+        for (int row = rowStart; row < rowEnd; row++) {
+            int y = y(row);
+            int h = y(row + 1) - y;
+            for (int col = colStart; col < colEnd; col++) {
+                int x = x(col);
+                int w = x(col + 1) - x;
+                int rgb;
+                if (field.isOccupied(row, col)) {
+                    rgb = occupantColor.applyAsInt(field.getObjectAt(field.locationAt(row, col)));
+                } else {
+                    rgb = terrainColors[field.getTerrainAt(row, col).ordinal()];
+                }
+                if (gap > 0) {
+                    // Linha de separação à direita e embaixo da célula
+                    fill(pixels, x + w - 1, y, 1, h, BACKGROUND);
+                    fill(pixels, x, y + h - 1, w, 1, BACKGROUND);
+                }
+                fill(pixels, x, y, w - gap, h - gap, rgb);
+            }
+        }
+    }
+
+    /**
+     * Desenha a parte visível do campo em ladrilhos de {@link #getBlockSize()} células
+     * (zoom afastado). Cada ladrilho mostra a espécie mais numerosa, misturada com o
+     * terreno do seu centro conforme a fração de células ocupadas.
+     * @param pixels Os pixels (RGB) da área de desenho, linha a linha.
+     * @param field O campo.
+     * @param speciesColors Cor (RGB) de cada espécie, pelo ordinal.
+     * @param terrainColors Cor (RGB) de cada terreno, pelo ordinal.
+     */
+    public void renderBlocks(int[] pixels, Field field, int[] speciesColors, int[] terrainColors) {
+        int k = getBlockSize();
+        int rowStart = getFirstRow() / k * k;
+        int colStart = getFirstCol() / k * k;
+        int rowEnd = getEndRow();
+        int colEnd = getEndCol();
+
+        Arrays.fill(pixels, 0, widthPx * heightPx, BACKGROUND);
+        for (int row = rowStart; row < rowEnd; row += k) {
+            int y = y(row);
+            int h = Math.max(1, y(row + k) - y);
+            for (int col = colStart; col < colEnd; col += k) {
+                int x = x(col);
+                int w = Math.max(1, x(col + k) - x);
+                Terrain terrain = field.getTerrainAt(Math.min(depth - 1, row + k / 2), Math.min(width - 1, col + k / 2));
+                fill(pixels, x, y, w, h, blockColor(field, row, col, k, speciesColors, terrainColors[terrain.ordinal()]));
+            }
+        }
+    }
+
+    /**
+     * Desenha a parte visível do campo como um mapa de calor da densidade de uma
+     * espécie (ou de todas), em blocos de um nível da pirâmide de densidade. Cada
+     * bloco é lido em tempo constante, então o custo é o número de blocos visíveis.
+     * @param pixels Os pixels (RGB) da área de desenho, linha a linha.
+     * @param field O campo.
+     * @param level O nível da pirâmide (blocos de 2^level células); no mínimo o dos
+     *              ladrilhos, para que cada bloco ocupe ao menos um pixel.
+     * @param species A espécie, ou null para todos os ocupantes.
+     */
+    public void renderHeatmap(int[] pixels, Field field, int level, Species species) {
+        level = Math.max(level, getBlockLevel());
+        int rowStart = getFirstRow() >> level;
+        int colStart = getFirstCol() >> level;
+        int rowEnd = ((getEndRow() - 1) >> level) + 1;
+        int colEnd = ((getEndCol() - 1) >> level) + 1;
+
+        Arrays.fill(pixels, 0, widthPx * heightPx, BACKGROUND);
+        for (int blockRow = rowStart; blockRow < rowEnd; blockRow++) {
+            int row = blockRow << level;
+            int y = y(row);
+            int h = Math.max(1, y(row + (1 << level)) - y);
+            for (int blockCol = colStart; blockCol < colEnd; blockCol++) {
+                int col = blockCol << level;
+                int x = x(col);
+                int w = Math.max(1, x(col + (1 << level)) - x);
+                int count;
+                if (species != null) {
+                    count = field.getBlockCount(species, level, blockRow, blockCol);
+                } else {
+                    field.getBlockCounts(level, blockRow, blockCol, counts);
+                    count = 0;
+                    for (int c : counts) count += c;
+                }
+                long cells = (long) Math.min(1 << level, depth - row) * Math.min(1 << level, width - col);
+                fill(pixels, x, y, w, h, heatColor((double) count / cells));
+            }
+        }
+    }
+
+    /**
+     * @return A cor de uma densidade entre 0 e 1: de azul escuro (vazio) a vermelho,
+     *         passando a amarelo nas densidades mais altas.
+     */
+    private static int heatColor(double density) {
+        if (density <= 0) return 0x000030;
+        if (density < 0.5) return mix(0x0000A0, 0xE00000, density * 2);
+        return mix(0xE00000, 0xFFFF40, Math.min(1, (density - 0.5) * 2));
+    }
+
+    /**
+     * Calcula a cor de um ladrilho: a da espécie dominante sobre a do terreno, com
+     * peso igual à densidade de ocupação.
+     */
+    private int blockColor(Field field, int row, int col, int k, int[] speciesColors, int terrain) {
+        int level = Integer.numberOfTrailingZeros(k);
+        field.getBlockCounts(level, row >> level, col >> level, counts);
+        int total = 0, dominant = -1;
+        for (int id = 0; id < counts.length; id++) {
+            total += counts[id];
+            if (counts[id] > 0 && (dominant < 0 || counts[id] > counts[dominant])) dominant = id;
+        }
+        if (dominant < 0) return terrain;
+        int cells = Math.min(k, depth - row) * Math.min(k, width - col);
+        return mix(terrain, speciesColors[dominant], Math.min(1.0, (double) total / cells));
+    }
+
+    /** @return A mistura linear de duas cores RGB (peso de b entre 0 e 1). */
+    private static int mix(int a, int b, double weight) {
+        int rgb = 0;
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int ca = a >> shift & 0xFF, cb = b >> shift & 0xFF;
+            rgb |= (int) (ca + (cb - ca) * weight) << shift;
+        }
+        return rgb;
+    }
+}
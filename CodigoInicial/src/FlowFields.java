@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Campos de fluxo por espécie: para cada célula, o passo (uma das 8 direções) que
+ * leva pelo caminho mais curto até a comida mais próxima da espécie.
+ * <p>
+ * Cada campo vem de uma busca em largura com várias origens (todas as células com
+ * presas da espécie, segundo {@link Diet}) sobre o terreno que a espécie pode pisar
+ * (segundo {@link Barriers}). A busca anda da comida para fora, e cada célula
+ * alcançada guarda a direção da célula de onde veio, que está um passo mais perto
+ * da comida. Assim o mapa de distâncias fica representado pelo seu gradiente, e
+ * seguir o campo custa uma leitura de {@code byte} por animal.
+ * <p>
+ * Os campos são recalculados a cada k passos (a comida muda devagar em relação ao
+ * caminho), uma busca por espécie em paralelo, e compartilhados por todos os animais
+ * da espécie. Cada espécie acompanhada ocupa cinco bytes por célula (direções e fila
+ * da busca), mais um byte por célula de terreno compartilhado, então só as espécies
+ * pedidas têm campo.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class FlowFields {
+
+    /** Direção de quem já está na comida, não alcança nenhuma ou não é acompanhado. */
+    public static final int NO_DIRECTION = 4;
+    /** Marca de célula ainda não alcançada durante a busca. */
+    private static final byte UNVISITED = -1;
+
+    /** Direções de cada espécie, pelo ordinal (null se a espécie não é acompanhada). */
+    private final byte[][] directions = new byte[Species.count()][];
+    /** Fila da busca de cada espécie, reaproveitada entre recálculos. */
+    private final int[][] queues = new int[Species.count()][];
+    /** Espécies acompanhadas. */
+    private final Species[] tracked;
+    /** A cada quantos passos os campos são recalculados. */
+    private final int period;
+    private int width;
+    /** Ordinal do terreno de cada célula, guardado porque o terreno não muda. */
+    private byte[] terrain = new byte[0];
+    /** Terreno de que {@link #terrain} foi copiado (ver {@link Field#getTerrainId()}). */
+    private long terrainId;
+
+    /**
+     * Cria campos de fluxo para as espécies dadas (todos os animais, se nenhuma for
+     * informada).
+     * @param period A cada quantos passos os campos são recalculados (1 = todo passo).
+     * @param species As espécies acompanhadas.
+     */
+    public FlowFields(int period, Species... species) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Período inválido para os campos de fluxo: " + period);
+        }
+        this.period = period;
+        this.tracked = species.length > 0 ? species.clone()
+                                          : Arrays.stream(Species.values())
+                                                  .filter(s -> s != Species.PLANT)
+                                                  .toArray(Species[]::new);
+    }
+
+    /**
+     * @param step O passo atual.
+     * @return true se os campos devem ser recalculados neste passo.
+     */
+    public boolean isDue(int step) {
+        return step % period == 0 || directions[tracked[0].ordinal()] == null;
+    }
+
+    /**
+     * Recalcula os campos de todas as espécies acompanhadas a partir de um campo,
+     * uma espécie por tarefa paralela.
+     * @param field O campo atual.
+     */
+    public void recompute(Field field) {
+        width = field.getWidth();
+        int cells = field.getDepth() * width;
+        if (terrain.length != cells || terrainId != field.getTerrainId()) {
+            terrain = new byte[cells];
+            terrainId = field.getTerrainId();
+            for (int row = 0; row < field.getDepth(); row++) {
+                for (int col = 0; col < width; col++) {
+                    terrain[row * width + col] = (byte) field.getTerrainAt(row, col).ordinal();
+                }
+            }
+        }
+        for (Species species : tracked) {
+            int id = species.ordinal();
+            if (directions[id] == null || directions[id].length != cells) {
+                directions[id] = new byte[cells];
+                queues[id] = new int[cells];
+            }
+        }
+        IntStream.range(0, tracked.length).parallel().forEach(i -> search(field, tracked[i]));
+    }
+
+    /**
+     * Busca em largura a partir de todas as presas de uma espécie.
+     */
+    private void search(Field field, Species species) {
+        byte[] dirs = directions[species.ordinal()];
+        int[] queue = queues[species.ordinal()];
+        int depth = field.getDepth();
+        long preyMask = Diet.getPreyMask(species);
+        Arrays.fill(dirs, UNVISITED);
+
+        // Terrenos que a espécie pode pisar
+        Terrain[] terrains = Terrain.values();
+        boolean[] passable = new boolean[terrains.length];
+        for (Terrain terrain : terrains) {
+            passable[terrain.ordinal()] = !Barriers.isForbidden(species, terrain);
+        }
+
+        // Origens: as células com presas, lidas dos bitboards
+        int head = 0, tail = 0;
+        for (int row = 0; row < depth; row++) {
+            for (int chunkCol = 0; chunkCol < field.getChunkCols(); chunkCol++) {
+                long word = 0;
+                for (long m = preyMask; m != 0; m &= m - 1) {
+                    word |= field.speciesCellsInRow(Species.byId(Long.numberOfTrailingZeros(m)), row, chunkCol);
+                }
+                for (; word != 0; word &= word - 1) {
+                    int cell = row * width + chunkCol * Field.CHUNK_SIZE + Long.numberOfTrailingZeros(word);
+                    dirs[cell] = NO_DIRECTION;
+                    queue[tail++] = cell;
+                }
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int row = cell / width;
+            int col = cell - row * width;
+            for (int dr = -1; dr <= 1; dr++) {
+                int r = row + dr;
+                if (r < 0 || r >= depth) continue;
+                for (int dc = -1; dc <= 1; dc++) {
+                    int c = col + dc;
+                    if (c < 0 || c >= width || (dr == 0 && dc == 0)) continue;
+                    int next = r * width + c;
+                    if (dirs[next] != UNVISITED || !passable[terrain[next]]) continue;
+                    // Quem está em (r, c) anda no sentido oposto, de volta para (row, col)
+                    dirs[next] = (byte) ((1 - dr) * 3 + (1 - dc));
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        for (int i = 0; i < dirs.length; i++) {
+            if (dirs[i] == UNVISITED) dirs[i] = NO_DIRECTION;
+        }
+    }
+
+    /**
+     * Retorna a direção do próximo passo de um animal da espécie rumo à comida.
+     * @param species A espécie.
+     * @param row A linha do animal.
+     * @param col A coluna do animal.
+     * @return O bit da janela 3x3 (ver {@link Field#neighbourLocation(Location, int)}),
+     *         ou {@link #NO_DIRECTION}.
+     */
+    public int directionAt(Species species, int row, int col) {
+        byte[] dirs = directions[species.ordinal()];
+        return dirs == null ? NO_DIRECTION : dirs[row * width + col];
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Modelo de ilhas: várias simulações independentes (cada uma com seu {@link Field} e
+ * seu terreno) no mesmo processo, ligadas por corredores de migração.
+ * <p>
+ * As ilhas avançam sozinhas, cada uma em uma thread, por um intervalo de passos;
+ * depois todas param numa barreira de migração. Na barreira, cada ilha manda pelos
+ * seus corredores de saída um lote de emigrantes (ver {@link Simulator#emigrate}),
+ * e em seguida cada ilha recebe os lotes dos corredores que chegam nela
+ * (ver {@link Simulator#immigrate}). Os corredores são filas sem travas
+ * ({@link ConcurrentLinkedQueue}) e cada fase só mexe na própria ilha, então entre
+ * barreiras as ilhas não trocam animais.
+ * <p>
+ * Cada ilha tem o seu gerador, semeado com {@code Randomizer.mix(semente, ilha)}
+ * (ver {@link Simulator#setRandom}), a sua reserva de animais ({@link AnimalPool}) e
+ * os seus contadores de eventos ({@link SimulationEvents}). Ainda fica um estado
+ * compartilhado: a localização das constantes de {@link Plant}, que toda ilha escreve
+ * ao pôr uma planta e lê quando a planta age. Essas escritas concorrentes não
+ * corrompem o campo (a planta só se copia para uma célula em que ela já está), mas
+ * fazem o resultado de cada ilha depender da ordem entre as threads, então uma
+ * execução com mais de uma ilha não se repete exatamente a partir da semente.
+ * <p>
+ * Uso: {@code java IslandModel <ilhas> <linhas> <colunas> <passos> <intervalo> [taxa] [semente]}
+ * (as ilhas formam um anel, com corredores nos dois sentidos).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class IslandModel {
+
+    /** Probabilidade padrão de cada animal partir por um corredor, em cada barreira. */
+    public static final double DEFAULT_RATE = 0.01;
+
+    /**
+     * Corredor de migração de uma ilha para outra.
+     */
+    public static class Corridor {
+        private final int from;
+        private final int to;
+        private final double rate;
+        private final long speciesMask;
+        /** Lote em trânsito: escrito pela ilha de origem, lido pela de destino. */
+        private final Queue<Animal> inTransit = new ConcurrentLinkedQueue<>();
+        private long sent, arrived, lost;
+
+        Corridor(int from, int to, double rate, long speciesMask) {
+            this.from = from;
+            this.to = to;
+            this.rate = rate;
+            this.speciesMask = speciesMask;
+        }
+
+        /** @return A ilha de origem. */
+        public int getFrom() {
+            return from;
+        }
+
+        /** @return A ilha de destino. */
+        public int getTo() {
+            return to;
+        }
+
+        /** @return Quantos animais partiram pelo corredor. */
+        public long getSent() {
+            return sent;
+        }
+
+        /** @return Quantos animais chegaram ao destino. */
+        public long getArrived() {
+            return arrived;
+        }
+
+        /** @return Quantos animais não acharam lugar no destino. */
+        public long getLost() {
+            return lost;
+        }
+    }
+
+    private final List<Simulator> islands = new ArrayList<>();
+    private final List<Corridor> corridors = new ArrayList<>();
+    /** Corredores de saída e de chegada de cada ilha. */
+    private final List<List<Corridor>> outgoing = new ArrayList<>();
+    private final List<List<Corridor>> incoming = new ArrayList<>();
+    private final int interval;
+    private int step;
+
+    /**
+     * Cria as ilhas, sem janela e ainda sem corredores.
+     * @param count O número de ilhas.
+     * @param depth O número de linhas de cada ilha.
+     * @param width O número de colunas de cada ilha.
+     * @param interval Passos entre barreiras de migração.
+     */
+    public IslandModel(int count, int depth, int width, int interval) {
+        this(count, depth, width, interval, Randomizer.getRandom().nextLong());
+    }
+
+    /**
+     * Cria as ilhas, sem janela e ainda sem corredores. O terreno e a população
+     * inicial de cada ilha vêm do {@link Randomizer} reiniciado com a semente; os
+     * passos, do gerador próprio da ilha.
+     * @param count O número de ilhas.
+     * @param depth O número de linhas de cada ilha.
+     * @param width O número de colunas de cada ilha.
+     * @param interval Passos entre barreiras de migração.
+     * @param seed A semente.
+     */
+    public IslandModel(int count, int depth, int width, int interval, long seed) {
+        if (count < 1 || interval < 1) {
+            throw new IllegalArgumentException("Modelo de ilhas inválido: " + count + " ilhas, intervalo " + interval);
+        }
+        this.interval = interval;
+        Randomizer.setSeed(seed);
+        for (int i = 0; i < count; i++) {
+            Simulator island = new Simulator(depth, width, false, true);
+            island.setRandom(new Random(Randomizer.mix(seed, i)));
+            islands.add(island);
+            outgoing.add(new ArrayList<>());
+            incoming.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Liga duas ilhas por um corredor de mão única, para todas as espécies de animais.
+     * @param from A ilha de origem.
+     * @param to A ilha de destino.
+     * @param rate A probabilidade de cada animal partir, em cada barreira.
+     * @return O corredor criado.
+     */
+    public Corridor connect(int from, int to, double rate) {
+        return connect(from, to, rate, ~(1L << Species.PLANT.ordinal()));
+    }
+
+    /**
+     * Liga duas ilhas por um corredor de mão única.
+     * @param from A ilha de origem.
+     * @param to A ilha de destino.
+     * @param rate A probabilidade de cada animal partir, em cada barreira.
+     * @param speciesMask Máscara de bits das espécies que usam o corredor.
+     * @return O corredor criado.
+     */
+    public Corridor connect(int from, int to, double rate, long speciesMask) {
+        if (from == to || from < 0 || to < 0 || from >= islands.size() || to >= islands.size()) {
+            throw new IllegalArgumentException("Corredor inválido: " + from + " -> " + to);
+        }
+        Corridor corridor = new Corridor(from, to, rate, speciesMask);
+        corridors.add(corridor);
+        outgoing.get(from).add(corridor);
+        incoming.get(to).add(corridor);
+        return corridor;
+    }
+
+    /**
+     * Liga as ilhas em anel, com corredores nos dois sentidos entre vizinhas.
+     * @param rate A probabilidade de cada animal partir por cada corredor.
+     */
+    public void connectRing(double rate) {
+        int n = islands.size();
+        for (int i = 0; i < n && n > 1; i++) {
+            connect(i, (i + 1) % n, rate);
+            if (n > 2) connect((i + 1) % n, i, rate);
+        }
+    }
+
+    /**
+     * Avança todas as ilhas até a próxima barreira e faz a migração.
+     */
+    public void simulateEpoch() {
+        IntStream.range(0, islands.size()).parallel().forEach(this::runIsland);
+        IntStream.range(0, islands.size()).parallel().forEach(this::receive);
+        step += interval;
+    }
+
+    /**
+     * Executa várias épocas até completar pelo menos o número de passos dado.
+     * @param steps O número de passos.
+     */
+    public void simulate(int steps) {
+        for (int done = 0; done < steps; done += interval) {
+            simulateEpoch();
+        }
+    }
+
+    /**
+     * Primeira fase, na thread da ilha: os passos do intervalo e a partida dos emigrantes.
+     */
+    private void runIsland(int index) {
+        Simulator island = islands.get(index);
+        for (int i = 0; i < interval; i++) {
+            island.simulateOneStep();
+        }
+        List<Animal> batch = new ArrayList<>();
+        for (Corridor corridor : outgoing.get(index)) {
+            batch.clear();
+            island.emigrate(corridor.speciesMask, corridor.rate, batch);
+            corridor.inTransit.addAll(batch);
+            corridor.sent += batch.size();
+        }
+    }
+
+    /**
+     * Segunda fase, na thread da ilha: a chegada dos lotes dos corredores de entrada.
+     */
+    private void receive(int index) {
+        Simulator island = islands.get(index);
+        for (Corridor corridor : incoming.get(index)) {
+            for (Animal animal; (animal = corridor.inTransit.poll()) != null; ) {
+                if (island.immigrate(animal)) {
+                    corridor.arrived++;
+                } else {
+                    corridor.lost++;
+                    AnimalPool.release(animal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Descarta as ilhas, retirando as métricas de cada uma do JMX (ver {@link Simulator#close()}).
+     */
+    public void close() {
+        for (Simulator island : islands) {
+            island.close();
+        }
+    }
+
+    /** @return O número de passos dados por cada ilha. */
+    public int getStep() {
+        return step;
+    }
+
+    /** @return O número de ilhas. */
+    public int getIslandCount() {
+        return islands.size();
+    }
+
+    /**
+     * @param index O índice da ilha.
+     * @return A simulação da ilha.
+     */
+    public Simulator getIsland(int index) {
+        return islands.get(index);
+    }
+
+    /** @return Os corredores, na ordem em que foram criados. */
+    public List<Corridor> getCorridors() {
+        return corridors;
+    }
+
+    /**
+     * Ponto de entrada do modelo de ilhas.
+     * @param args ilhas, linhas, colunas, passos, intervalo e opcionalmente a taxa de migração.
+     */
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("Uso: java IslandModel <ilhas> <linhas> <colunas> <passos> <intervalo> [taxa] [semente]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        int depth = Integer.parseInt(args[1]);
+        int width = Integer.parseInt(args[2]);
+        int steps = Integer.parseInt(args[3]);
+        int interval = Integer.parseInt(args[4]);
+        double rate = args.length > 5 ? Double.parseDouble(args[5]) : DEFAULT_RATE;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : Randomizer.getRandom().nextLong();
+
+        IslandModel model = new IslandModel(count, depth, width, interval, seed);
+        model.connectRing(rate);
+        FieldStats stats = new FieldStats();
+        long start = System.nanoTime();
+        while (model.getStep() < steps) {
+            model.simulateEpoch();
+            long migrants = 0;
+            for (Corridor corridor : model.getCorridors()) {
+                migrants += corridor.getArrived();
+            }
+            System.out.println("Passo " + model.getStep() + " (migrantes até agora: " + migrants + ")");
+            for (int i = 0; i < count; i++) {
+                stats.reset();
+                System.out.println("  Ilha " + i + ": " + stats.getPopulationDetails(model.getIsland(i).field));
+            }
+        }
+        System.out.printf("%d ilhas, %d passos: %.1f s%n", count, model.getStep(), (System.nanoTime() - start) / 1e9);
+        model.close();
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+
+/**
+ * Modo híbrido (campo médio): fora de uma área de foco, cada bloco de 64x64 células
+ * do {@link Field} guarda só a contagem esperada de cada espécie, atualizada por
+ * equações de diferenças, sem agentes. Dentro do foco os animais e plantas continuam
+ * sendo atores (ver {@link Simulator#setFocus}).
+ * <p>
+ * As taxas por passo vêm dos mesmos parâmetros das subclasses de {@link Animal}
+ * e das dietas de {@link Diet}, num bloco de A células com N_x indivíduos de cada espécie:
+ * <ul>
+ *   <li>morte por idade: N / idade máxima (idades espalhadas por igual);</li>
+ *   <li>nascimentos: N x probabilidade de procriar x ninhada média x fração de
+ *       adultos x fração de células livres (o filhote precisa de uma vizinha livre),
+ *       vezes a chance de o filhote comer antes de acabar a reserva com que nasce
+ *       (1 - (1-p)^(R-1), com p abaixo e R a reserva de um animal novo);</li>
+ *   <li>predação: um predador acha comida com a chance de alguma das 8 vizinhas ter
+ *       presa, 1 - (1 - presas/A)^8; cada refeição tira uma presa, repartida entre as
+ *       espécies de presa na proporção das contagens;</li>
+ *   <li>fome: com chance p de comer por passo e F passos de reserva por refeição,
+ *       o risco de morrer de fome num passo é p(1-p)^F / (1 - (1-p)^F);</li>
+ *   <li>plantas: crescem nas células livres e morrem com as probabilidades do
+ *       {@link Simulator};</li>
+ *   <li>deslocamento: a cada passo, a fração dos animais na borda de um bloco que
+ *       anda para o lado de fora (3 das 8 direções) passa para o bloco vizinho.</li>
+ * </ul>
+ * O que atravessa para um bloco em foco não entra na conta do bloco: fica acumulado
+ * como chegada naquele lado, e o simulador cria os animais inteiros na borda do bloco.
+ * O terreno não entra nas equações.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class MeanField {
+
+    /** Lados de um bloco, para as chegadas vindas dos blocos vizinhos. */
+    public static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    private static final int[] SIDE_ROWS = { -1, 1, 0, 0 };
+    private static final int[] SIDE_COLS = { 0, 0, -1, 1 };
+    /** Vizinhos de uma célula (Moore). */
+    private static final int NEIGHBOURS = 8;
+    /** Das 8 direções de um passo, quantas atravessam um dos lados do bloco. */
+    private static final double CROSSING_DIRECTIONS = 3.0 / NEIGHBOURS;
+
+    private static final int SPECIES = Species.count();
+    private static final int PLANT = Species.PLANT.ordinal();
+
+    private final int chunkRows, chunkCols;
+    /** Linhas e colunas de cada bloco (os da última linha e coluna podem ser menores). */
+    private final int[] blockRows, blockCols;
+    /** Blocos com agentes; os demais são agregados. */
+    private final boolean[] focus;
+    /** Contagem esperada de cada espécie por bloco: counts[bloco * SPECIES + espécie]. */
+    private final double[] counts;
+    private final double[] deltas;
+    /** Chegadas acumuladas em blocos em foco: inflow[(bloco * 4 + lado) * SPECIES + espécie]. */
+    private final double[] inflow;
+    // Taxas por passo de cada espécie de animal, pelo ordinal
+    private final double[] ageDeath = new double[SPECIES];
+    private final double[] birthRate = new double[SPECIES];
+    private final double[] foodValue = new double[SPECIES];
+    private final double[] newbornFood = new double[SPECIES];
+    private final double plantGrowth, plantDeath;
+
+    /**
+     * Cria o modo híbrido para um campo, com todos os blocos em foco e sem contagens.
+     * @param field O campo.
+     * @param plantGrowth A probabilidade de crescer uma planta em cada célula livre, por passo.
+     * @param plantDeath A probabilidade de morte de uma planta, por passo.
+     */
+    public MeanField(Field field, double plantGrowth, double plantDeath) {
+        chunkRows = field.getChunkRows();
+        chunkCols = field.getChunkCols();
+        int chunks = chunkRows * chunkCols;
+        blockRows = new int[chunks];
+        blockCols = new int[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            blockRows[chunk] = Math.min(Field.CHUNK_SIZE, field.getDepth() - chunk / chunkCols * Field.CHUNK_SIZE);
+            blockCols[chunk] = Math.min(Field.CHUNK_SIZE, field.getWidth() - chunk % chunkCols * Field.CHUNK_SIZE);
+        }
+        focus = new boolean[chunks];
+        Arrays.fill(focus, true);
+        counts = new double[chunks * SPECIES];
+        deltas = new double[chunks * SPECIES];
+        inflow = new double[chunks * 4 * SPECIES];
+        this.plantGrowth = plantGrowth;
+        this.plantDeath = plantDeath;
+
+        for (Species species : Species.values()) {
+            Animal animal = species.createAnimal();
+            if (animal == null) continue;
+            int id = species.ordinal();
+            double adults = (double) (animal.getMaxAge() - animal.getBreedingAge()) / animal.getMaxAge();
+            ageDeath[id] = 1.0 / animal.getMaxAge();
+            birthRate[id] = animal.getBreedingProbability() * (animal.getMaxLitterSize() + 1) / 2.0 * adults;
+            foodValue[id] = animal.getFoodValue();
+            newbornFood[id] = animal.getFoodLevel();
+        }
+    }
+
+    /**
+     * @param chunk O índice do bloco, em ordem de linha.
+     * @return true se o bloco está em foco (tem agentes).
+     */
+    public boolean isFocus(int chunk) {
+        return focus[chunk];
+    }
+
+    /** @return As marcas de foco de cada bloco (o próprio vetor, não uma cópia). */
+    boolean[] getFocus() {
+        return focus;
+    }
+
+    /**
+     * Muda quais blocos estão em foco. Só as marcas mudam: quem converte agentes em
+     * contagens e contagens em agentes é o {@link Simulator}.
+     * @param newFocus As marcas de foco de cada bloco.
+     */
+    void setFocus(boolean[] newFocus) {
+        System.arraycopy(newFocus, 0, focus, 0, focus.length);
+    }
+
+    /**
+     * Soma indivíduos à contagem de um bloco (um agente que virou contagem).
+     * @param chunk O bloco.
+     * @param species A espécie.
+     * @param amount Quantos indivíduos.
+     */
+    void add(int chunk, Species species, double amount) {
+        counts[chunk * SPECIES + species.ordinal()] += amount;
+    }
+
+    /**
+     * Retira toda a contagem de uma espécie de um bloco (para virar agentes).
+     * @return A contagem retirada.
+     */
+    double take(int chunk, Species species) {
+        int i = chunk * SPECIES + species.ordinal();
+        double count = counts[i];
+        counts[i] = 0;
+        return count;
+    }
+
+    /**
+     * Retira as chegadas inteiras acumuladas num lado de um bloco em foco; a parte
+     * fracionária fica para os próximos passos.
+     * @return Quantos indivíduos chegaram.
+     */
+    int takeInflow(int chunk, int side, Species species) {
+        int i = (chunk * 4 + side) * SPECIES + species.ordinal();
+        int whole = (int) inflow[i];
+        inflow[i] -= whole;
+        return whole;
+    }
+
+    /**
+     * @param chunk O bloco.
+     * @param species A espécie.
+     * @return A contagem esperada da espécie no bloco (0 nos blocos em foco).
+     */
+    public double getCount(int chunk, Species species) {
+        return counts[chunk * SPECIES + species.ordinal()];
+    }
+
+    /**
+     * @param species A espécie.
+     * @return A contagem esperada da espécie em todos os blocos agregados.
+     */
+    public double getTotal(Species species) {
+        double total = 0;
+        for (int i = species.ordinal(); i < counts.length; i += SPECIES) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Avança um passo em todos os blocos agregados. As taxas são todas calculadas a
+     * partir das contagens do início do passo e aplicadas juntas no fim.
+     */
+    public void step() {
+        Arrays.fill(deltas, 0);
+        for (int chunk = 0; chunk < focus.length; chunk++) {
+            if (focus[chunk]) continue;
+            int base = chunk * SPECIES;
+            double area = blockRows[chunk] * blockCols[chunk];
+            double occupied = 0;
+            for (int id = 0; id < SPECIES; id++) {
+                occupied += counts[base + id];
+            }
+            double free = Math.max(0, 1 - occupied / area);
+
+            for (int id = 0; id < SPECIES; id++) {
+                double n = counts[base + id];
+                if (n <= 0 || id == PLANT) continue;
+
+                long preyMask = Diet.getPreyMask(Species.byId(id));
+                double prey = 0;
+                for (long m = preyMask; m != 0; m &= m - 1) {
+                    prey += counts[base + Long.numberOfTrailingZeros(m)];
+                }
+                double find = 1 - Math.pow(1 - Math.min(1, prey / area), NEIGHBOURS);
+                if (prey > 0) {
+                    double meals = n * find;
+                    for (long m = preyMask; m != 0; m &= m - 1) {
+                        int p = Long.numberOfTrailingZeros(m);
+                        deltas[base + p] -= meals * counts[base + p] / prey;
+                    }
+                }
+                double recruits = birthRate[id] * free * newbornSurvival(find, newbornFood[id]);
+                deltas[base + id] += n * (recruits - ageDeath[id] - starvation(find, foodValue[id]));
+                diffuse(chunk, id, n * free * CROSSING_DIRECTIONS);
+            }
+            deltas[base + PLANT] += plantGrowth * free * area - plantDeath * counts[base + PLANT];
+        }
+        for (int chunk = 0; chunk < focus.length; chunk++) {
+            if (focus[chunk]) continue;
+            for (int i = chunk * SPECIES; i < (chunk + 1) * SPECIES; i++) {
+                counts[i] = Math.max(0, counts[i] + deltas[i]);
+            }
+        }
+    }
+
+    /**
+     * Passa para os quatro blocos vizinhos os animais que atravessam cada lado: a
+     * fração das linhas (ou colunas) do bloco que fica na borda daquele lado.
+     * @param moving Os animais do bloco que andam para fora da própria linha ou coluna.
+     */
+    private void diffuse(int chunk, int id, double moving) {
+        int chunkRow = chunk / chunkCols, chunkCol = chunk % chunkCols;
+        for (int side = 0; side < 4; side++) {
+            int row = chunkRow + SIDE_ROWS[side], col = chunkCol + SIDE_COLS[side];
+            if (row < 0 || row >= chunkRows || col < 0 || col >= chunkCols) continue;
+            double out = moving / (SIDE_ROWS[side] != 0 ? blockRows[chunk] : blockCols[chunk]);
+            int neighbour = row * chunkCols + col;
+            deltas[chunk * SPECIES + id] -= out;
+            if (focus[neighbour]) {
+                inflow[(neighbour * 4 + (side ^ 1)) * SPECIES + id] += out;
+            } else {
+                deltas[neighbour * SPECIES + id] += out;
+            }
+        }
+    }
+
+    /**
+     * Chance de um filhote comer antes de morrer de fome: a reserva cai antes da
+     * primeira busca por comida, então ele tem R - 1 passos para achar comida.
+     */
+    private static double newbornSurvival(double find, double food) {
+        if (food <= 1) return 0;
+        return 1 - Math.pow(1 - find, food - 1);
+    }
+
+    /**
+     * Risco de morrer de fome em um passo, no regime estacionário: a reserva volta a
+     * F a cada refeição (chance p por passo) e o animal morre após F passos sem comer.
+     */
+    private static double starvation(double find, double food) {
+        if (find <= 0) return 1 / food;
+        double miss = Math.pow(1 - find, food);
+        return miss * find / (1 - miss);
+    }
+}
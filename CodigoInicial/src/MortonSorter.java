@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ordena a lista de atores pela curva Z (código de Morton) da célula de cada um.
+ * <p>
+ * Com a ordem de inserção, depois de algumas centenas de passos atores consecutivos
+ * na lista ficam espalhados pela grade, e cada {@code act} lê uma parte diferente do
+ * {@link Field}. Na ordem Z, atores vizinhos na grade são processados juntos e as
+ * leituras de células e vizinhanças continuam no cache.
+ * <p>
+ * A ordenação é um radix sort LSD de 8 bits por passada, estável e sem comparações.
+ * Só as passadas necessárias para o tamanho da grade são feitas, e uma passada em que
+ * todos os atores têm o mesmo byte é pulada. Os vetores auxiliares são reaproveitados
+ * entre chamadas, então uma ordenação não cria objetos depois que eles atingem o
+ * tamanho da população.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class MortonSorter {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private Actor[] actors = new Actor[0];
+    private Actor[] actorsBuffer = new Actor[0];
+    private long[] keys = new long[0];
+    private long[] keysBuffer = new long[0];
+    private final int[] counts = new int[RADIX];
+
+    /**
+     * Calcula o código de Morton de uma célula, intercalando os bits da linha e da coluna.
+     * @param row A linha (até 2^31 - 1).
+     * @param col A coluna (até 2^31 - 1).
+     * @return O código de Morton da célula.
+     */
+    public static long encode(int row, int col) {
+        return spread(row) << 1 | spread(col);
+    }
+
+    /**
+     * Espalha os 32 bits de um valor nas posições pares de um long.
+     */
+    private static long spread(int value) {
+        long x = value & 0xFFFFFFFFL;
+        x = (x | x << 16) & 0x0000FFFF0000FFFFL;
+        x = (x | x << 8) & 0x00FF00FF00FF00FFL;
+        x = (x | x << 4) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | x << 2) & 0x3333333333333333L;
+        x = (x | x << 1) & 0x5555555555555555L;
+        return x;
+    }
+
+    /**
+     * Reordena a lista pela curva Z das localizações dos atores. Atores na mesma
+     * célula (ou sem localização) mantêm a ordem relativa.
+     * @param list A lista de atores.
+     * @param depth A altura do campo.
+     * @param width A largura do campo.
+     */
+    public void sort(List<Actor> list, int depth, int width) {
+        int n = list.size();
+        if (n < 2) return;
+        ensureCapacity(n);
+
+        for (int i = 0; i < n; i++) {
+            Actor actor = list.get(i);
+            Location location = actor.getLocation();
+            actors[i] = actor;
+            keys[i] = location == null ? 0 : encode(location.getRow(), location.getCol());
+        }
+
+        int bits = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(depth, width) - 1));
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            pass(n, shift);
+        }
+
+        for (int i = 0; i < n; i++) {
+            list.set(i, actors[i]);
+            actors[i] = null;
+            actorsBuffer[i] = null;
+        }
+    }
+
+    /**
+     * Uma passada do radix sort (contagem) sobre o byte que começa em {@code shift}.
+     */
+    private void pass(int n, int shift) {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) {
+            counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+        }
+        // Se todos caem no mesmo balde, a passada não muda nada
+        if (counts[(int) (keys[0] >>> shift) & (RADIX - 1)] == n) return;
+
+        int total = 0;
+        for (int b = 0; b < RADIX; b++) {
+            int c = counts[b];
+            counts[b] = total;
+            total += c;
+        }
+        for (int i = 0; i < n; i++) {
+            int b = (int) (keys[i] >>> shift) & (RADIX - 1);
+            int to = counts[b]++;
+            keysBuffer[to] = keys[i];
+            actorsBuffer[to] = actors[i];
+        }
+
+        long[] k = keys;
+        keys = keysBuffer;
+        keysBuffer = k;
+        Actor[] a = actors;
+        actors = actorsBuffer;
+        actorsBuffer = a;
+    }
+
+    /**
+     * Garante vetores auxiliares com espaço para n atores, com folga para crescer.
+     */
+    private void ensureCapacity(int n) {
+        if (actors.length >= n) return;
+        int capacity = Math.max(n, actors.length + (actors.length >> 1));
+        actors = new Actor[capacity];
+        actorsBuffer = new Actor[capacity];
+        keys = new long[capacity];
+        keysBuffer = new long[capacity];
+    }
+}
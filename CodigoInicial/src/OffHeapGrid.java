@@ -0,0 +1,286 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Armazenamento fora do heap da grade da simulação, usado pelo {@link Field} no modo
+ * off-heap. Guarda o terreno (um byte por célula) e duas páginas de ocupação, uma para
+ * o campo atual e outra para o campo do próximo passo. Cada página tem um id de
+ * ocupante por célula ({@code int}) e os bitboards de ocupação e de cada espécie.
+ * <p>
+ * A memória pode ser anônima (buffers diretos) ou mapeada de um arquivo. Como um
+ * {@link ByteBuffer} endereça no máximo 2 GB, a memória é dividida em segmentos de 1 GB.
+ * Um arquivo mapeado guarda no cabeçalho as dimensões, a semente do terreno e qual
+ * página é a atual, e pode ser reaberto com {@link #open(Path)} depois de reiniciar.
+ * <p>
+ * Os animais em si ficam no heap; a grade guarda só a espécie de cada célula. Guardar
+ * também idade e fome custaria mais 4 bytes por célula em cada página e uma escrita
+ * por animal a cada passo, então uma grade reaberta volta com os mesmos ocupantes,
+ * mas com idade e fome sorteadas de novo (ver {@link Simulator#Simulator(OffHeapGrid)}).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class OffHeapGrid {
+
+    private static final long MAGIC = 0x5050_4F4F_4752_4944L; // "PPOOGRID"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int CURRENT_PAGE_OFFSET = 20;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private static final Terrain[] TERRAINS = Terrain.values();
+    /** Camadas de bitboard por bloco: ocupação geral e uma por espécie. */
+    private static final int LAYERS = 1 + Species.count();
+
+    private final int depth;
+    private final int width;
+    private final long terrainSeed;
+    private final long chunkCount;
+    private final long terrainOffset;
+    private final long[] pageOffsets = new long[2];
+    private final long bitsOffset; // deslocamento dos bitboards dentro de uma página
+    private final ByteBuffer[] segments;
+    private final boolean mapped;
+
+    /**
+     * Construtor auxiliar: calcula o layout e obtém a memória.
+     */
+    private OffHeapGrid(int depth, int width, long terrainSeed, FileChannel channel) throws IOException {
+        this.depth = depth;
+        this.width = width;
+        this.terrainSeed = terrainSeed;
+        this.mapped = channel != null;
+
+        long chunkRows = (depth + Field.CHUNK_SIZE - 1) / Field.CHUNK_SIZE;
+        long chunkCols = (width + Field.CHUNK_SIZE - 1) / Field.CHUNK_SIZE;
+        chunkCount = chunkRows * chunkCols;
+
+        long cells = (long) depth * width;
+        terrainOffset = HEADER_BYTES;
+        long pageStart = align(terrainOffset + cells);
+        bitsOffset = align(cells * Integer.BYTES);
+        long pageBytes = bitsOffset + chunkCount * LAYERS * Field.CHUNK_SIZE * Long.BYTES;
+        pageOffsets[0] = pageStart;
+        pageOffsets[1] = pageStart + pageBytes;
+        long totalBytes = pageStart + 2 * pageBytes;
+
+        int segmentCount = (int) ((totalBytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            int size = (int) Math.min(1L << SEGMENT_SHIFT, totalBytes - start);
+            ByteBuffer buffer = channel != null
+                    ? channel.map(FileChannel.MapMode.READ_WRITE, start, size)
+                    : ByteBuffer.allocateDirect(size);
+            segments[i] = buffer.order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Cria uma grade nova com terreno aleatório.
+     * @param depth Número de linhas.
+     * @param width Número de colunas.
+     * @param file Arquivo a mapear, ou null para usar memória anônima.
+     * @return A grade criada.
+     * @throws IOException Se o arquivo não puder ser criado ou mapeado.
+     */
+    public static OffHeapGrid create(int depth, int width, Path file) throws IOException {
+        long seed = Randomizer.getRandom().nextLong();
+        OffHeapGrid grid;
+        if (file == null) {
+            grid = new OffHeapGrid(depth, width, seed, null);
+        } else {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(0); // começa de um arquivo vazio (e esparso no disco)
+                grid = new OffHeapGrid(depth, width, seed, raf.getChannel());
+            }
+        }
+        grid.putLong(0, MAGIC);
+        grid.putInt(8, VERSION);
+        grid.putInt(12, depth);
+        grid.putInt(16, width);
+        grid.putInt(CURRENT_PAGE_OFFSET, 0);
+        grid.putLong(24, seed);
+        grid.generateTerrain();
+        return grid;
+    }
+
+    /**
+     * Reabre uma grade salva em arquivo, mapeando-o de novo na memória.
+     * @param file O arquivo criado por {@link #create(int, int, Path)}.
+     * @return A grade com o terreno e a página atual preservados.
+     * @throws IOException Se o arquivo não existir ou não for uma grade válida.
+     */
+    public static OffHeapGrid open(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            raf.getChannel().read(header, 0);
+            if (raf.length() < HEADER_BYTES || header.getLong(0) != MAGIC) {
+                throw new IOException("Arquivo de grade inválido: " + file);
+            }
+            if (header.getInt(8) != VERSION) {
+                throw new IOException("Versão de grade não suportada: " + header.getInt(8));
+            }
+            return new OffHeapGrid(header.getInt(12), header.getInt(16), header.getLong(24), raf.getChannel());
+        }
+    }
+
+    /** @return Profundidade (linhas) da grade. */
+    public int getDepth() { return depth; }
+
+    /** @return Largura (colunas) da grade. */
+    public int getWidth() { return width; }
+
+    /** @return A semente do terreno (identifica o terreno). */
+    public long getTerrainSeed() { return terrainSeed; }
+
+    /** @return A página que guarda o campo atual. */
+    public int getCurrentPage() {
+        return getInt(CURRENT_PAGE_OFFSET);
+    }
+
+    /**
+     * Registra qual página guarda o campo atual (gravado no cabeçalho).
+     * @param page 0 ou 1.
+     */
+    public void setCurrentPage(int page) {
+        putInt(CURRENT_PAGE_OFFSET, page);
+    }
+
+    /**
+     * Grava no disco as alterações pendentes (só tem efeito em grades mapeadas).
+     */
+    public void flush() {
+        if (!mapped) return;
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    // Terreno
+
+    /**
+     * @return O terreno da célula (linha, coluna).
+     */
+    public Terrain getTerrain(int row, int col) {
+        return TERRAINS[getByte(terrainOffset + (long) row * width + col)];
+    }
+
+    /**
+     * Gera o terreno com as mesmas proporções do campo em memória.
+     */
+    private void generateTerrain() {
+        Random rand = new Random(terrainSeed);
+        long cells = (long) depth * width;
+        for (long i = 0; i < cells; i++) {
+            putByte(terrainOffset + i, (byte) Field.terrainFor(rand.nextDouble()).ordinal());
+        }
+    }
+
+    // Páginas de ocupação
+
+    /**
+     * @return O id do ocupante da célula na página (0 = vazia).
+     */
+    public int getOccupant(int page, int row, int col) {
+        return getInt(pageOffsets[page] + ((long) row * width + col) * Integer.BYTES);
+    }
+
+    /**
+     * Define o id do ocupante da célula na página.
+     */
+    public void setOccupant(int page, int row, int col, int id) {
+        putInt(pageOffsets[page] + ((long) row * width + col) * Integer.BYTES, id);
+    }
+
+    /**
+     * Lê uma palavra de bitboard.
+     * @param page A página.
+     * @param layer -1 para ocupação geral, ou o ordinal da espécie.
+     * @param chunk O índice do bloco (em ordem de linha).
+     * @param chunkRow A linha dentro do bloco.
+     * @return A palavra com os 64 bits da linha do bloco.
+     */
+    public long getWord(int page, int layer, long chunk, int chunkRow) {
+        return getLong(wordOffset(page, layer, chunk, chunkRow));
+    }
+
+    /**
+     * Grava uma palavra de bitboard (mesmos parâmetros de {@link #getWord}).
+     */
+    public void setWord(int page, int layer, long chunk, int chunkRow, long word) {
+        putLong(wordOffset(page, layer, chunk, chunkRow), word);
+    }
+
+    /** @return O número de blocos de 64x64 da grade. */
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Esvazia uma página. Só as células marcadas no bitboard de ocupação são visitadas,
+     * então o custo é proporcional à área / 64 mais a população.
+     * @param page A página a limpar.
+     */
+    public void clearPage(int page) {
+        int chunkCols = (width + Field.CHUNK_SIZE - 1) / Field.CHUNK_SIZE;
+        for (long chunk = 0; chunk < chunkCount; chunk++) {
+            for (int r = 0; r < Field.CHUNK_SIZE; r++) {
+                long occupied = getWord(page, -1, chunk, r);
+                if (occupied == 0) continue;
+
+                int row = (int) (chunk / chunkCols) * Field.CHUNK_SIZE + r;
+                int colBase = (int) (chunk % chunkCols) * Field.CHUNK_SIZE;
+                for (long m = occupied; m != 0; m &= m - 1) {
+                    setOccupant(page, row, colBase + Long.numberOfTrailingZeros(m), 0);
+                }
+                for (int layer = -1; layer < Species.count(); layer++) {
+                    setWord(page, layer, chunk, r, 0L);
+                }
+            }
+        }
+    }
+
+    // Acesso aos segmentos
+
+    private long wordOffset(int page, int layer, long chunk, int chunkRow) {
+        return pageOffsets[page] + bitsOffset
+             + ((chunk * LAYERS + layer + 1) * Field.CHUNK_SIZE + chunkRow) * Long.BYTES;
+    }
+
+    private static long align(long offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private byte getByte(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    private void putByte(long offset, byte value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].put((int) (offset & SEGMENT_MASK), value);
+    }
+
+    private int getInt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+    }
+
+    private void putInt(long offset, int value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putInt((int) (offset & SEGMENT_MASK), value);
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+
+    private void putLong(long offset, long value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & SEGMENT_MASK), value);
+    }
+}
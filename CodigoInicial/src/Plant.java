@@ -30,13 +30,16 @@ public enum Plant implements Actor {
     /**
      * Ação da planta em um passo de simulação.
      * A planta se copia para o updatedField (se sobreviver à lógica de morte no Simulator).
+     * A localização é a da última planta desta constante posta no campo, então a cópia
+     * só é feita se a planta ainda estiver lá no campo atual (não foi comida), e a célula
+     * é reivindicada com {@link Field#claim}, sem sobrescrever um animal que já chegou.
      */
     @Override
     public void act(Field currentField, Field updatedField, List<Actor> newActors) {
         // A planta não tem lógica de mover/morrer/reproduzir aqui.
         // Ela se replica para o updatedField, se o Simulator não a removeu.
-        if (location != null) {
-            updatedField.place(this, location);
+        if (location != null && currentField.getObjectAt(location) == this) {
+            updatedField.claim(this, location);
         }
     }
     
@@ -53,4 +56,10 @@ public enum Plant implements Actor {
     public void setLocation(Location location) {
         this.location = location;
     }
+
+    /** @return A espécie comum a todas as plantas. */
+    @Override
+    public Species getSpecies() {
+        return Species.PLANT;
+    }
 }
\ No newline at end of file
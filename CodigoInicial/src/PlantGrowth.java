@@ -0,0 +1,127 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Núcleos de crescimento de plantas sobre um bloco do campo.
+ * <p>
+ * O núcleo escalar sorteia um {@code double} por célula livre, como o simulador
+ * sempre fez. O núcleo em bits (bit-sliced) trata as 64 células de uma linha de bloco
+ * de uma vez: a máscara de células livres vem do bitboard de ocupação, e os sorteios
+ * viram palavras aleatórias de 64 bits em que cada bit vale 1 com a probabilidade
+ * pedida (ver {@link #bernoulliWord}). Com a probabilidade de crescimento 0.25 isso
+ * custa duas palavras aleatórias por linha, mais uma para escolher a espécie da planta,
+ * em vez de até 64 sorteios de {@code double}.
+ * <p>
+ * Os dois núcleos seguem a mesma distribuição, mas consomem o gerador de forma
+ * diferente: a mesma semente não produz o mesmo campo com núcleos diferentes.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class PlantGrowth {
+
+    /** Bits de precisão usados para aproximar a probabilidade em {@link #bernoulliWord}. */
+    private static final int PRECISION_BITS = 32;
+
+    /**
+     * Construtor privado: classe utilitária.
+     */
+    private PlantGrowth() {
+    }
+
+    /**
+     * Faz crescer plantas nas células livres de um bloco, uma célula por vez.
+     * @param field O campo de destino.
+     * @param chunkRow A linha do bloco.
+     * @param chunkCol A coluna do bloco.
+     * @param probability A probabilidade de crescer em cada célula livre.
+     * @param rand O gerador de números aleatórios.
+     * @param actors A lista de atores que recebe as novas plantas.
+     */
+    public static void growScalar(Field field, int chunkRow, int chunkCol, double probability,
+                                  Random rand, List<Actor> actors) {
+        int rowEnd = Math.min((chunkRow + 1) * Field.CHUNK_SIZE, field.getDepth());
+        int colEnd = Math.min((chunkCol + 1) * Field.CHUNK_SIZE, field.getWidth());
+        for (int row = chunkRow * Field.CHUNK_SIZE; row < rowEnd; row++) {
+            for (int col = chunkCol * Field.CHUNK_SIZE; col < colEnd; col++) {
+                if (!field.isOccupied(row, col)) {
+                    if (rand.nextDouble() <= probability) {
+                        Location location = field.locationAt(row, col);
+                        Plant newPlant = rand.nextBoolean() ? Plant.ROSEMARY : Plant.SAGE;
+
+                        newPlant.setLocation(location);
+                        field.place(newPlant, location);
+                        actors.add(newPlant);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Faz crescer plantas nas células livres de um bloco, 64 células por operação.
+     * Cada planta criada entra na lista de atores, como no núcleo escalar, e cada
+     * espécie de planta fica com a localização da última célula em que cresceu.
+     * @param field O campo de destino.
+     * @param chunkRow A linha do bloco.
+     * @param chunkCol A coluna do bloco.
+     * @param probability A probabilidade de crescer em cada célula livre.
+     * @param rand O gerador de números aleatórios.
+     * @param actors A lista de atores que recebe as novas plantas.
+     */
+    public static void growBitSliced(Field field, int chunkRow, int chunkCol, double probability,
+                                     Random rand, List<Actor> actors) {
+        int rowEnd = Math.min((chunkRow + 1) * Field.CHUNK_SIZE, field.getDepth());
+        int colStart = chunkCol * Field.CHUNK_SIZE;
+        int rosemaryRow = -1, rosemaryCol = 0, sageRow = -1, sageCol = 0;
+
+        for (int row = chunkRow * Field.CHUNK_SIZE; row < rowEnd; row++) {
+            long free = field.freeCellsInRow(row, chunkCol);
+            if (free == 0) continue;
+            long grown = free & bernoulliWord(probability, rand);
+            if (grown == 0) continue;
+
+            long rosemary = grown & rand.nextLong();
+            long sage = grown & ~rosemary;
+            field.placeInRow(Plant.ROSEMARY, row, chunkCol, rosemary);
+            field.placeInRow(Plant.SAGE, row, chunkCol, sage);
+            if (rosemary != 0) {
+                rosemaryRow = row;
+                rosemaryCol = colStart + 63 - Long.numberOfLeadingZeros(rosemary);
+            }
+            if (sage != 0) {
+                sageRow = row;
+                sageCol = colStart + 63 - Long.numberOfLeadingZeros(sage);
+            }
+            for (int i = Long.bitCount(rosemary); i > 0; i--) actors.add(Plant.ROSEMARY);
+            for (int i = Long.bitCount(sage); i > 0; i--) actors.add(Plant.SAGE);
+        }
+        if (rosemaryRow >= 0) Plant.ROSEMARY.setLocation(field.locationAt(rosemaryRow, rosemaryCol));
+        if (sageRow >= 0) Plant.SAGE.setLocation(field.locationAt(sageRow, sageCol));
+    }
+
+    /**
+     * Sorteia uma palavra de 64 bits em que cada bit, de forma independente, vale 1
+     * com a probabilidade dada (aproximada em 32 bits binários). Percorre os dígitos
+     * binários da probabilidade do menos para o mais significativo, combinando uma
+     * palavra aleatória por dígito: OU para dígito 1, E para dígito 0. Potências de
+     * 1/2 saem exatas e baratas (0.25 usa duas palavras).
+     * @param probability A probabilidade de cada bit, entre 0 e 1.
+     * @param rand O gerador de números aleatórios.
+     * @return A palavra sorteada.
+     */
+    public static long bernoulliWord(double probability, Random rand) {
+        if (probability <= 0) return 0;
+        if (probability >= 1) return -1L;
+        long digits = (long) (probability * (1L << PRECISION_BITS));
+        if (digits == 0) return 0;
+        // Dígitos zero abaixo do primeiro dígito 1 não mudam o resultado
+        int lowest = Long.numberOfTrailingZeros(digits);
+        long word = 0;
+        for (int bit = lowest; bit < PRECISION_BITS; bit++) {
+            long r = rand.nextLong();
+            word = ((digits >>> bit) & 1) != 0 ? (word | r) : (word & r);
+        }
+        return word;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compara os núcleos de crescimento de plantas de {@link PlantGrowth} (escalar e em
+ * bits) sobre campos densos de vários tamanhos. Cada medida é uma passada completa
+ * de crescimento sobre um campo com a ocupação inicial pedida.
+ * <p>
+ * Uso: {@code java PlantGrowthBenchmark [tamanhos=512,1024,2048] [repeticoes=10] [ocupacao=0.3]}
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class PlantGrowthBenchmark {
+
+    /**
+     * Ponto de entrada.
+     * @param args Tamanhos separados por vírgula, repetições e ocupação inicial.
+     */
+    public static void main(String[] args) {
+        String sizes = args.length > 0 ? args[0] : "512,1024,2048";
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        double occupancy = args.length > 2 ? Double.parseDouble(args[2]) : 0.3;
+
+        System.out.println("| Tamanho | Escalar (ms) | Em bits (ms) | Ganho |");
+        System.out.println("|---:|---:|---:|---:|");
+        for (String size : sizes.split(",")) {
+            int n = Integer.parseInt(size.trim());
+            Field field = new Field(n, n, false);
+            Field occupied = new Field(field);
+            Random rand = new Random(42);
+            // Ocupação fixa (coelhos) que as plantas não podem substituir
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    if (rand.nextDouble() < occupancy) {
+                        occupied.place(new Rabbit(), occupied.locationAt(row, col));
+                    }
+                }
+            }
+            double scalar = measure(field, occupied, false, repetitions, rand);
+            double bitSliced = measure(field, occupied, true, repetitions, rand);
+            System.out.println(String.format(Locale.ROOT, "| %d | %.2f | %.2f | %.1fx |",
+                                             n, scalar, bitSliced, scalar / bitSliced));
+        }
+    }
+
+    /**
+     * Mede o tempo médio de uma passada de crescimento, depois de um aquecimento.
+     * @return Milissegundos por passada.
+     */
+    private static double measure(Field field, Field occupied, boolean bitSliced, int repetitions, Random rand) {
+        List<Actor> actors = new ArrayList<>();
+        long total = 0;
+        for (int i = -3; i < repetitions; i++) {
+            copyOccupancy(occupied, field);
+            actors.clear();
+            long start = System.nanoTime();
+            for (int chunkRow = 0; chunkRow < field.getChunkRows(); chunkRow++) {
+                for (int chunkCol = 0; chunkCol < field.getChunkCols(); chunkCol++) {
+                    if (bitSliced) {
+                        PlantGrowth.growBitSliced(field, chunkRow, chunkCol, Simulator.PLANT_GROWTH_PROBABILITY,
+                                                  rand, actors);
+                    } else {
+                        PlantGrowth.growScalar(field, chunkRow, chunkCol, Simulator.PLANT_GROWTH_PROBABILITY,
+                                               rand, actors);
+                    }
+                }
+            }
+            if (i >= 0) total += System.nanoTime() - start;
+        }
+        return total / 1e6 / repetitions;
+    }
+
+    /**
+     * Refaz o campo de teste com a ocupação fixa, sem as plantas da passada anterior.
+     */
+    private static void copyOccupancy(Field from, Field to) {
+        to.clear();
+        for (int row = 0; row < from.getDepth(); row++) {
+            for (int col = 0; col < from.getWidth(); col++) {
+                if (from.isOccupied(row, col)) {
+                    Location location = from.locationAt(row, col);
+                    to.place(from.getObjectAt(location), location);
+                }
+            }
+        }
+    }
+}
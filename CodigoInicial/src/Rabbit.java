@@ -1,4 +1,3 @@
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,11 +22,11 @@ public class Rabbit extends Animal {
     }
     
     /**
-     * Define se o coelho pode comer o objeto fornecido.
+     * Retorna a espécie do coelho, usada na matriz de dietas.
      */
     @Override
-    public boolean canEat(Object obj) {
-        return obj instanceof Plant;
+    public Species getSpecies() {
+        return Species.RABBIT;
     }
 
     /**
@@ -36,18 +35,17 @@ public class Rabbit extends Animal {
     @Override
     public Location findFood(Field currentField) {
         
-        List<Location> adjacentList = currentField.adjacentLocations(getLocation()); 
-        Collections.shuffle(adjacentList, rand);
+        int candidates = currentField.adjacentMaskOf(getLocation(), Diet.getPreyMask(getSpecies()));
         
-        for (Location where : adjacentList) {
+        while (candidates != 0) {
+            int bit = currentField.randomBit(candidates);
+            candidates &= ~(1 << bit);
+            Location where = currentField.neighbourLocation(getLocation(), bit);
             Object obj = currentField.getObjectAt(where);
             
-            if (canEat(obj)) {
-                Plant plantFound = (Plant) obj;
-                
-                setFoodLevel(getFoodLevel() + plantFound.getFoodValue());
-                currentField.clear(where);
-                
+            if (canEat(obj) && eat(currentField, where, obj)) {
+                // Um animal na dieta (ver Diet) vale a média das plantas
+                setFoodLevel(getFoodLevel() + (obj instanceof Plant plantFound ? plantFound.getFoodValue() : getFoodValue()));
                 return where;
             }
         }
@@ -66,6 +64,9 @@ public class Rabbit extends Animal {
         giveBirth(currentField, updatedField, newActors);
 
         Location nextLocation = findFood(currentField);
+        if (nextLocation == null) {
+            nextLocation = approachPrey(currentField);
+        }
         if (nextLocation == null) {
             nextLocation = currentField.freeAdjacentLocation(getLocation());
         }
@@ -79,17 +80,15 @@ public class Rabbit extends Animal {
     private void attemptMove(Field currentField, Field updatedField, Location nextLocation) {
         if (nextLocation != null) {
             Terrain terrain = currentField.getTerrainAt(nextLocation);
-            String actorName = this.getClass().getSimpleName();
-            
-            if (!Barriers.isForbidden(actorName, terrain)) {
-                updatedField.clear(getLocation()); 
-                setLocation(nextLocation);
-                updatedField.place(this, nextLocation);
+            if (!Barriers.isForbidden(getSpecies(), terrain)) {
+                updatedField.clear(getLocation(), this);
+                moveTo(currentField, updatedField, nextLocation);
             } else {
-                updatedField.place(this, getLocation());
+                SimulationEvents.recordBlockedMove();
+                stay(currentField, updatedField);
             }
         } else {
-            updatedField.place(this, getLocation());
+            stay(currentField, updatedField);
         }
     }
 
@@ -98,17 +97,24 @@ public class Rabbit extends Animal {
      */
     @Override
     public void giveBirth(Field currentField, Field updatedField, List<Actor> newActors) {
-        List<Location> freeLocations = currentField.getFreeAdjacent(getLocation());
-        int births = breed();
+        int free = currentField.freeAdjacentMask(getLocation());
+        int births = breed(currentField);
         
-        for (int i = 0; i < births && !freeLocations.isEmpty(); i++) {
-            Location newLoc = freeLocations.remove(0);
+        int born = 0;
+        while (born < births && free != 0) {
+            int bit = currentField.randomBit(free);
+            free &= ~(1 << bit);
+            Location newLoc = currentField.neighbourLocation(getLocation(), bit);
             
-            Rabbit newAnimal = new Rabbit();
+            Rabbit newAnimal = (Rabbit) AnimalPool.obtain(Species.RABBIT);
+            // Célula já tomada no campo de destino: o filhote tenta a próxima livre
+            if (!updatedField.claim(newAnimal, newLoc)) {
+                AnimalPool.release(newAnimal);
+                continue;
+            }
             newAnimal.setLocation(newLoc);
-            
-            updatedField.place(newAnimal, newLoc);
             newActors.add(newAnimal);
+            born++;
         }
     }
 
@@ -132,4 +138,13 @@ public class Rabbit extends Animal {
     public int getMaxLitterSize() { 
         return MAX_LITTER_SIZE; 
     }
+    /** O coelho soma à reserva o alimento da planta comida; aqui, a média das plantas. */
+    @Override
+    public int getFoodValue() {
+        int total = 0;
+        for (Plant plant : Plant.values()) {
+            total += plant.getFoodValue();
+        }
+        return total / Plant.values().length;
+    }
 }
\ No newline at end of file
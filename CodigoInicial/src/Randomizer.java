@@ -0,0 +1,52 @@
+import java.util.Random;
+
+/**
+ * Fornece o gerador de números aleatórios compartilhado por toda a simulação.
+ * Centralizar o gerador permite repetir uma execução a partir de uma semente,
+ * o que é necessário para comparar execuções divididas em processos.
+ * @author Grupo 1
+ * @version 2025
+ */
+public class Randomizer {
+
+    /** O gerador compartilhado (sem semente fixa por padrão). */
+    private static final Random RAND = new Random();
+
+    /**
+     * Construtor privado: classe utilitária.
+     */
+    private Randomizer() {
+    }
+
+    /**
+     * @return O gerador de números aleatórios compartilhado.
+     */
+    public static Random getRandom() {
+        return RAND;
+    }
+
+    /**
+     * Reinicia o gerador compartilhado com uma semente.
+     * @param seed A semente.
+     */
+    public static void setSeed(long seed) {
+        RAND.setSeed(seed);
+    }
+
+    /**
+     * Deriva uma semente a partir de vários valores (ex: semente, faixa, passo),
+     * usando o misturador do SplitMix64.
+     * @param values Os valores a combinar.
+     * @return A semente derivada.
+     */
+    public static long mix(long... values) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long v : values) {
+            h += v * 0x9E3779B97F4A7C15L;
+            h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h ^= h >>> 31;
+        }
+        return h;
+    }
+}
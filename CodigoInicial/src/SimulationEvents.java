@@ -0,0 +1,311 @@
+import java.util.Arrays;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Eventos do Java Flight Recorder (JFR) para medir onde o tempo de cada passo é
+ * gasto e o que acontece no ecossistema (nascimentos, mortes por causa, movimentos
+ * bloqueados por {@link Barriers}).
+ * <p>
+ * Todos os eventos vêm desligados. Para gravá-los, use as configurações do arquivo
+ * {@code ecossistema.jfc}, por exemplo:
+ * {@code java -XX:StartFlightRecording:settings=default,settings=ecossistema.jfc,filename=sim.jfr Main}.
+ * Com os eventos desligados, nenhum objeto de evento é criado e o custo é uma
+ * leitura de flag por fase e por contagem.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class SimulationEvents {
+
+    /** Duração de um passo inteiro da simulação. */
+    @Name("ecossistema.Step")
+    @Label("Passo")
+    @Category("Ecossistema")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class StepEvent extends Event {
+        @Label("Passo")
+        int step;
+        @Label("Atores")
+        int actors;
+    }
+
+    /** Duração de uma fase do passo: atores, plantas, estatísticas ou desenho. */
+    @Name("ecossistema.StepPhase")
+    @Label("Fase do passo")
+    @Category("Ecossistema")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class PhaseEvent extends Event {
+        @Label("Passo")
+        int step;
+        @Label("Fase")
+        String phase;
+    }
+
+    /** Tempo somado, em um passo, de uma atividade espalhada pelo laço de atores. */
+    @Name("ecossistema.ActTime")
+    @Label("Tempo acumulado no passo")
+    @Description("Tempo total de act() por espécie, ou da remoção de atores mortos")
+    @Category("Ecossistema")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class ActTimeEvent extends Event {
+        @Label("Passo")
+        int step;
+        @Label("Atividade")
+        String activity;
+        @Label("Chamadas")
+        int calls;
+        @Label("Tempo total")
+        @Timespan(Timespan.NANOSECONDS)
+        long totalTime;
+    }
+
+    /** Resumo ecológico de um passo. */
+    @Name("ecossistema.Ecology")
+    @Label("Eventos ecológicos")
+    @Category("Ecossistema")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class EcologyEvent extends Event {
+        @Label("Passo")
+        int step;
+        @Label("Nascimentos")
+        int births;
+        @Label("Mortes por idade")
+        int deathsByAge;
+        @Label("Mortes por fome")
+        int deathsByStarvation;
+        @Label("Mortes por predação")
+        int deathsByPredation;
+        @Label("Mortes por falta de espaço")
+        int deathsByCrowding;
+        @Label("Movimentos bloqueados")
+        int blockedMoves;
+    }
+
+    /** Presas mortas por uma espécie predadora em um passo. */
+    @Name("ecossistema.Predation")
+    @Label("Predação")
+    @Category("Ecossistema")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class PredationEvent extends Event {
+        @Label("Passo")
+        int step;
+        @Label("Predador")
+        String predator;
+        @Label("Presas")
+        int kills;
+    }
+
+    /** Nome da atividade de remoção no {@link ActTimeEvent}. */
+    public static final String REMOVAL = "remocao";
+
+    private static final EventType STEP_TYPE = EventType.getEventType(StepEvent.class);
+    private static final EventType PHASE_TYPE = EventType.getEventType(PhaseEvent.class);
+    private static final EventType ACT_TIME_TYPE = EventType.getEventType(ActTimeEvent.class);
+    private static final EventType ECOLOGY_TYPE = EventType.getEventType(EcologyEvent.class);
+    private static final EventType PREDATION_TYPE = EventType.getEventType(PredationEvent.class);
+
+    // Eventos ligados (lidos do JFR no início de cada passo, iguais para todas as threads)
+    private static boolean phaseEnabled;
+    private static boolean ecologyEnabled;
+    private static boolean actTimeEnabled;
+
+    /**
+     * Contadores do passo atual (só atualizados quando os eventos estão ligados).
+     * Cada thread tem os seus, como no {@link AnimalPool}: simulações em threads
+     * diferentes (ex: as ilhas do {@link IslandModel}) não misturam as contagens.
+     */
+    private static final class StepCounters {
+        int deathsByAge;
+        int deathsByStarvation;
+        int deathsByCrowding;
+        int blockedMoves;
+        final int[] kills = new int[Species.count()];
+        final int[] actCalls = new int[Species.count()];
+        final long[] actNanos = new long[Species.count()];
+        int removalCalls;
+        long removalNanos;
+    }
+
+    private static final ThreadLocal<StepCounters> COUNTERS = ThreadLocal.withInitial(StepCounters::new);
+
+    /**
+     * Construtor privado: classe utilitária.
+     */
+    private SimulationEvents() {
+    }
+
+    /**
+     * Prepara os contadores para um novo passo, verificando quais eventos estão ligados.
+     * @return O evento do passo já iniciado, ou null se o evento estiver desligado.
+     */
+    public static StepEvent beginStep() {
+        phaseEnabled = PHASE_TYPE.isEnabled();
+        ecologyEnabled = ECOLOGY_TYPE.isEnabled() || PREDATION_TYPE.isEnabled();
+        actTimeEnabled = ACT_TIME_TYPE.isEnabled();
+        StepCounters counters = COUNTERS.get();
+        counters.deathsByAge = 0;
+        counters.deathsByStarvation = 0;
+        counters.deathsByCrowding = 0;
+        counters.blockedMoves = 0;
+        counters.removalCalls = 0;
+        counters.removalNanos = 0;
+        Arrays.fill(counters.kills, 0);
+        Arrays.fill(counters.actCalls, 0);
+        Arrays.fill(counters.actNanos, 0L);
+
+        if (!STEP_TYPE.isEnabled()) return null;
+        StepEvent event = new StepEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Inicia a medição de uma fase do passo.
+     * @return O evento da fase já iniciado, ou null se o evento estiver desligado.
+     */
+    public static PhaseEvent beginPhase() {
+        if (!phaseEnabled) return null;
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    /** @return true se o tempo de act() por espécie deve ser medido neste passo. */
+    public static boolean isActTimeEnabled() {
+        return actTimeEnabled;
+    }
+
+    /** Soma o tempo de uma chamada de act() de um ator. */
+    public static void recordAct(Species species, long nanos) {
+        StepCounters counters = COUNTERS.get();
+        counters.actCalls[species.ordinal()]++;
+        counters.actNanos[species.ordinal()] += nanos;
+    }
+
+    /** Soma o tempo de uma remoção de ator. */
+    public static void recordRemoval(long nanos) {
+        StepCounters counters = COUNTERS.get();
+        counters.removalCalls++;
+        counters.removalNanos += nanos;
+    }
+
+    /** Registra a morte de um animal por idade. */
+    public static void recordDeathByAge() {
+        if (ecologyEnabled) COUNTERS.get().deathsByAge++;
+    }
+
+    /** Registra a morte de um animal por fome. */
+    public static void recordDeathByStarvation() {
+        if (ecologyEnabled) COUNTERS.get().deathsByStarvation++;
+    }
+
+    /** Registra a morte de um animal que não achou célula no campo de destino (sem espaço). */
+    public static void recordDeathByCrowding() {
+        if (ecologyEnabled) COUNTERS.get().deathsByCrowding++;
+    }
+
+    /** Registra uma presa morta por um predador. */
+    public static void recordPredation(Species predator) {
+        if (ecologyEnabled) COUNTERS.get().kills[predator.ordinal()]++;
+    }
+
+    /** Registra um movimento impedido pelo terreno. */
+    public static void recordBlockedMove() {
+        if (ecologyEnabled) COUNTERS.get().blockedMoves++;
+    }
+
+    /**
+     * Termina e grava um evento de fase, se estiver ligado.
+     * @param event O evento de {@link #beginPhase()} (pode ser null).
+     * @param phase O nome da fase.
+     * @param step O passo atual.
+     */
+    public static void commitPhase(PhaseEvent event, String phase, int step) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.step = step;
+            event.commit();
+        }
+    }
+
+    /**
+     * Grava os eventos agregados do passo.
+     * @param stepEvent O evento de {@link #beginStep()} (pode ser null).
+     * @param step O passo atual.
+     * @param actors O número de atores ao fim do passo.
+     * @param births O número de nascimentos no passo.
+     */
+    public static void endStep(StepEvent stepEvent, int step, int actors, int births) {
+        if (stepEvent != null) {
+            stepEvent.end();
+        }
+        if (stepEvent != null && stepEvent.shouldCommit()) {
+            stepEvent.step = step;
+            stepEvent.actors = actors;
+            stepEvent.commit();
+        }
+
+        StepCounters counters = COUNTERS.get();
+        if (actTimeEnabled) {
+            for (int id = 0; id < counters.actCalls.length; id++) {
+                if (counters.actCalls[id] > 0) {
+                    commitActTime(step, Species.byId(id).getDisplayName(), counters.actCalls[id],
+                                  counters.actNanos[id]);
+                }
+            }
+            commitActTime(step, REMOVAL, counters.removalCalls, counters.removalNanos);
+        }
+
+        if (!ecologyEnabled) return;
+        EcologyEvent ecology = new EcologyEvent();
+        if (ecology.shouldCommit()) {
+            int predation = 0;
+            for (int k : counters.kills) predation += k;
+            ecology.step = step;
+            ecology.births = births;
+            ecology.deathsByAge = counters.deathsByAge;
+            ecology.deathsByStarvation = counters.deathsByStarvation;
+            ecology.deathsByPredation = predation;
+            ecology.deathsByCrowding = counters.deathsByCrowding;
+            ecology.blockedMoves = counters.blockedMoves;
+            ecology.commit();
+        }
+        for (int id = 0; id < counters.kills.length; id++) {
+            if (counters.kills[id] == 0) continue;
+            PredationEvent predation = new PredationEvent();
+            if (predation.shouldCommit()) {
+                predation.step = step;
+                predation.predator = Species.byId(id).getDisplayName();
+                predation.kills = counters.kills[id];
+                predation.commit();
+            }
+        }
+    }
+
+    private static void commitActTime(int step, String activity, int calls, long nanos) {
+        ActTimeEvent event = new ActTimeEvent();
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.activity = activity;
+            event.calls = calls;
+            event.totalTime = nanos;
+            event.commit();
+        }
+    }
+}
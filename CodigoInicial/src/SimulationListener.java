@@ -0,0 +1,93 @@
+/**
+ * Observador dos eventos de uma simulação: início e fim de passo, nascimentos,
+ * mortes e movimentos. Registrado com {@link Simulator#addListener}, recebe os eventos
+ * na sua própria thread, pela fila de {@link SimulationListeners}, e nunca atrasa o
+ * passo: um ouvinte lento demais perde os eventos mais antigos e é avisado por
+ * {@link #eventsDropped(long)}.
+ * <p>
+ * Os eventos só trazem valores (passo, espécie, coordenadas), não o campo, que
+ * continua mudando enquanto o ouvinte trabalha. Todos os métodos têm implementação
+ * vazia; basta sobrescrever os que interessam e declarar em {@link #getEventMask()}
+ * quais tipos de evento devem ser gerados.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public interface SimulationListener {
+
+    /** Tipo de evento: início de passo. */
+    int STEP_STARTED = 1;
+    /** Tipo de evento: fim de passo. */
+    int STEP_ENDED = 1 << 1;
+    /** Tipo de evento: nascimento. */
+    int BIRTH = 1 << 2;
+    /** Tipo de evento: morte (de animal ou planta). */
+    int DEATH = 1 << 3;
+    /** Tipo de evento: movimento de um animal. */
+    int MOVE = 1 << 4;
+    /** Todos os tipos de evento. */
+    int ALL_EVENTS = STEP_STARTED | STEP_ENDED | BIRTH | DEATH | MOVE;
+
+    /**
+     * Tipos de evento que este ouvinte quer receber. Tipos que nenhum ouvinte pede
+     * nem chegam a ser gerados pelo simulador.
+     * @return Uma combinação das constantes de tipo (padrão: todas).
+     */
+    default int getEventMask() {
+        return ALL_EVENTS;
+    }
+
+    /**
+     * Um passo começou.
+     * @param step O número do passo.
+     */
+    default void stepStarted(int step) {
+    }
+
+    /**
+     * Um passo terminou.
+     * @param step O número do passo.
+     * @param actors O número de atores ao fim do passo.
+     */
+    default void stepEnded(int step, int actors) {
+    }
+
+    /**
+     * Um ator nasceu.
+     * @param step O passo.
+     * @param species A espécie.
+     * @param row A linha onde nasceu.
+     * @param col A coluna onde nasceu.
+     */
+    default void born(int step, Species species, int row, int col) {
+    }
+
+    /**
+     * Um ator morreu ou foi removido.
+     * @param step O passo.
+     * @param species A espécie.
+     * @param row A última linha do ator (-1 se não estava no campo).
+     * @param col A última coluna do ator (-1 se não estava no campo).
+     */
+    default void died(int step, Species species, int row, int col) {
+    }
+
+    /**
+     * Um animal mudou de célula.
+     * @param step O passo.
+     * @param species A espécie.
+     * @param fromRow A linha de origem.
+     * @param fromCol A coluna de origem.
+     * @param toRow A linha de destino.
+     * @param toCol A coluna de destino.
+     */
+    default void moved(int step, Species species, int fromRow, int fromCol, int toRow, int toCol) {
+    }
+
+    /**
+     * O ouvinte ficou para trás e eventos foram sobrescritos na fila antes de serem lidos.
+     * @param count Quantos eventos foram perdidos.
+     */
+    default void eventsDropped(long count) {
+    }
+}
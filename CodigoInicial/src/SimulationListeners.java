@@ -0,0 +1,255 @@
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fila de eventos entre um {@link Simulator} e seus {@link SimulationListener}s.
+ * <p>
+ * Os eventos vão para um buffer circular alocado uma vez, em vetores de primitivos
+ * (um campo do evento por vetor), sem criar objetos por evento. Só a thread do passo
+ * escreve; cada ouvinte tem uma thread própria que lê a fila a partir da sua posição,
+ * então um ouvinte lento não atrasa nem o passo nem os outros ouvintes.
+ * <p>
+ * O escritor nunca espera: se um ouvinte ficar uma volta inteira para trás, os eventos
+ * mais antigos são sobrescritos e o ouvinte pula para o mais antigo ainda na fila,
+ * sendo avisado de quantos perdeu. Antes de escrever uma posição o escritor anuncia
+ * a escrita em {@link #claimed}; o leitor copia o evento e, em seguida, confere se
+ * nenhuma escrita chegou àquela posição enquanto copiava (o mesmo esquema de um
+ * seqlock).
+ * <p>
+ * Tipos de evento que nenhum ouvinte pede não são gerados (ver {@link #isEnabled(int)}),
+ * e sem ouvintes não há threads.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class SimulationListeners {
+
+    /** Capacidade padrão da fila, em eventos. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** Espera máxima de um ouvinte ocioso antes de olhar a fila de novo. */
+    private static final long IDLE_NANOS = 10_000_000L;
+
+    private final int capacity;
+    private final int mask;
+    // Campos dos eventos, por posição da fila
+    private final byte[] types;
+    private final byte[] species;
+    private final int[] steps;
+    private final int[] fromRows, fromCols, toRows, toCols;
+    /** Número de eventos cuja escrita já começou. */
+    private volatile long claimed;
+    /** Número de eventos já publicados (escritos por inteiro). */
+    private volatile long cursor;
+    /** União das máscaras de eventos dos ouvintes registrados. */
+    private volatile int enabledMask;
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private static final Species[] SPECIES = Species.values();
+
+    /**
+     * Leitor da fila de um ouvinte, na sua própria thread.
+     */
+    private class Consumer implements Runnable {
+        final SimulationListener listener;
+        final int eventMask;
+        final Thread thread;
+        /** Próximo evento a ler. */
+        volatile long sequence;
+        volatile boolean running = true;
+
+        Consumer(SimulationListener listener) {
+            this.listener = listener;
+            this.eventMask = listener.getEventMask();
+            this.sequence = cursor;
+            this.thread = new Thread(this, "ouvinte-" + listener.getClass().getSimpleName());
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence;
+            while (true) {
+                long available = cursor;
+                if (next >= available) {
+                    if (!running) return;
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                    continue;
+                }
+                long oldest = claimed - capacity;
+                if (next < oldest) {
+                    listener.eventsDropped(oldest - next);
+                    next = oldest;
+                    continue;
+                }
+                int i = (int) next & mask;
+                int type = types[i];
+                int step = steps[i];
+                int id = species[i];
+                int fromRow = fromRows[i], fromCol = fromCols[i], toRow = toRows[i], toCol = toCols[i];
+                VarHandle.loadLoadFence();
+                if (next < claimed - capacity) {
+                    continue; // sobrescrito durante a cópia: a próxima volta conta a perda
+                }
+                if ((type & eventMask) != 0) {
+                    deliver(listener, type, step, id, fromRow, fromCol, toRow, toCol);
+                }
+                sequence = ++next;
+            }
+        }
+    }
+
+    /**
+     * Cria uma fila com a capacidade padrão.
+     */
+    public SimulationListeners() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Cria uma fila.
+     * @param capacity O número de eventos que cabem na fila (arredondado para uma potência de 2).
+     */
+    public SimulationListeners(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacidade inválida para a fila de eventos: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        types = new byte[size];
+        species = new byte[size];
+        steps = new int[size];
+        fromRows = new int[size];
+        fromCols = new int[size];
+        toRows = new int[size];
+        toCols = new int[size];
+    }
+
+    /**
+     * Registra um ouvinte, que passa a receber os eventos publicados daqui em diante.
+     * @param listener O ouvinte.
+     */
+    public synchronized void add(SimulationListener listener) {
+        Consumer consumer = new Consumer(listener);
+        consumers.add(consumer);
+        enabledMask |= consumer.eventMask;
+        consumer.thread.start();
+    }
+
+    /**
+     * Remove um ouvinte. A thread dele entrega o que já estava na fila e termina.
+     * @param listener O ouvinte.
+     */
+    public synchronized void remove(SimulationListener listener) {
+        int mask = 0;
+        for (Consumer consumer : consumers) {
+            if (consumer.listener == listener) {
+                consumers.remove(consumer);
+                consumer.running = false;
+                LockSupport.unpark(consumer.thread);
+            } else {
+                mask |= consumer.eventMask;
+            }
+        }
+        enabledMask = mask;
+    }
+
+    /**
+     * @param type Um tipo de evento (constante de {@link SimulationListener}).
+     * @return true se algum ouvinte quer eventos desse tipo.
+     */
+    public boolean isEnabled(int type) {
+        return (enabledMask & type) != 0;
+    }
+
+    /** @return A capacidade da fila, em eventos. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Espera até todos os ouvintes terem lido os eventos já publicados (por exemplo,
+     * antes de fechar um arquivo exportado ao fim da simulação).
+     */
+    public void flush() {
+        long target = cursor;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+            while (consumer.sequence < target && consumer.thread.isAlive()) {
+                LockSupport.parkNanos(100_000L);
+            }
+        }
+    }
+
+    /** Publica o início de um passo. */
+    public void stepStarted(int step) {
+        publish(SimulationListener.STEP_STARTED, step, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Publica o fim de um passo e acorda os ouvintes.
+     * @param step O passo.
+     * @param actors O número de atores ao fim do passo.
+     */
+    public void stepEnded(int step, int actors) {
+        publish(SimulationListener.STEP_ENDED, step, 0, actors, 0, 0, 0);
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    /** Publica um nascimento. */
+    public void born(int step, Species species, Location location) {
+        publish(SimulationListener.BIRTH, step, species.ordinal(), 0, 0, location.getRow(), location.getCol());
+    }
+
+    /** Publica uma morte; a localização pode ser null. */
+    public void died(int step, Species species, Location location) {
+        int row = location != null ? location.getRow() : -1;
+        int col = location != null ? location.getCol() : -1;
+        publish(SimulationListener.DEATH, step, species.ordinal(), row, col, 0, 0);
+    }
+
+    /** Publica um movimento. */
+    public void moved(int step, Species species, Location from, Location to) {
+        publish(SimulationListener.MOVE, step, species.ordinal(),
+                from.getRow(), from.getCol(), to.getRow(), to.getCol());
+    }
+
+    /**
+     * Escreve um evento na próxima posição da fila (só a thread do passo escreve).
+     */
+    private void publish(int type, int step, int id, int fromRow, int fromCol, int toRow, int toCol) {
+        if ((enabledMask & type) == 0) return;
+        long sequence = cursor;
+        claimed = sequence + 1;
+        VarHandle.storeStoreFence();
+        int i = (int) sequence & mask;
+        types[i] = (byte) type;
+        steps[i] = step;
+        species[i] = (byte) id;
+        fromRows[i] = fromRow;
+        fromCols[i] = fromCol;
+        toRows[i] = toRow;
+        toCols[i] = toCol;
+        cursor = sequence + 1;
+    }
+
+    /**
+     * Chama o método do ouvinte correspondente ao tipo do evento. No fim de passo o
+     * número de atores vem no campo da linha de origem.
+     */
+    private static void deliver(SimulationListener listener, int type, int step, int id,
+                                int fromRow, int fromCol, int toRow, int toCol) {
+        switch (type) {
+            case SimulationListener.STEP_STARTED -> listener.stepStarted(step);
+            case SimulationListener.STEP_ENDED -> listener.stepEnded(step, fromRow);
+            case SimulationListener.BIRTH -> listener.born(step, SPECIES[id], toRow, toCol);
+            case SimulationListener.DEATH -> listener.died(step, SPECIES[id], fromRow, fromCol);
+            case SimulationListener.MOVE -> listener.moved(step, SPECIES[id], fromRow, fromCol, toRow, toCol);
+            default -> { }
+        }
+    }
+}
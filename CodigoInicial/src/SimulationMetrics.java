@@ -0,0 +1,260 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de uma simulação, publicadas como MBean no servidor JMX da plataforma.
+ * <p>
+ * Os contadores são {@link LongAdder} e os medidores são atômicos, sem travas:
+ * vários threads podem registrar passos ao mesmo tempo sem disputa, e o
+ * console JMX pode lê-los a qualquer momento sem parar a simulação.
+ * A latência p99 vem de um histograma com 4 faixas por potência de 2
+ * (erro de no máximo 19% para cima).
+ * <p>
+ * As populações e a ocupação não são contadas a cada passo: o passo só guarda o
+ * campo atual, e as contagens dos blocos são somadas quando o MBean é lido. Lidas
+ * durante um passo, elas podem já não incluir as presas comidas nele.
+ * <p>
+ * Uma simulação descartada deve chamar {@link #unregister()} (ver
+ * {@link Simulator#close()}), senão o servidor JMX continua segurando o MBean e,
+ * por ele, o campo guardado.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+
+    /** Domínio dos nomes JMX. */
+    public static final String DOMAIN = "ecossistema";
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder totalStepNanos = new LongAdder();
+    private final LongAdder totalAllocatedBytes = new LongAdder();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong lastStepNanos = new AtomicLong();
+    private final AtomicLong lastStepAllocatedBytes = new AtomicLong(-1);
+
+    // Janela da taxa de passos por segundo
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowSteps = new LongAdder();
+    private volatile double stepsPerSecond;
+
+    // Estado ao fim do último passo, contado só quando lido
+    private volatile Field stateField;
+    private volatile int stateActors;
+    /** Nome com que o MBean foi registrado (null se não está registrado). */
+    private volatile ObjectName name;
+
+    /** Mede alocações por thread, se a JVM oferecer (HotSpot oferece). */
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * Cria um conjunto de métricas sem registrá-lo no JMX.
+     */
+    public SimulationMetrics() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            allocationBean = sunBean;
+        } else {
+            allocationBean = null;
+        }
+    }
+
+    /**
+     * Cria um conjunto de métricas e o registra no servidor JMX da plataforma
+     * com o nome {@code ecossistema:type=Simulator,id=N}.
+     * Se o registro falhar, as métricas continuam funcionando, só não ficam visíveis.
+     * @return As métricas criadas.
+     */
+    public static SimulationMetrics register() {
+        SimulationMetrics metrics = new SimulationMetrics();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=Simulator,id=" + NEXT_ID.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            metrics.name = name;
+        } catch (JMException | SecurityException e) {
+            System.err.println("Aviso: Métricas JMX não registradas: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Retira o MBean do servidor JMX. As métricas continuam funcionando, só deixam
+     * de ficar visíveis. Chamar de novo não faz nada.
+     */
+    public void unregister() {
+        ObjectName registered = name;
+        if (registered == null) return;
+        name = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registered);
+        } catch (JMException | SecurityException e) {
+            System.err.println("Aviso: Métricas JMX não retiradas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Os bytes já alocados pelo thread atual, ou -1 se a JVM não medir.
+     *         Usado antes e depois de um passo para medir a alocação do passo.
+     */
+    public long currentThreadAllocatedBytes() {
+        if (allocationBean == null) return -1;
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Registra um passo executado.
+     * @param nanos A duração do passo.
+     * @param allocatedBytes Os bytes alocados no passo (negativo se desconhecido).
+     */
+    public void recordStep(long nanos, long allocatedBytes) {
+        steps.increment();
+        totalStepNanos.add(nanos);
+        lastStepNanos.set(nanos);
+        latencyHistogram.incrementAndGet(bucketOf(nanos));
+        if (allocatedBytes >= 0) {
+            totalAllocatedBytes.add(allocatedBytes);
+            lastStepAllocatedBytes.set(allocatedBytes);
+        }
+
+        windowSteps.increment();
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= RATE_WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            stepsPerSecond = windowSteps.sumThenReset() * 1e9 / (now - start);
+        }
+    }
+
+    /**
+     * Guarda o estado ao fim de um passo. As populações só são contadas quando lidas,
+     * pelas mesmas contagens por bloco usadas por {@link FieldStats}.
+     * @param field O campo atual.
+     * @param actors O número de atores ativos.
+     */
+    public void recordState(Field field, int actors) {
+        stateActors = actors;
+        stateField = field;
+    }
+
+    @Override
+    public long getSteps() {
+        return steps.sum();
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        // Sem passos por mais de duas janelas (simulação pausada), a taxa é zero
+        if (System.nanoTime() - windowStart.get() > 2 * RATE_WINDOW_NANOS) return 0;
+        return stepsPerSecond;
+    }
+
+    @Override
+    public double getMeanStepMillis() {
+        long count = steps.sum();
+        return count == 0 ? 0 : totalStepNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public double getP99StepMillis() {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyHistogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * 0.99);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return bucketUpperBound(i) / 1e6;
+        }
+        return bucketUpperBound(BUCKETS - 1) / 1e6;
+    }
+
+    @Override
+    public double getLastStepMillis() {
+        return lastStepNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getLastStepAllocatedBytes() {
+        return lastStepAllocatedBytes.get();
+    }
+
+    @Override
+    public long getMeanStepAllocatedBytes() {
+        long count = steps.sum();
+        if (allocationBean == null) return -1;
+        return count == 0 ? 0 : totalAllocatedBytes.sum() / count;
+    }
+
+    @Override
+    public long getActorCount() {
+        return stateActors;
+    }
+
+    @Override
+    public Map<String, Long> getPopulations() {
+        Field field = stateField;
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int id = 0; id < Species.count(); id++) {
+            result.put(Species.byId(id).getDisplayName(), field == null ? 0L : field.getCount(Species.byId(id)));
+        }
+        return result;
+    }
+
+    @Override
+    public double getOccupancy() {
+        Field field = stateField;
+        if (field == null) return 0;
+        return (double) field.getOccupiedCount() / Math.max(1L, (long) field.getDepth() * field.getWidth());
+    }
+
+    @Override
+    public void resetStatistics() {
+        steps.reset();
+        totalStepNanos.reset();
+        totalAllocatedBytes.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            latencyHistogram.set(i, 0);
+        }
+        lastStepNanos.set(0);
+        lastStepAllocatedBytes.set(-1);
+    }
+
+    /**
+     * Índice do histograma para uma duração: a potência de 2 e os dois bits seguintes.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(0, nanos);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int fraction = (int) (nanos >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, exponent * SUB_BUCKETS + fraction);
+    }
+
+    /**
+     * Maior duração que cai em um índice do histograma.
+     */
+    private static long bucketUpperBound(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        int fraction = bucket % SUB_BUCKETS;
+        if (exponent < 2) return bucket;
+        return ((long) (SUB_BUCKETS + fraction + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.Map;
+
+/**
+ * Interface de gerenciamento (JMX) das métricas de um {@link Simulator} em execução.
+ * Pode ser consultada no JConsole ou no VisualVM, na pasta "ecossistema".
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public interface SimulationMetricsMXBean {
+
+    /** @return O número de passos executados desde o início (ou desde o último reset). */
+    long getSteps();
+
+    /** @return Passos por segundo no último intervalo de um segundo. */
+    double getStepsPerSecond();
+
+    /** @return A latência média de um passo, em milissegundos. */
+    double getMeanStepMillis();
+
+    /** @return A latência de um passo no percentil 99, em milissegundos (aproximada). */
+    double getP99StepMillis();
+
+    /** @return A latência do último passo, em milissegundos. */
+    double getLastStepMillis();
+
+    /** @return Os bytes alocados no heap pelo último passo (-1 se a JVM não medir). */
+    long getLastStepAllocatedBytes();
+
+    /** @return A média de bytes alocados por passo (-1 se a JVM não medir). */
+    long getMeanStepAllocatedBytes();
+
+    /** @return O número de atores ativos ao fim do último passo. */
+    long getActorCount();
+
+    /** @return A população de cada espécie ao fim do último passo. */
+    Map<String, Long> getPopulations();
+
+    /** @return A fração das células do campo ocupadas (0 a 1). */
+    double getOccupancy();
+
+    /** Zera os contadores de passos, latência e alocação. */
+    void resetStatistics();
+}
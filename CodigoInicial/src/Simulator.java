@@ -1,7 +1,7 @@
 import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.awt.Color;
 
 /**
@@ -16,29 +16,70 @@ public class Simulator {
     private static final int DEFAULT_WIDTH = 50;
     private static final int DEFAULT_DEPTH = 50;
     
-    // Probabilidades de Criação
-    private static final double PLANT_CREATION_PROBABILITY = 0.15; 
-    private static final double RABBIT_CREATION_PROBABILITY = 0.20; 
-    private static final double FOX_CREATION_PROBABILITY = 0.05; 
-    private static final double WOLF_CREATION_PROBABILITY = 0.07; 
-    private static final double SNAKE_CREATION_PROBABILITY = 0.02; 
-    private static final double EAGLE_CREATION_PROBABILITY = 0.05; 
-    private static final double HUNTER_CREATION_PROBABILITY = 0.05; 
+    // Probabilidades de Criação (também usadas pelas faixas de Stripe)
+    static final double PLANT_CREATION_PROBABILITY = 0.15; 
+    static final double RABBIT_CREATION_PROBABILITY = 0.20; 
+    static final double FOX_CREATION_PROBABILITY = 0.05; 
+    static final double WOLF_CREATION_PROBABILITY = 0.07; 
+    static final double SNAKE_CREATION_PROBABILITY = 0.02; 
+    static final double EAGLE_CREATION_PROBABILITY = 0.05; 
+    static final double HUNTER_CREATION_PROBABILITY = 0.05; 
 
     // Dinâmica de Plantas 
-    private static final double PLANT_GROWTH_PROBABILITY = 0.25;
-    private static final double PLANT_DEATH_PROBABILITY = 0.05;
+    static final double PLANT_GROWTH_PROBABILITY = 0.25;
+    static final double PLANT_DEATH_PROBABILITY = 0.05;
+    /** Células sorteadas para um imigrante antes de desistir (ver {@link #immigrate}). */
+    private static final int IMMIGRATION_ATTEMPTS = 32;
+    /** Células sorteadas para cada agente criado a partir das contagens de um bloco. */
+    private static final int SPAWN_ATTEMPTS = 16;
 
     /** Lista de atores ativos na simulação (Animais e Plantas). */
-    private final List<Actor> actors;
+    private final ArrayList<Actor> actors;
     /** Campo da simulação (grade com objetos e terrenos). */
     public Field field; 
+    /** Campo do passo anterior, reaproveitado como campo de destino do próximo passo. */
+    private Field spareField;
+    /** Animais mortos no passo atual, devolvidos ao {@link AnimalPool} no fim do passo. */
+    private final ArrayList<Animal> deadAnimals = new ArrayList<>();
+    /** A cada quantos passos cada espécie age. */
+    private final UpdateSchedule schedule = new UpdateSchedule();
+    /** Espécies que agem no passo atual, indexadas pelo ordinal de {@link Species}. */
+    private final boolean[] due = new boolean[Species.count()];
+    /** Ordena os atores pela curva Z para que vizinhos na grade ajam em sequência. */
+    private final MortonSorter actorSorter = new MortonSorter();
+    /** A cada quantos passos a lista de atores é reordenada (0 = nunca, o padrão). */
+    private int sortInterval;
+    /** Se as plantas crescem pelo núcleo em bits (64 células por operação) ou célula a célula. */
+    private boolean bitSlicedPlants = true;
+    /** Tabelas de somas acumuladas refeitas a cada passo (null = contagens só pela pirâmide). */
+    private DensityTables densityTables;
+    /** Campos de fluxo rumo à comida, recalculados a cada k passos (null = passeio aleatório). */
+    private FlowFields flowFields;
+    private EventLayers eventLayers;
+    /** Topologia da vizinhança imediata. */
+    private Topology topology = Topology.BOUNDED;
+    /** Fila de eventos dos ouvintes (null até o primeiro ouvinte ser registrado). */
+    private SimulationListeners listeners;
+    /** Contagens agregadas dos blocos fora da área de foco (null = agentes no campo inteiro). */
+    private MeanField meanField;
+    /** Atores nascidos no passo atual (lista reaproveitada entre passos). */
+    private final ArrayList<Actor> newActors = new ArrayList<>();
+    /** Blocos do campo ativos no início e no fim do passo (ver {@link Field#findActiveChunks}). */
+    private boolean[] activeBefore = new boolean[0];
+    private boolean[] activeAfter = new boolean[0];
     /** Número do passo atual da simulação. */
     public int step; 
-    /** Interface gráfica para exibir o estado da simulação. */
+    /** Interface gráfica para exibir o estado da simulação (null no modo sem janela). */
     private final SimulatorView view;
-    /** Gerador de números aleatórios. */
-    private final Random rand = new Random();
+    /** Gerador de números aleatórios (o do {@link Randomizer}, até {@link #setRandom}). */
+    private Random rand = Randomizer.getRandom();
+    /** Se {@link #reset()} mantém o terreno do campo (o de uma faixa, calculado pela semente do mundo). */
+    private final boolean keepTerrain;
+    /** Linhas populadas por {@link #populate()}; as demais (as fantasmas de uma {@link Stripe}) começam vazias. */
+    private final int populatedFrom;
+    private final int populatedTo;
+    /** Métricas publicadas via JMX (passos por segundo, latência, populações). */
+    private final SimulationMetrics metrics = SimulationMetrics.register();
     
     private int initialRunSteps = 0; 
 
@@ -53,17 +94,90 @@ public class Simulator {
      * Construtor: cria um simulador com dimensões especificadas.
      */
     public Simulator(int depth, int width) {
-        if (width <= 0 || depth <= 0) {
-            depth = DEFAULT_DEPTH;
-            width = DEFAULT_WIDTH;
-        }
-        
+        this(depth, width, false);
+    }
+
+    /**
+     * Construtor: cria um simulador com dimensões especificadas, opcionalmente
+     * usando um campo esparso (blocos alocados sob demanda) para mundos grandes.
+     */
+    public Simulator(int depth, int width, boolean sparse) {
+        this(createField(depth, width, sparse), true);
+    }
+
+    /**
+     * Construtor: cria um simulador que pode rodar sem janela (headless), por exemplo
+     * em benchmarks ou em servidores sem interface gráfica.
+     * @param headless Se true, nenhuma {@link SimulatorView} é criada.
+     */
+    public Simulator(int depth, int width, boolean sparse, boolean headless) {
+        this(createField(depth, width, sparse), !headless);
+    }
+
+    /**
+     * Construtor: cria um simulador cuja grade fica fora do heap (memória direta ou
+     * arquivo mapeado). Se a grade já tiver conteúdo (arquivo reaberto), a simulação
+     * parte dele em vez de popular um campo novo; não é uma continuação exata, porque a
+     * grade não guarda idade nem fome dos animais (ver {@link OffHeapGrid}).
+     */
+    public Simulator(OffHeapGrid grid) {
+        this(new Field(grid), true);
+    }
+
+    /**
+     * Construtor das faixas de {@link Stripe}: sem janela, com gerador próprio e num
+     * campo cujo terreno, calculado pela semente do mundo, é mantido por {@link #reset()}.
+     * Só as linhas de {@code firstRow} a {@code firstRow + rows - 1} são populadas; as
+     * outras são as linhas fantasmas, que a faixa preenche a cada passo. Com o mundo
+     * inteiro como janela, é o simulador de um processo só com esse terreno e gerador.
+     * @param window O campo da faixa (ver {@link Field#Field(int, int, long, int)}).
+     * @param random O gerador de todos os sorteios da simulação.
+     * @param firstRow A primeira linha própria da janela.
+     * @param rows O número de linhas próprias.
+     */
+    Simulator(Field window, Random random, int firstRow, int rows) {
+        this(window, false, random, true, firstRow, firstRow + rows);
+    }
+
+    /**
+     * Construtor auxiliar: monta o simulador em torno de um campo inicial.
+     */
+    private Simulator(Field initialField, boolean withView) {
+        this(initialField, withView, Randomizer.getRandom(), false, 0, initialField.getDepth());
+    }
+
+    /**
+     * Construtor auxiliar: monta o simulador em torno de um campo inicial, com o
+     * gerador e as linhas a popular.
+     */
+    private Simulator(Field initialField, boolean withView, Random random, boolean keepTerrain,
+                      int populatedFrom, int populatedTo) {
         actors = new ArrayList<>();
-        field = new Field(depth, width);
+        field = initialField;
+        rand = random;
+        this.keepTerrain = keepTerrain;
+        this.populatedFrom = populatedFrom;
+        this.populatedTo = populatedTo;
+        int depth = field.getDepth();
+        int width = field.getWidth();
 
         Barriers.loadRestrictions();
+        Diet.loadDiets();
+
+        view = withView ? createView(depth, width) : null;
+
+        if (field.getOccupiedCount() > 0) {
+            restore(); // Retoma uma grade off-heap salva
+        } else {
+            reset(); // Chama reset e exibe o Passo 0
+        }
+    }
 
-        view = new SimulatorView(depth, width);
+    /**
+     * Cria a janela da simulação com as cores de cada espécie.
+     */
+    private SimulatorView createView(int depth, int width) {
+        SimulatorView view = new SimulatorView(depth, width);
         view.setColor(Fox.class, Color.orange);
         view.setColor(Rabbit.class, Color.lightGray);
         view.setColor(Wolf.class, Color.darkGray);
@@ -74,8 +188,18 @@ public class Simulator {
         view.setColor(Plant.SAGE.getClass(), Color.green.brighter());
 
         view.setSimulator(this);
+        return view;
+    }
 
-        reset(); // Chama reset e exibe o Passo 0
+    /**
+     * Cria o campo inicial, usando as dimensões padrão se as informadas forem inválidas.
+     */
+    private static Field createField(int depth, int width, boolean sparse) {
+        if (width <= 0 || depth <= 0) {
+            depth = DEFAULT_DEPTH;
+            width = DEFAULT_WIDTH;
+        }
+        return new Field(depth, width, sparse);
     }
     
     /**
@@ -83,6 +207,13 @@ public class Simulator {
      */
     public void simulate(int numSteps) {
         this.initialRunSteps = numSteps; 
+        if (view == null) {
+            // Sem janela: executa os passos diretamente
+            for (int i = 0; i < numSteps; i++) {
+                simulateOneStep();
+            }
+            return;
+        }
         this.view.setTargetSteps(numSteps);
         this.view.play(); 
     }
@@ -95,15 +226,83 @@ public class Simulator {
      * Executa um único passo da simulação.
      */
     public void simulateOneStep() {
+        long stepStart = System.nanoTime();
+        long allocationStart = metrics.currentThreadAllocatedBytes();
         step++;
+        SimulationEvents.StepEvent stepEvent = SimulationEvents.beginStep();
+        boolean timeActs = SimulationEvents.isActTimeEnabled();
+        // Tipos de evento pedidos pelos ouvintes; os demais nem são gerados
+        SimulationListeners events = listeners;
+        boolean tellMoves = events != null && events.isEnabled(SimulationListener.MOVE);
+        boolean tellDeaths = events != null && events.isEnabled(SimulationListener.DEATH);
+        if (events != null) events.stepStarted(step);
         
-        Field nextField = new Field(field);
-        List<Actor> newActors = new ArrayList<>();
+        // Os dois campos se alternam: o do passo anterior vira o destino. Só os blocos
+        // ativos (com animais por perto) são esvaziados; os demais passam adiante intactos
+        int chunkCount = field.getChunkRows() * field.getChunkCols();
+        if (activeBefore.length != chunkCount) {
+            activeBefore = new boolean[chunkCount];
+            activeAfter = new boolean[chunkCount];
+        }
+        field.findActiveChunks(activeBefore);
+        if (densityTables != null) {
+            // Antes de prepareNext, que troca blocos inativos entre os dois campos
+            densityTables.rebuild(field);
+            field.setDensityTables(densityTables);
+        }
+        if (flowFields != null) {
+            if (flowFields.isDue(step)) flowFields.recompute(field);
+            field.setFlowFields(flowFields);
+        }
+        field.setEventLayers(eventLayers);
+        Field nextField = spareField != null ? spareField : new Field(field);
+        nextField.prepareNext(field, activeBefore);
+        newActors.clear();
+        if (sortInterval > 0 && step % sortInterval == 0) {
+            actorSorter.sort(actors, field.getDepth(), field.getWidth());
+        }
 
-        for (Iterator<Actor> iter = actors.iterator(); iter.hasNext();) {
-            Actor actor = iter.next();
+        // Espécies que agem neste passo (ver UpdateSchedule)
+        for (int id = 0; id < due.length; id++) {
+            due[id] = schedule.isDue(Species.byId(id), step);
+        }
+        double plantDeathProbability = UpdateSchedule.rescale(PLANT_DEATH_PROBABILITY,
+                                                              schedule.getPeriod(Species.PLANT));
 
-            actor.act(field, nextField, newActors); 
+        SimulationEvents.PhaseEvent phase = SimulationEvents.beginPhase();
+        // Os sobreviventes são compactados no início da lista, sem iterador
+        int kept = 0;
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            Species species = actor.getSpecies();
+            boolean acts = due[species.ordinal()];
+
+            long start = timeActs ? System.nanoTime() : 0;
+            if (acts) {
+                if (actor instanceof Animal animal) {
+                    animal.setActionPeriod(schedule.getPeriod(species));
+                }
+                Location before = actor.getLocation();
+                actor.act(field, nextField, newActors);
+                if (tellMoves && before != null && actor.getLocation() != null
+                        && !before.equals(actor.getLocation())) {
+                    events.moved(step, species, before, actor.getLocation());
+                }
+            } else if (actor.getLocation() != null) {
+                // Fora da sua vez, o ator (se ainda vivo) só é levado para o campo de destino,
+                // reivindicando a célula como num movimento (um animal sem lugar morre)
+                if (actor instanceof Animal animal) {
+                    if (animal.isAlive() && !nextField.claim(animal, animal.getLocation())) {
+                        animal.setDead();
+                        SimulationEvents.recordDeathByCrowding();
+                    }
+                } else if (field.getObjectAt(actor.getLocation()) == actor) {
+                    nextField.claim(actor, actor.getLocation());
+                }
+            }
+            if (timeActs) {
+                SimulationEvents.recordAct(species, System.nanoTime() - start);
+            }
             
             boolean shouldRemove = false;
 
@@ -112,23 +311,498 @@ public class Simulator {
                     shouldRemove = true;
                 }
             } else if (actor instanceof Plant) {
-                if (rand.nextDouble() <= PLANT_DEATH_PROBABILITY) {
+                if (acts && rand.nextDouble() <= plantDeathProbability) {
                     shouldRemove = true;
                 }
             }
             
             if (shouldRemove) {
-                iter.remove();
+                if (tellDeaths) {
+                    events.died(step, species, actor.getLocation());
+                }
+                start = timeActs ? System.nanoTime() : 0;
                 if (actor.getLocation() != null) {
-                    nextField.clear(actor.getLocation());
+                    nextField.clear(actor.getLocation(), actor);
+                }
+                if (actor instanceof Animal animal) {
+                    deadAnimals.add(animal);
                 }
+                if (timeActs) {
+                    SimulationEvents.recordRemoval(System.nanoTime() - start);
+                }
+            } else {
+                actors.set(kept++, actor);
             }
         }
+        while (actors.size() > kept) {
+            actors.remove(actors.size() - 1);
+        }
+        SimulationEvents.commitPhase(phase, "atores", step);
 
+        phase = SimulationEvents.beginPhase();
+        nextField.findActiveChunks(activeAfter);
+        nextField.wakeChunks(activeBefore, activeAfter);
+        int grownFrom = actors.size();
         managePlants(nextField);
-        actors.addAll(newActors);
+        SimulationEvents.commitPhase(phase, "plantas", step);
+
+        // Cópia por índice: addAll criaria um array temporário a cada passo
+        boolean tellBirths = events != null && events.isEnabled(SimulationListener.BIRTH);
+        for (int i = grownFrom; tellBirths && i < actors.size(); i++) {
+            events.born(step, actors.get(i).getSpecies(), actors.get(i).getLocation());
+        }
+        for (int i = 0; i < newActors.size(); i++) {
+            Actor born = newActors.get(i);
+            actors.add(born);
+            if (tellBirths && born.getLocation() != null) {
+                events.born(step, born.getSpecies(), born.getLocation());
+            }
+        }
+        if (meanField != null) {
+            // Quem andou ou nasceu para fora do foco vira contagem
+            absorbOutside(meanField.getFocus(), nextField, deadAnimals);
+        }
+        // Os mortos ainda estavam no campo atual durante o passo; só agora podem voltar
+        releaseDead();
+        spareField = field;
         field = nextField;
-        view.showStatus(step, field);
+        field.makeCurrent();
+        if (meanField != null) {
+            meanField.step();
+            admitInflow();
+        }
+        if (eventLayers != null) {
+            // Depois da troca: o fogo e o contágio agem sobre o campo que o próximo passo lê
+            phase = SimulationEvents.beginPhase();
+            eventLayers.step(field);
+            SimulationEvents.commitPhase(phase, "eventos", step);
+        }
+        showStatus();
+        SimulationEvents.endStep(stepEvent, step, actors.size(), newActors.size());
+        if (events != null) events.stepEnded(step, actors.size());
+
+        long allocated = allocationStart < 0 ? -1 : metrics.currentThreadAllocatedBytes() - allocationStart;
+        metrics.recordStep(System.nanoTime() - stepStart, allocated);
+        metrics.recordState(field, actors.size());
+    }
+
+    /**
+     * Reserva espaço nas listas do passo (atores, nascidos e mortos) para que elas não
+     * cresçam, e portanto não aloquem, enquanto tiverem até {@code capacity} elementos.
+     * Sem reserva, cada lista cresce quando passa do maior tamanho que já teve; a de
+     * atores guarda uma entrada por planta que cresceu e ainda não morreu (mesmo que
+     * comida), então pode passar do número de células. A reserva dos animais fica com
+     * o {@link AnimalPool}. Só pode ser chamado entre passos.
+     * @param capacity O número de elementos que cada lista deve comportar.
+     */
+    public void reserve(int capacity) {
+        actors.ensureCapacity(capacity);
+        newActors.ensureCapacity(capacity);
+        deadAnimals.ensureCapacity(capacity);
+    }
+
+    /**
+     * @return A agenda que define a cada quantos passos cada espécie (e a camada de
+     *         plantas) age. Pode ser alterada entre passos.
+     */
+    public UpdateSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Define a cada quantos passos a lista de atores é reordenada pela curva Z
+     * (ver {@link MortonSorter}). A ordem muda a sequência em que os atores agem,
+     * então simulações com intervalos diferentes seguem trajetórias diferentes.
+     * Desligada por padrão, porque ainda não mostrou ganho medido; 16 passos é um
+     * ponto de partida para medir.
+     * @param interval O intervalo em passos, ou 0 para manter a ordem de inserção.
+     */
+    public void setSortInterval(int interval) {
+        this.sortInterval = Math.max(0, interval);
+    }
+
+    /**
+     * Escolhe o núcleo de crescimento de plantas (ver {@link PlantGrowth}).
+     * @param bitSliced true para o núcleo em bits (padrão), false para o escalar.
+     */
+    public void setBitSlicedPlants(boolean bitSliced) {
+        this.bitSlicedPlants = bitSliced;
+    }
+
+    /**
+     * Liga as tabelas de somas acumuladas, refeitas a cada passo, para que
+     * {@link Field#countNear} responda em O(1) para as espécies acompanhadas.
+     * @param tables As tabelas, ou null para desligar (as contagens usam a pirâmide do campo).
+     */
+    public void setDensityTables(DensityTables tables) {
+        this.densityTables = tables;
+        field.setDensityTables(tables);
+        if (spareField != null) spareField.setDensityTables(tables);
+    }
+
+    /**
+     * Liga os campos de fluxo: sem comida adjacente nem à vista, os animais das
+     * espécies acompanhadas andam pelo caminho mais curto até a comida, em vez de
+     * passear ao acaso.
+     * @param flowFields Os campos de fluxo, ou null para desligar.
+     */
+    public void setFlowFields(FlowFields flowFields) {
+        this.flowFields = flowFields;
+        field.setFlowFields(flowFields);
+        if (spareField != null) spareField.setFlowFields(flowFields);
+    }
+
+    /**
+     * Liga as camadas de fogo e contágio (ver {@link EventLayers}), que avançam no fim
+     * de cada passo. Os focos são acesos e os primeiros animais infectados pelas
+     * próprias camadas, entre passos.
+     * @param eventLayers As camadas, ou null para desligar.
+     */
+    public void setEventLayers(EventLayers eventLayers) {
+        this.eventLayers = eventLayers;
+        field.setEventLayers(eventLayers);
+    }
+
+    /** @return As camadas de eventos, ou null. */
+    public EventLayers getEventLayers() {
+        return eventLayers;
+    }
+
+    /**
+     * Retira da simulação, para migrar a outra, cada animal vivo das espécies da
+     * máscara com a probabilidade dada. Só pode ser chamado entre passos.
+     * @param speciesMask Máscara de bits das espécies que podem partir.
+     * @param probability A probabilidade de cada animal partir.
+     * @param emigrants Lista onde os animais que partem são colocados, já fora do campo.
+     */
+    public void emigrate(long speciesMask, double probability, List<Animal> emigrants) {
+        int kept = 0;
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            if (actor instanceof Animal animal && animal.isAlive() && animal.getLocation() != null
+                    && (speciesMask >>> animal.getSpecies().ordinal() & 1) != 0
+                    && rand.nextDouble() < probability) {
+                field.clear(animal.getLocation());
+                animal.setLocation(null);
+                emigrants.add(animal);
+            } else {
+                actors.set(kept++, actor);
+            }
+        }
+        while (actors.size() > kept) {
+            actors.remove(actors.size() - 1);
+        }
+    }
+
+    /**
+     * Recebe um animal vindo de outra simulação numa célula livre sorteada cujo terreno
+     * a espécie possa pisar. Só pode ser chamado entre passos.
+     * @param animal O animal, vivo e sem localização.
+     * @return true se o animal foi colocado; false se nenhuma célula sorteada serviu.
+     */
+    public boolean immigrate(Animal animal) {
+        for (int attempt = 0; attempt < IMMIGRATION_ATTEMPTS; attempt++) {
+            Location location = field.locationAt(rand.nextInt(field.getDepth()), rand.nextInt(field.getWidth()));
+            if (field.getObjectAt(location) == null
+                    && !Barriers.isForbidden(animal.getSpecies(), field.getTerrainAt(location))) {
+                animal.setLocation(location);
+                field.place(animal, location);
+                actors.add(animal);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retira do campo e da lista de atores os animais vivos de uma linha, como
+     * {@link #emigrate}, mas sem sorteio e sem apagar a localização que tinham. Usado
+     * por {@link Stripe} para os animais que terminam o passo numa linha fantasma.
+     * Só pode ser chamado entre passos.
+     * @param row A linha.
+     * @param emigrants Lista onde os animais retirados são colocados.
+     */
+    void emigrateRow(int row, List<Animal> emigrants) {
+        int kept = 0;
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            if (actor instanceof Animal animal && animal.isAlive() && animal.getLocation() != null
+                    && animal.getLocation().getRow() == row) {
+                field.clear(animal.getLocation(), animal);
+                emigrants.add(animal);
+            } else {
+                actors.set(kept++, actor);
+            }
+        }
+        while (actors.size() > kept) {
+            actors.remove(actors.size() - 1);
+        }
+    }
+
+    /**
+     * Acrescenta à lista de atores um animal que quem chama já pôs no campo (ex: um
+     * migrante de outra {@link Stripe}). Só pode ser chamado entre passos.
+     * @param animal O animal, vivo e já no campo.
+     */
+    void admit(Animal animal) {
+        actors.add(animal);
+    }
+
+    /**
+     * Liga o modo híbrido: só os blocos de 64x64 células que cruzam o retângulo dado
+     * ficam com agentes; nos demais, cada espécie vira uma contagem por bloco, avançada
+     * pelas equações de {@link MeanField}. Blocos que saem do foco convertem seus atores
+     * em contagens, e os que entram recebem agentes sorteados a partir delas. Só pode
+     * ser chamado entre passos; pode ser chamado de novo para mover o foco.
+     * @param row A primeira linha da área de foco.
+     * @param col A primeira coluna da área de foco.
+     * @param rows O número de linhas da área.
+     * @param cols O número de colunas da área.
+     */
+    public void setFocus(int row, int col, int rows, int cols) {
+        if (meanField == null) {
+            meanField = new MeanField(field, PLANT_GROWTH_PROBABILITY, PLANT_DEATH_PROBABILITY);
+        }
+        int chunkCols = field.getChunkCols();
+        boolean[] focus = new boolean[field.getChunkRows() * chunkCols];
+        int rowEnd = Math.min(field.getDepth(), row + rows), colEnd = Math.min(field.getWidth(), col + cols);
+        for (int r = Math.max(0, row) / Field.CHUNK_SIZE; r * Field.CHUNK_SIZE < rowEnd; r++) {
+            for (int c = Math.max(0, col) / Field.CHUNK_SIZE; c * Field.CHUNK_SIZE < colEnd; c++) {
+                focus[r * chunkCols + c] = true;
+            }
+        }
+        refocus(focus);
+    }
+
+    /**
+     * Desliga o modo híbrido: todos os blocos voltam a ter agentes.
+     */
+    public void clearFocus() {
+        if (meanField == null) return;
+        boolean[] focus = new boolean[field.getChunkRows() * field.getChunkCols()];
+        Arrays.fill(focus, true);
+        refocus(focus);
+        meanField = null;
+    }
+
+    /** @return As contagens agregadas do modo híbrido, ou null se ele estiver desligado. */
+    public MeanField getMeanField() {
+        return meanField;
+    }
+
+    /**
+     * Converte os atores dos blocos que saem do foco em contagens e as contagens dos
+     * blocos que entram em agentes.
+     */
+    private void refocus(boolean[] focus) {
+        List<Animal> absorbed = new ArrayList<>();
+        absorbOutside(focus, field, absorbed);
+        for (Animal animal : absorbed) {
+            AnimalPool.release(animal);
+        }
+        // As plantas são contadas no campo: as constantes de Plant não guardam uma célula cada
+        int chunkCols = field.getChunkCols();
+        for (int chunk = 0; chunk < focus.length; chunk++) {
+            if (focus[chunk] || !meanField.isFocus(chunk)) continue;
+            int rowStart = chunk / chunkCols * Field.CHUNK_SIZE, colStart = chunk % chunkCols * Field.CHUNK_SIZE;
+            int rowEnd = Math.min(field.getDepth(), rowStart + Field.CHUNK_SIZE);
+            int colEnd = Math.min(field.getWidth(), colStart + Field.CHUNK_SIZE);
+            for (int row = rowStart; row < rowEnd; row++) {
+                for (int col = colStart; col < colEnd; col++) {
+                    Location location = field.locationAt(row, col);
+                    if (field.getSpeciesAt(location) == Species.PLANT) {
+                        meanField.add(chunk, Species.PLANT, 1);
+                        field.clear(location);
+                    }
+                }
+            }
+        }
+
+        for (int chunk = 0; chunk < focus.length; chunk++) {
+            if (!focus[chunk] || meanField.isFocus(chunk)) continue;
+            for (Species species : Species.values()) {
+                double count = meanField.take(chunk, species);
+                // Arredondamento sorteado: a contagem esperada se conserva em média
+                int whole = (int) count + (rand.nextDouble() < count - (int) count ? 1 : 0);
+                spawn(chunk, -1, species, whole);
+            }
+        }
+        meanField.setFocus(focus);
+    }
+
+    /**
+     * Move para as contagens os animais vivos que estão fora dos blocos em foco e tira
+     * da lista todos os atores de fora (uma planta fora do foco só pode ter sido
+     * recolocada pela localização compartilhada da sua constante, e é descartada).
+     * @param focus As marcas de foco de cada bloco.
+     * @param target O campo onde os atores estão.
+     * @param released Lista que recebe os animais retirados, para voltarem à reserva.
+     */
+    private void absorbOutside(boolean[] focus, Field target, List<Animal> released) {
+        int kept = 0;
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            Location location = actor.getLocation();
+            if (location == null || focus[chunkOf(location)]) {
+                actors.set(kept++, actor);
+                continue;
+            }
+            if (actor instanceof Animal animal) {
+                if (animal.isAlive()) {
+                    meanField.add(chunkOf(location), animal.getSpecies(), 1);
+                }
+                // Também um morto: os blocos agregados não são mais varridos, e a célula
+                // apontaria para o animal depois de reaproveitado pela reserva
+                target.clear(location, animal);
+                released.add(animal);
+            } else if (target.getSpeciesAt(location) == Species.PLANT) {
+                target.clear(location);
+            }
+        }
+        while (actors.size() > kept) {
+            actors.remove(actors.size() - 1);
+        }
+    }
+
+    /**
+     * Cria na borda dos blocos em foco os animais que chegaram dos blocos agregados vizinhos.
+     */
+    private void admitInflow() {
+        for (int chunk = 0; chunk < field.getChunkRows() * field.getChunkCols(); chunk++) {
+            if (!meanField.isFocus(chunk)) continue;
+            for (int side = 0; side < 4; side++) {
+                for (Species species : Species.values()) {
+                    int arrivals = meanField.takeInflow(chunk, side, species);
+                    if (arrivals > 0) spawn(chunk, side, species, arrivals);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cria agentes de uma espécie em células livres sorteadas de um bloco, cujo terreno a
+     * espécie possa pisar. Quem não acha lugar depois de algumas tentativas não é criado.
+     * @param side O lado do bloco ({@link MeanField#UP} etc.) em que os agentes surgem,
+     *             ou -1 para o bloco inteiro.
+     */
+    private void spawn(int chunk, int side, Species species, int count) {
+        int chunkCols = field.getChunkCols();
+        int rowStart = chunk / chunkCols * Field.CHUNK_SIZE, colStart = chunk % chunkCols * Field.CHUNK_SIZE;
+        int rows = Math.min(Field.CHUNK_SIZE, field.getDepth() - rowStart);
+        int cols = Math.min(Field.CHUNK_SIZE, field.getWidth() - colStart);
+        for (int n = 0; n < count; n++) {
+            for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+                int row = rowStart + switch (side) {
+                    case MeanField.UP -> 0;
+                    case MeanField.DOWN -> rows - 1;
+                    default -> rand.nextInt(rows);
+                };
+                int col = colStart + switch (side) {
+                    case MeanField.LEFT -> 0;
+                    case MeanField.RIGHT -> cols - 1;
+                    default -> rand.nextInt(cols);
+                };
+                Location location = field.locationAt(row, col);
+                if (field.getObjectAt(location) != null
+                        || Barriers.isForbidden(species, field.getTerrainAt(location))) continue;
+                if (species == Species.PLANT) {
+                    Plant plant = rand.nextBoolean() ? Plant.ROSEMARY : Plant.SAGE;
+                    plant.setLocation(location);
+                    field.place(plant, location);
+                    actors.add(plant);
+                } else {
+                    placeNewAnimal(AnimalPool.obtain(species), location);
+                }
+                break;
+            }
+        }
+    }
+
+    /** @return O índice do bloco que contém uma célula. */
+    private int chunkOf(Location location) {
+        return location.getRow() / Field.CHUNK_SIZE * field.getChunkCols() + location.getCol() / Field.CHUNK_SIZE;
+    }
+
+    /**
+     * Registra um ouvinte dos eventos da simulação. Ele recebe os eventos na sua
+     * própria thread, por uma fila circular (ver {@link SimulationListeners}), e não
+     * atrasa os passos. A janela continua sendo desenhada no próprio passo, porque lê
+     * o campo, que só fica estável entre um passo e outro.
+     * @param listener O ouvinte.
+     */
+    public void addListener(SimulationListener listener) {
+        if (listeners == null) {
+            listeners = new SimulationListeners();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove um ouvinte registrado com {@link #addListener}.
+     * @param listener O ouvinte.
+     */
+    public void removeListener(SimulationListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * @return A fila de eventos dos ouvintes (por exemplo, para {@link SimulationListeners#flush()}),
+     *         ou null se nenhum ouvinte foi registrado.
+     */
+    public SimulationListeners getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Escolhe a topologia da vizinhança (ver {@link Topology}); vale também depois de
+     * {@link #reset()}.
+     * @param topology A topologia.
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+        field.setTopology(topology);
+        if (spareField != null) spareField.setTopology(topology);
+    }
+
+    /**
+     * Dá a esta simulação um gerador próprio, usado nos sorteios do simulador, dos
+     * animais (movimento e reprodução, pelo {@link Field#getRandom()}) e das camadas
+     * de eventos; vale também depois de {@link #reset()}. Simulações que rodam em
+     * threads diferentes (ex: as ilhas do {@link IslandModel}) não disputam assim o
+     * gerador do {@link Randomizer}.
+     * @param random O gerador.
+     */
+    public void setRandom(Random random) {
+        this.rand = random;
+        field.setRandom(random);
+        if (spareField != null) spareField.setRandom(random);
+    }
+
+    /**
+     * @return As métricas desta simulação (também publicadas via JMX).
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retira as métricas desta simulação do servidor JMX (ver
+     * {@link SimulationMetrics#unregister()}). Deve ser chamado quando a simulação é
+     * descartada; a janela, se houver, continua aberta.
+     */
+    public void close() {
+        metrics.unregister();
+    }
+
+    /**
+     * Mostra o passo atual na janela, se houver uma.
+     */
+    private void showStatus() {
+        if (view != null) {
+            view.showStatus(step, field);
+        }
     }
 
     /**
@@ -136,10 +810,57 @@ public class Simulator {
      */
     public void reset() {
         step = 0;
+        for (Actor actor : actors) {
+            if (actor instanceof Animal animal) {
+                deadAnimals.add(animal);
+            }
+        }
+        releaseDead();
         actors.clear();
-        field = new Field(field.getDepth(), field.getWidth()); 
+        spareField = null;
+        meanField = null;
+        if (eventLayers != null) eventLayers.clear();
+        if (field.isOffHeap() || keepTerrain) {
+            field = new Field(field); // mesmo terreno (fora do heap, mesma grade na outra página)
+        } else {
+            field = new Field(field.getDepth(), field.getWidth(), field.isSparse()); 
+        }
+        field.setTopology(topology);
+        field.setEventLayers(eventLayers);
+        field.setRandom(rand);
         populate();
-        view.showStatus(step, field);
+        field.makeCurrent();
+        metrics.recordState(field, actors.size());
+        showStatus();
+    }
+
+    /**
+     * Recria a lista de atores a partir de um campo off-heap reaberto.
+     * As plantas voltam como estavam; os animais são recriados da espécie guardada
+     * nos bitboards, com idade e fome sorteadas como em {@link #populate()}. A
+     * população por célula é a salva, mas as mortes por idade e fome dos passos
+     * seguintes não são as que a execução original teria, e o passo volta a 0.
+     */
+    private void restore() {
+        step = 0;
+        actors.clear();
+        for (int row = 0; row < field.getDepth(); row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                Location location = field.locationAt(row, col);
+                Species species = field.getSpeciesAt(location);
+                if (species == null) continue;
+
+                if (species == Species.PLANT) {
+                    Plant plant = (Plant) field.getObjectAt(location);
+                    plant.setLocation(location);
+                    actors.add(plant);
+                } else {
+                    placeNewAnimal(AnimalPool.obtain(species), location);
+                }
+            }
+        }
+        metrics.recordState(field, actors.size());
+        showStatus();
     }
 
     /**
@@ -151,21 +872,22 @@ public class Simulator {
 
     /**
      * Faz crescer novas plantas em células vazias do campo de destino.
+     * Percorre o campo por blocos e só visita os ativos no início ou no fim do passo;
+     * os inativos guardam as plantas que já tinham. No modo esparso, blocos vazios
+     * também são pulados. Cada bloco é tratado por um núcleo de {@link PlantGrowth}.
      */
     private void growPlants(Field currentField) {
-        for (int row = 0; row < currentField.getDepth(); row++) {
-            for (int col = 0; col < currentField.getWidth(); col++) {
-                Location location = new Location(row, col);
-                
-                if (currentField.getObjectAt(location) == null) {
-                    if (rand.nextDouble() <= PLANT_GROWTH_PROBABILITY) {
-                        
-                        Plant newPlant = rand.nextBoolean() ? Plant.ROSEMARY : Plant.SAGE;
-                        
-                        newPlant.setLocation(location);
-                        currentField.place(newPlant, location);
-                        actors.add(newPlant);
-                    }
+        for (int chunkRow = 0; chunkRow < currentField.getChunkRows(); chunkRow++) {
+            for (int chunkCol = 0; chunkCol < currentField.getChunkCols(); chunkCol++) {
+                int chunk = chunkRow * currentField.getChunkCols() + chunkCol;
+                if (!activeBefore[chunk] && !activeAfter[chunk]) continue;
+                if (!currentField.isChunkAllocated(chunkRow, chunkCol)) continue;
+                if (meanField != null && !meanField.isFocus(chunk)) continue;
+
+                if (bitSlicedPlants) {
+                    PlantGrowth.growBitSliced(currentField, chunkRow, chunkCol, PLANT_GROWTH_PROBABILITY, rand, actors);
+                } else {
+                    PlantGrowth.growScalar(currentField, chunkRow, chunkCol, PLANT_GROWTH_PROBABILITY, rand, actors);
                 }
             }
         }
@@ -173,61 +895,177 @@ public class Simulator {
 
     /**
      * Popula o campo inicial usando probabilidades independentes (modelo original).
+     * No modo esparso as células vazias são puladas em blocos (distribuição geométrica),
+     * de modo que o custo depende do número de atores criados e não da área.
      */
     private void populate() {
         field.clear();
         actors.clear(); // Limpa a lista, pois animais serão adicionados aqui
 
+        if (field.isSparse()) {
+            populateSparse();
+            return;
+        }
+
+        for (int row = populatedFrom; row < populatedTo; row++) {
+            for (int col = 0; col < field.getWidth(); col++) {
+                populateCell(field.locationAt(row, col));
+            }
+        }
+    }
+
+    /**
+     * Reinicia a simulação com uma densidade inicial escolhida, em vez das
+     * probabilidades independentes do modelo original. Cada célula fica ocupada com
+     * a probabilidade dada, e a espécie é sorteada na proporção das probabilidades
+     * de criação. Com densidade 1 todas as células ficam ocupadas (o pior caso).
+     * @param density A fração de células ocupadas (0 a 1).
+     */
+    void populate(double density) {
+        step = 0;
+        spareField = null;
+        field.clear();
+        actors.clear();
+
+        double[] weights = {
+            WOLF_CREATION_PROBABILITY, FOX_CREATION_PROBABILITY, RABBIT_CREATION_PROBABILITY,
+            EAGLE_CREATION_PROBABILITY, HUNTER_CREATION_PROBABILITY, SNAKE_CREATION_PROBABILITY,
+            PLANT_CREATION_PROBABILITY
+        };
+        Species[] kinds = {
+            Species.WOLF, Species.FOX, Species.RABBIT, Species.EAGLE, Species.HUNTER, Species.SNAKE, Species.PLANT
+        };
+        double total = 0;
+        for (double w : weights) total += w;
+
         for (int row = 0; row < field.getDepth(); row++) {
             for (int col = 0; col < field.getWidth(); col++) {
-                Location location = new Location(row, col);
-                
-                // Variável auxiliar para rastrear o último ator criado (se houver colisão)
-                Animal createdAnimal = null;
-                
-                // 1. ANIMAIS (Probabilidades Independentes - Colisão é possível, a última entidade vence)
-                
-                if (rand.nextDouble() <= WOLF_CREATION_PROBABILITY) {
-                    createdAnimal = new Wolf();
-                }
-                if (rand.nextDouble() <= FOX_CREATION_PROBABILITY) {
-                    createdAnimal = new Fox();
-                }
-                if (rand.nextDouble() <= RABBIT_CREATION_PROBABILITY) {
-                    createdAnimal = new Rabbit();
-                }
-                if (rand.nextDouble() <= EAGLE_CREATION_PROBABILITY) {
-                    createdAnimal = new Eagle();
-                }
-                if (rand.nextDouble() <= HUNTER_CREATION_PROBABILITY) {
-                    createdAnimal = new Hunter();
-                }
-                if (rand.nextDouble() <= SNAKE_CREATION_PROBABILITY) {
-                    createdAnimal = new Snake();
-                }
-                
-                if (createdAnimal != null) {
-                    // Inicialização de estado (Idade e Fome)
-                    createdAnimal.setAge(rand.nextInt(createdAnimal.getMaxAge())); 
-                    createdAnimal.setFoodLevel(rand.nextInt(15) + 5); 
-                    
-                    // Coloca no campo e na lista de atores
-                    createdAnimal.setLocation(location);
-                    field.place(createdAnimal, location);
-                    actors.add(createdAnimal);
-                    
-                    // Continuamos, pois um animal já ocupa a célula e venceu a colisão
-                    continue; 
-                }
-                
-                // 2. PLANTAS INICIAIS (Só se a célula estiver vazia - não precisa de verificação extra, pois o continue acima já lida com isso)
-                if (rand.nextDouble() <= PLANT_CREATION_PROBABILITY) {
+                if (rand.nextDouble() >= density) continue;
+
+                double pick = rand.nextDouble() * total;
+                int k = 0;
+                while (k < kinds.length - 1 && pick >= weights[k]) {
+                    pick -= weights[k++];
+                }
+                Location location = field.locationAt(row, col);
+                if (kinds[k] == Species.PLANT) {
                     Plant newPlant = rand.nextBoolean() ? Plant.ROSEMARY : Plant.SAGE;
-                    newPlant.setLocation(location); 
+                    newPlant.setLocation(location);
                     field.place(newPlant, location);
                     actors.add(newPlant);
+                } else {
+                    placeNewAnimal(AnimalPool.obtain(kinds[k]), location);
                 }
             }
         }
+        field.makeCurrent();
+        metrics.recordState(field, actors.size());
+        showStatus();
+    }
+
+    /**
+     * Popula um campo esparso sorteando diretamente a próxima célula ocupada.
+     */
+    private void populateSparse() {
+        double emptyProbability = (1 - WOLF_CREATION_PROBABILITY) * (1 - FOX_CREATION_PROBABILITY)
+                                * (1 - RABBIT_CREATION_PROBABILITY) * (1 - EAGLE_CREATION_PROBABILITY)
+                                * (1 - HUNTER_CREATION_PROBABILITY) * (1 - SNAKE_CREATION_PROBABILITY)
+                                * (1 - PLANT_CREATION_PROBABILITY);
+        long cells = (long) field.getDepth() * field.getWidth();
+        long index = -1;
+        while (true) {
+            // Número de células vazias até a próxima ocupada
+            index += 1 + (long) Math.floor(Math.log(1 - rand.nextDouble()) / Math.log(emptyProbability));
+            if (index >= cells) break;
+
+            Location location = new Location((int) (index / field.getWidth()), (int) (index % field.getWidth()));
+            // Repete o sorteio da célula condicionado a "algo foi criado"
+            while (!populateCell(location)) { }
+        }
+    }
+
+    /**
+     * Sorteia o conteúdo inicial de uma célula.
+     * @param location A célula a popular.
+     * @return true se algum ator foi criado na célula.
+     */
+    private boolean populateCell(Location location) {
+        Actor actor = createInitialActor(rand);
+        if (actor == null) {
+            return false;
+        }
+        actor.setLocation(location);
+        field.place(actor, location);
+        actors.add(actor);
+        return true;
+    }
+
+    /**
+     * Sorteia o ocupante inicial de uma célula com as probabilidades de criação.
+     * @param rand O gerador dos sorteios.
+     * @return Um animal (com idade e comida sorteadas), uma planta, ou null se a célula fica vazia.
+     */
+    private static Actor createInitialActor(Random rand) {
+        // Variável auxiliar para rastrear a última espécie sorteada (se houver colisão)
+        Species createdSpecies = null;
+        
+        // 1. ANIMAIS (Probabilidades Independentes - Colisão é possível, a última entidade vence)
+        
+        if (rand.nextDouble() <= WOLF_CREATION_PROBABILITY) {
+            createdSpecies = Species.WOLF;
+        }
+        if (rand.nextDouble() <= FOX_CREATION_PROBABILITY) {
+            createdSpecies = Species.FOX;
+        }
+        if (rand.nextDouble() <= RABBIT_CREATION_PROBABILITY) {
+            createdSpecies = Species.RABBIT;
+        }
+        if (rand.nextDouble() <= EAGLE_CREATION_PROBABILITY) {
+            createdSpecies = Species.EAGLE;
+        }
+        if (rand.nextDouble() <= HUNTER_CREATION_PROBABILITY) {
+            createdSpecies = Species.HUNTER;
+        }
+        if (rand.nextDouble() <= SNAKE_CREATION_PROBABILITY) {
+            createdSpecies = Species.SNAKE;
+        }
+        
+        if (createdSpecies != null) {
+            // Só o vencedor da colisão é criado, de preferência reaproveitado da reserva
+            Animal animal = AnimalPool.obtain(createdSpecies);
+            animal.setAge(rand.nextInt(animal.getMaxAge()));
+            animal.setFoodLevel(rand.nextInt(15) + 5);
+            return animal;
+        }
+        
+        // 2. PLANTAS INICIAIS (Só se a célula estiver vazia)
+        if (rand.nextDouble() <= PLANT_CREATION_PROBABILITY) {
+            return rand.nextBoolean() ? Plant.ROSEMARY : Plant.SAGE;
+        }
+        return null;
+    }
+
+    /**
+     * Devolve ao {@link AnimalPool} os animais mortos guardados em {@link #deadAnimals}.
+     */
+    private void releaseDead() {
+        for (int i = 0; i < deadAnimals.size(); i++) {
+            AnimalPool.release(deadAnimals.get(i));
+        }
+        deadAnimals.clear();
+    }
+
+    /**
+     * Inicializa um animal inicial e o coloca no campo e na lista de atores.
+     */
+    private void placeNewAnimal(Animal animal, Location location) {
+        // Inicialização de estado (Idade e Fome)
+        animal.setAge(rand.nextInt(animal.getMaxAge())); 
+        animal.setFoodLevel(rand.nextInt(15) + 5); 
+        
+        // Coloca no campo e na lista de atores
+        animal.setLocation(location);
+        field.place(animal, location);
+        actors.add(animal);
     }
 }
\ No newline at end of file
@@ -1,5 +1,13 @@
 import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.HashMap;
 
 
@@ -270,26 +278,16 @@ public class SimulatorView extends JFrame {
             setVisible(true);
 
         stepLabel.setText(STEP_PREFIX + step);
+        SimulationEvents.PhaseEvent phase = SimulationEvents.beginPhase();
         stats.reset();
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Location loc = new Location(row, col);
-                Object obj = field.getObjectAt(loc);
-
-                if(obj != null) {
-                    stats.incrementCount(obj.getClass());
-                    fieldView.drawMark(col, row, getColor(obj.getClass()));
-                } else {
-                    // Célula vazia: desenha o terreno
-                    Terrain terrain = field.getTerrainAt(loc);
-                    fieldView.drawMark(col, row, getTerrainColor(terrain));
-                }
-            }
-        }
+        // Só a parte visível do campo é desenhada; aproximado, só os blocos que mudaram
+        fieldView.render(field, step);
+
+        SimulationEvents.commitPhase(phase, "desenho", step);
 
+        phase = SimulationEvents.beginPhase();
         populationLabel.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
+        SimulationEvents.commitPhase(phase, "estatisticas", step);
         fieldView.repaint();
         
         checkButtons(); 
@@ -317,44 +315,190 @@ public class SimulatorView extends JFrame {
     }
 
     /**
-     * Painel interno responsável por desenhar a grade.
+     * Painel interno responsável por desenhar a grade, através de um {@link FieldViewport}.
+     * A roda do mouse aproxima e afasta, arrastar desloca e um clique duplo mostra o
+     * campo inteiro.
      */
     private class FieldView extends JPanel {
         private static final int GRID_VIEW_SCALING_FACTOR = 8;
+        /** Tamanho máximo inicial da área de desenho, em pixels. */
+        private static final int MAX_PREFERRED_WIDTH = 900;
+        private static final int MAX_PREFERRED_HEIGHT = 700;
+        /** Fator de zoom de cada clique da roda do mouse. */
+        private static final double ZOOM_STEP = 1.25;
 
         private final int gridWidth, gridHeight;
-        private int xScale, yScale;
+        private final FieldViewport viewport;
         private Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        private BufferedImage fieldImage;
+        /** Os pixels de fieldImage, escritos diretamente pelo viewport. */
+        private int[] pixels;
+        private final int[] terrainColors = new int[Terrain.values().length];
+        private final int[] speciesColors = new int[Species.count()];
+        /** Classe de cada espécie de animal, para achar a cor dos ladrilhos. */
+        private final Class<?>[] speciesClasses = new Class<?>[Species.count()];
+        /** Último campo e passo desenhados (para redesenhar depois de zoom ou deslocamento). */
+        private Field lastField;
+        private int lastStep = -1;
+        /** Se o zoom ou o deslocamento mudaram desde o último quadro. */
+        private boolean viewChanged = true;
+        private int dragX, dragY;
+        /** Mapa de calor exibido: -1 desligado, 0 todos os ocupantes, id + 1 uma espécie. */
+        private int heatmap = -1;
+        /** Níveis da pirâmide acima do nível dos ladrilhos usados pelo mapa de calor. */
+        private int heatmapLevels = 0;
 
         public FieldView(int height, int width) {
             gridHeight = height;
             gridWidth = width;
+            viewport = new FieldViewport(height, width);
             size = new Dimension(0, 0);
             setBackground(Color.WHITE);
+            for (Terrain terrain : Terrain.values()) {
+                terrainColors[terrain.ordinal()] = getTerrainColor(terrain).getRGB() & 0xFFFFFF;
+            }
+
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    viewport.zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                    viewMoved();
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    requestFocusInWindow();
+                    dragX = e.getX();
+                    dragY = e.getY();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    viewport.pan(e.getX() - dragX, e.getY() - dragY);
+                    dragX = e.getX();
+                    dragY = e.getY();
+                    viewMoved();
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        viewport.fit();
+                        viewMoved();
+                    }
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+
+            // H alterna o mapa de calor (todos, cada espécie, desligado); [ e ] mudam o nível
+            setFocusable(true);
+            addKeyListener(new KeyAdapter() {
+                @Override
+                public void keyPressed(KeyEvent e) {
+                    if (e.getKeyCode() == KeyEvent.VK_H) {
+                        heatmap = heatmap >= Species.count() ? -1 : heatmap + 1;
+                    } else if (e.getKeyCode() == KeyEvent.VK_CLOSE_BRACKET) {
+                        heatmapLevels++;
+                    } else if (e.getKeyCode() == KeyEvent.VK_OPEN_BRACKET) {
+                        heatmapLevels = Math.max(0, heatmapLevels - 1);
+                    } else {
+                        return;
+                    }
+                    viewMoved();
+                }
+            });
         }
 
         @Override
         public Dimension getPreferredSize() {
-            return new Dimension(gridWidth * GRID_VIEW_SCALING_FACTOR,
-                                 gridHeight * GRID_VIEW_SCALING_FACTOR);
+            return new Dimension(Math.min(MAX_PREFERRED_WIDTH, gridWidth * GRID_VIEW_SCALING_FACTOR),
+                                 Math.min(MAX_PREFERRED_HEIGHT, gridHeight * GRID_VIEW_SCALING_FACTOR));
         }
 
-        public void preparePaint() {
-            if(!size.equals(getSize())) {
-                size = getSize();
-                fieldImage = createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
+        /**
+         * Redesenha o último campo depois de uma mudança de zoom ou deslocamento.
+         */
+        private void viewMoved() {
+            viewChanged = true;
+            if (lastField != null) {
+                render(lastField, lastStep);
+                repaint();
+            }
+        }
 
-                xScale = Math.max(1, size.width / gridWidth);
-                yScale = Math.max(1, size.height / gridHeight);
+        /**
+         * Desenha a parte visível do campo. Com o mapa de calor ligado, desenha a
+         * densidade em blocos da pirâmide do campo. Afastado, desenha ladrilhos resumidos;
+         * aproximado, desenha célula a célula e, se a janela não mudou e o passo é o
+         * seguinte ao último, só os blocos alterados no passo.
+         * @param field O campo a ser exibido.
+         * @param step O passo do campo.
+         */
+        public void render(Field field, int step) {
+            boolean redrawAll = viewChanged || step != lastStep + 1 || field.getTerrainId() != terrainIdOf(lastField);
+            if (!size.equals(getSize()) || fieldImage == null) {
+                size = getSize();
+                if (size.width <= 0 || size.height <= 0) return;
+                fieldImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+                boolean first = lastField == null;
+                viewport.setSize(size.width, size.height);
+                if (first) viewport.fit();
+                redrawAll = true;
+            }
+            viewChanged = false;
+            lastField = field;
+            lastStep = step;
+            updateSpeciesColors();
+
+            if (heatmap >= 0) {
+                viewport.renderHeatmap(pixels, field, viewport.getBlockLevel() + heatmapLevels,
+                                       heatmap == 0 ? null : Species.byId(heatmap - 1));
+                return;
+            }
+            if (viewport.isOverview()) {
+                viewport.renderBlocks(pixels, field, speciesColors, terrainColors);
+                return;
+            }
+            if (redrawAll) {
+                Arrays.fill(pixels, FieldViewport.BACKGROUND);
             }
+            int firstChunkRow = viewport.getFirstRow() / Field.CHUNK_SIZE;
+            int firstChunkCol = viewport.getFirstCol() / Field.CHUNK_SIZE;
+            int endChunkRow = (viewport.getEndRow() + Field.CHUNK_SIZE - 1) / Field.CHUNK_SIZE;
+            int endChunkCol = (viewport.getEndCol() + Field.CHUNK_SIZE - 1) / Field.CHUNK_SIZE;
+            for (int chunkRow = firstChunkRow; chunkRow < endChunkRow; chunkRow++) {
+                for (int chunkCol = firstChunkCol; chunkCol < endChunkCol; chunkCol++) {
+                    if (!redrawAll && !field.isChunkChanged(chunkRow, chunkCol)) continue;
+                    viewport.renderCells(pixels, field, chunkRow * Field.CHUNK_SIZE, chunkCol * Field.CHUNK_SIZE,
+                                         (chunkRow + 1) * Field.CHUNK_SIZE, (chunkCol + 1) * Field.CHUNK_SIZE,
+                                         occupant -> getColor(occupant.getClass()).getRGB() & 0xFFFFFF,
+                                         terrainColors);
+                }
+            }
+        }
+
+        /** @return O identificador do terreno de um campo (0 se não houver campo). */
+        private long terrainIdOf(Field field) {
+            return field == null ? 0 : field.getTerrainId();
         }
 
-        public void drawMark(int x, int y, Color color) {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale - 1, yScale - 1);
+        /**
+         * Atualiza a cor de cada espécie usada nos ladrilhos (a das plantas é a do alecrim).
+         */
+        private void updateSpeciesColors() {
+            for (int id = 0; id < speciesColors.length; id++) {
+                Species species = Species.byId(id);
+                Class<?> entityClass = species == Species.PLANT ? Plant.ROSEMARY.getClass()
+                                                                : speciesClasses[id];
+                if (entityClass == null) {
+                    entityClass = species.createAnimal().getClass();
+                    speciesClasses[id] = entityClass;
+                }
+                speciesColors[id] = getColor(entityClass).getRGB() & 0xFFFFFF;
+            }
         }
 
         @Override
@@ -365,4 +509,4 @@ public class SimulatorView extends JFrame {
             }
         }
     }
-}
\ No newline at end of file
+}
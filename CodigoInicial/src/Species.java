@@ -0,0 +1,94 @@
+/**
+ * Identifica cada espécie da simulação por um número fixo (o ordinal).
+ * O ordinal é usado como posição de bit nas máscaras de dieta ({@link Diet}),
+ * por isso o número de espécies não pode passar de 64.
+ * @author Grupo 1
+ * @version 2025
+ */
+public enum Species {
+    RABBIT("COELHO"),
+    FOX("RAPOSA"),
+    WOLF("LOBO"),
+    EAGLE("AGUIA"),
+    SNAKE("COBRA"),
+    HUNTER("CACADOR"),
+    PLANT("PLANTA");
+
+    /** Cache de values() para evitar a cópia do array a cada consulta. */
+    private static final Species[] VALUES = values();
+
+    /** Nome alternativo (em português) aceito nos arquivos de configuração. */
+    private final String alias;
+
+    /** Construtor do enum. */
+    Species(String alias) {
+        this.alias = alias;
+    }
+
+    /** @return O bit que representa esta espécie em uma máscara. */
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /** @return O nome da espécie para exibição (ex: "Rabbit"). */
+    public String getDisplayName() {
+        return name().charAt(0) + name().substring(1).toLowerCase();
+    }
+
+    /**
+     * Cria um novo animal desta espécie.
+     * @return O novo animal, ou null se a espécie não for de animal (plantas).
+     */
+    public Animal createAnimal() {
+        return switch (this) {
+            case RABBIT -> new Rabbit();
+            case FOX -> new Fox();
+            case WOLF -> new Wolf();
+            case EAGLE -> new Eagle();
+            case SNAKE -> new Snake();
+            case HUNTER -> new Hunter();
+            case PLANT -> null;
+        };
+    }
+
+    /** @return O número de espécies conhecidas. */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Retorna a espécie de um índice (ordinal).
+     * @param id O ordinal da espécie.
+     * @return A espécie correspondente.
+     */
+    public static Species byId(int id) {
+        return VALUES[id];
+    }
+
+    /**
+     * Retorna a espécie do objeto que ocupa uma célula.
+     * @param obj O objeto (pode ser null).
+     * @return A espécie do ator, ou null se o objeto não for um {@link Actor}.
+     */
+    public static Species of(Object obj) {
+        if (obj instanceof Actor actor) {
+            return actor.getSpecies();
+        }
+        return null;
+    }
+
+    /**
+     * Converte um nome lido de arquivo (ex: "FOX" ou "RAPOSA") para a espécie.
+     * @param name O nome, sem diferenciar maiúsculas de minúsculas.
+     * @return A espécie correspondente, ou null se o nome for desconhecido.
+     */
+    public static Species fromName(String name) {
+        String key = name.trim().toUpperCase();
+        for (Species s : VALUES) {
+            if (s.name().equals(key) || s.alias.equals(key)) {
+                return s;
+            }
+        }
+        return null;
+    }
+}
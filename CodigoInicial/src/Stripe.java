@@ -0,0 +1,400 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Uma faixa horizontal de linhas de um mundo dividido entre vários processos.
+ * <p>
+ * O passo da faixa é o de um {@link Simulator} sem janela sobre uma janela do mundo:
+ * as linhas próprias mais uma linha fantasma em cada borda com outra faixa (as
+ * bordas do mundo continuam sendo bordas do campo). A cada passo as linhas fantasmas
+ * recebem os ocupantes das linhas de borda das vizinhas, com espécie, idade e comida
+ * ({@link Ghost}): bloqueiam movimentos e nascimentos, aparecem para a visão e para
+ * {@link Animal#canEat}, e podem ser comidas. Os fantasmas não agem; um fantasma
+ * comido é informado à faixa dona, que retira o animal (ou a planta) em
+ * {@link #settle}. Um animal que termina o passo numa linha fantasma (por ter se
+ * movido ou nascido ali) migra para a faixa vizinha.
+ * <p>
+ * Cada faixa tem o seu gerador, derivado de (semente, faixa), usado pelo simulador e
+ * pelos animais. Assim a faixa produz o mesmo resultado estando em um processo
+ * próprio ou no mesmo processo que as outras. Pelo mesmo motivo, a faixa guarda e
+ * restaura a localização das constantes de {@link Plant}, o único estado global
+ * alterado durante um passo.
+ * <p>
+ * Uma faixa só (a janela é o mundo inteiro, sem linhas fantasmas) dá o mesmo resultado
+ * que um {@link Simulator} de um processo só com o mesmo terreno e gerador. Com várias
+ * faixas o resultado é outro: no simulador de um processo só os atores agem um de cada
+ * vez, numa ordem única e com uma só sequência de sorteios, e um animal da borda já vê
+ * os movimentos dos que agiram antes dele do outro lado; as faixas agem ao mesmo tempo,
+ * cada uma com os seus sorteios, e só trocam as bordas entre os passos.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class Stripe {
+
+    /**
+     * O ocupante de uma célula de borda, enviado à faixa vizinha para a linha fantasma.
+     * @param species A espécie do ocupante.
+     * @param plant A constante da planta, se o ocupante for uma (null para animais).
+     * @param age A idade do animal (0 para plantas).
+     * @param foodLevel O nível de comida do animal (0 para plantas).
+     */
+    public record Ghost(Species species, Plant plant, int age, int foodLevel) {
+    }
+
+    /**
+     * Um animal que atravessa a fronteira entre faixas.
+     * @param species A espécie do animal.
+     * @param row A linha de destino, em coordenadas do mundo.
+     * @param col A coluna de destino.
+     * @param age A idade do animal.
+     * @param foodLevel O nível de comida do animal.
+     * @param fromRow A linha do mundo em que o animal começou o passo (-1 se nasceu nele).
+     * @param fromCol A coluna em que o animal começou o passo (-1 se nasceu nele).
+     */
+    public record Migrant(Species species, int row, int col, int age, int foodLevel, int fromRow, int fromCol) {
+    }
+
+    private final int index;
+    private final int firstRow;
+    private final int rows;
+    private final int width;
+    /** Linha local da primeira linha própria (1 se houver linha fantasma acima, senão 0). */
+    private final int top;
+    private final boolean hasAbove;
+    private final boolean hasBelow;
+    private final Simulator simulator;
+    private final List<Migrant> migrantsUp = new ArrayList<>();
+    private final List<Migrant> migrantsDown = new ArrayList<>();
+    /** Colunas das linhas fantasmas (de cima e de baixo) cujo ocupante foi comido no passo. */
+    private final BitSet eatenAbove = new BitSet();
+    private final BitSet eatenBelow = new BitSet();
+    /** Ocupantes das linhas de borda enviados às vizinhas no início do passo. */
+    private final Actor[] sentTop;
+    private final Actor[] sentBottom;
+    /** Fantasmas postos no passo (null nas células vazias ou sem linha fantasma). */
+    private final Object[] ghostsAbove;
+    private final Object[] ghostsBelow;
+    /** Animais que migraram ou serviram de fantasma, devolvidos ao {@link AnimalPool} no fim do passo. */
+    private final List<Animal> departed = new ArrayList<>();
+    /** Localização das constantes de {@link Plant} vista por esta faixa. */
+    private final Location[] plantLocations = new Location[Plant.values().length];
+
+    /**
+     * Cria a faixa e popula suas linhas.
+     * @param index O índice da faixa (0 = a de cima).
+     * @param stripeCount O número total de faixas.
+     * @param depth O número de linhas do mundo.
+     * @param width O número de colunas do mundo.
+     * @param seed A semente da execução (também define o terreno).
+     */
+    public Stripe(int index, int stripeCount, int depth, int width, long seed) {
+        this.index = index;
+        this.firstRow = (int) ((long) depth * index / stripeCount);
+        this.rows = (int) ((long) depth * (index + 1) / stripeCount) - firstRow;
+        this.width = width;
+        this.hasAbove = index > 0;
+        this.hasBelow = index < stripeCount - 1;
+        this.top = hasAbove ? 1 : 0;
+        sentTop = new Actor[width];
+        sentBottom = new Actor[width];
+        ghostsAbove = new Object[width];
+        ghostsBelow = new Object[width];
+        Field window = new Field(rows + top + (hasBelow ? 1 : 0), width, seed, firstRow - top);
+        simulator = new Simulator(window, randomFor(seed, index), top, rows);
+        savePlantLocations();
+    }
+
+    /**
+     * Gerador de uma faixa, o mesmo usado por {@link #Stripe} (o de uma faixa única
+     * serve para comparar com um {@link Simulator} de um processo só).
+     * @param seed A semente da execução.
+     * @param index O índice da faixa.
+     * @return Um gerador novo.
+     */
+    public static Random randomFor(long seed, int index) {
+        return new Random(Randomizer.mix(seed, index));
+    }
+
+    /** @return A primeira linha do mundo que pertence à faixa. */
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /** @return O número de linhas próprias da faixa. */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Retorna os ocupantes de uma linha de borda, a serem enviados à faixa vizinha, e
+     * guarda quais atores foram enviados, para saber quem foi comido do outro lado.
+     * @param first true para a primeira linha própria, false para a última.
+     * @return Os ocupantes da linha, por coluna (null nas células vazias).
+     */
+    public Ghost[] boundaryRow(boolean first) {
+        int row = first ? top : top + rows - 1;
+        Actor[] sent = first ? sentTop : sentBottom;
+        Ghost[] ghosts = new Ghost[width];
+        Field field = simulator.field;
+        for (int col = 0; col < width; col++) {
+            Object occupant = field.getObjectAt(field.locationAt(row, col));
+            sent[col] = null;
+            if (occupant instanceof Animal animal && animal.isAlive()) {
+                ghosts[col] = new Ghost(animal.getSpecies(), null, animal.getAge(), animal.getFoodLevel());
+                sent[col] = animal;
+            } else if (occupant instanceof Plant plant) {
+                ghosts[col] = new Ghost(Species.PLANT, plant, 0, 0);
+                sent[col] = plant;
+            }
+        }
+        return ghosts;
+    }
+
+    /**
+     * Primeira metade do passo: preenche as linhas fantasmas e executa o passo do
+     * simulador. Depois desta fase, {@link #getMigrantsUp()} e {@link #getMigrantsDown()}
+     * têm os animais que devem ir para as faixas vizinhas, e {@link #getEatenAbove()} e
+     * {@link #getEatenBelow()}, os fantasmas comidos.
+     * @param above Ocupantes da última linha da faixa de cima (null se não houver).
+     * @param below Ocupantes da primeira linha da faixa de baixo (null se não houver).
+     */
+    public void act(Ghost[] above, Ghost[] below) {
+        restorePlantLocations();
+        if (hasAbove) fillGhostRow(0, above, ghostsAbove);
+        if (hasBelow) fillGhostRow(top + rows, below, ghostsBelow);
+
+        Field acted = simulator.field;
+        simulator.simulateOneStep();
+
+        // Fantasmas comidos: o animal foi marcado como comido, a planta saiu do campo
+        eatenAbove.clear();
+        eatenBelow.clear();
+        if (hasAbove) findEaten(acted, 0, ghostsAbove, eatenAbove);
+        if (hasBelow) findEaten(acted, top + rows, ghostsBelow, eatenBelow);
+
+        // Animais que terminaram nas linhas fantasmas migram
+        migrantsUp.clear();
+        migrantsDown.clear();
+        if (hasAbove) emigrate(0, migrantsUp);
+        if (hasBelow) emigrate(top + rows, migrantsDown);
+        savePlantLocations();
+    }
+
+    /** @return Os animais que migram para a faixa de cima. */
+    public List<Migrant> getMigrantsUp() {
+        return migrantsUp;
+    }
+
+    /** @return Os animais que migram para a faixa de baixo. */
+    public List<Migrant> getMigrantsDown() {
+        return migrantsDown;
+    }
+
+    /** @return As colunas da última linha da faixa de cima cujo ocupante foi comido aqui. */
+    public BitSet getEatenAbove() {
+        return eatenAbove;
+    }
+
+    /** @return As colunas da primeira linha da faixa de baixo cujo ocupante foi comido aqui. */
+    public BitSet getEatenBelow() {
+        return eatenBelow;
+    }
+
+    /**
+     * Segunda metade do passo: retira os ocupantes das bordas que as vizinhas comeram e
+     * recebe os migrantes delas. Um migrante cujo fantasma foi comido aqui não chega.
+     * Um migrante cuja célula de destino tem um animal vivo procura, como em
+     * {@link Animal#moveTo}, a primeira vizinha livre (em ordem fixa de bits, sem
+     * terreno proibido nem linha fantasma); sem nenhuma, ele morre por falta de espaço.
+     * @param incoming Migrantes vindos de cima e depois de baixo.
+     * @param eatenFirst Colunas da primeira linha própria comidas pela faixa de cima (ou null).
+     * @param eatenLast Colunas da última linha própria comidas pela faixa de baixo (ou null).
+     */
+    public void settle(List<Migrant> incoming, BitSet eatenFirst, BitSet eatenLast) {
+        restorePlantLocations();
+        Field field = simulator.field;
+        // Antes dos migrantes: um animal morto neste passo pode voltar da reserva como migrante
+        removeEaten(field, sentTop, eatenFirst);
+        removeEaten(field, sentBottom, eatenLast);
+
+        for (Migrant migrant : incoming) {
+            if (migrant.fromCol() >= 0 && (migrant.fromRow() == firstRow - 1 && eatenAbove.get(migrant.fromCol())
+                    || migrant.fromRow() == firstRow + rows && eatenBelow.get(migrant.fromCol()))) {
+                continue;
+            }
+            Location location = claimCell(field, migrant.species(),
+                                          field.locationAt(migrant.row() - firstRow + top, migrant.col()));
+            if (location == null) {
+                SimulationEvents.recordDeathByCrowding();
+                continue;
+            }
+            Animal animal = AnimalPool.obtain(migrant.species());
+            animal.setAge(migrant.age());
+            animal.setFoodLevel(migrant.foodLevel());
+            animal.setLocation(location);
+            field.place(animal, location);
+            simulator.admit(animal);
+        }
+
+        // As linhas fantasmas não contam: plantas que cresceram nelas são descartadas
+        if (hasAbove) clearRow(field, 0);
+        if (hasBelow) clearRow(field, top + rows);
+        savePlantLocations();
+        // Os fantasmas e os que migraram só voltam à reserva depois do passo inteiro
+        for (Animal animal : departed) {
+            AnimalPool.release(animal);
+        }
+        departed.clear();
+    }
+
+    /**
+     * @return A contagem de cada espécie nas linhas próprias, indexada pelo ordinal.
+     */
+    public int[] getCounts() {
+        int[] counts = new int[Species.count()];
+        for (int id = 0; id < counts.length; id++) {
+            counts[id] = simulator.field.getCount(Species.byId(id));
+        }
+        return counts;
+    }
+
+    /**
+     * Encerra a faixa, retirando as métricas do simulador do servidor JMX.
+     */
+    public void close() {
+        simulator.close();
+    }
+
+    /** Guarda a localização atual das constantes de {@link Plant}. */
+    private void savePlantLocations() {
+        for (Plant plant : Plant.values()) {
+            plantLocations[plant.ordinal()] = plant.getLocation();
+        }
+    }
+
+    /** Restaura a localização das constantes de {@link Plant} vista por esta faixa. */
+    private void restorePlantLocations() {
+        for (Plant plant : Plant.values()) {
+            plant.setLocation(plantLocations[plant.ordinal()]);
+        }
+    }
+
+    /**
+     * Preenche uma linha fantasma do campo atual com os ocupantes recebidos: um animal
+     * da reserva com a espécie e o estado do original, ou a constante da planta.
+     */
+    private void fillGhostRow(int row, Ghost[] received, Object[] placed) {
+        Field field = simulator.field;
+        for (int col = 0; col < width; col++) {
+            Ghost ghost = received != null ? received[col] : null;
+            Object occupant = null;
+            if (ghost != null && ghost.plant() != null) {
+                occupant = ghost.plant();
+            } else if (ghost != null) {
+                Animal animal = AnimalPool.obtain(ghost.species());
+                animal.setAge(ghost.age());
+                animal.setFoodLevel(ghost.foodLevel());
+                animal.setLocation(field.locationAt(row, col));
+                departed.add(animal);
+                occupant = animal;
+            }
+            placed[col] = occupant;
+            field.place(occupant, field.locationAt(row, col));
+        }
+    }
+
+    /**
+     * Marca as colunas de uma linha fantasma cujo ocupante foi comido: o animal
+     * fantasma morreu, ou a planta saiu do campo em que o passo foi executado.
+     */
+    private void findEaten(Field acted, int row, Object[] placed, BitSet eaten) {
+        for (int col = 0; col < width; col++) {
+            Object ghost = placed[col];
+            if (ghost instanceof Animal animal ? !animal.isAlive()
+                    : ghost != null && acted.getObjectAt(acted.locationAt(row, col)) != ghost) {
+                eaten.set(col);
+            }
+        }
+    }
+
+    /**
+     * Retira os ocupantes de uma linha de borda que a vizinha comeu. O animal pode ter
+     * se movido no passo; se já morreu ou migrou, não há o que retirar. A planta só é
+     * retirada se ainda estiver na célula.
+     */
+    private void removeEaten(Field field, Actor[] sent, BitSet eaten) {
+        if (eaten == null) return;
+        int row = sent == sentTop ? top : top + rows - 1;
+        for (int col = eaten.nextSetBit(0); col >= 0; col = eaten.nextSetBit(col + 1)) {
+            Actor actor = sent[col];
+            if (actor instanceof Animal animal) {
+                if (animal.isAlive() && animal.getLocation() != null
+                        && field.getObjectAt(animal.getLocation()) == animal) {
+                    // Sai do campo agora; o simulador o tira da lista no próximo passo
+                    field.clear(animal.getLocation(), animal);
+                    animal.setDead();
+                }
+            } else if (actor != null) {
+                field.clear(field.locationAt(row, col), actor);
+            }
+        }
+    }
+
+    /**
+     * Retira os animais de uma linha fantasma como migrantes para a vizinha, com a
+     * célula em que cada um começou o passo (se começou numa linha de borda).
+     */
+    private void emigrate(int row, List<Migrant> migrants) {
+        List<Animal> leaving = new ArrayList<>();
+        simulator.emigrateRow(row, leaving);
+        for (Animal animal : leaving) {
+            int fromRow = -1, fromCol = -1;
+            for (int col = 0; col < width && fromRow < 0; col++) {
+                if (sentTop[col] == animal) {
+                    fromRow = firstRow;
+                    fromCol = col;
+                } else if (sentBottom[col] == animal) {
+                    fromRow = firstRow + rows - 1;
+                    fromCol = col;
+                }
+            }
+            migrants.add(new Migrant(animal.getSpecies(), firstRow + row - top,
+                                     animal.getLocation().getCol(), animal.getAge(), animal.getFoodLevel(),
+                                     fromRow, fromCol));
+            departed.add(animal);
+        }
+    }
+
+    /**
+     * Escolhe a célula de um migrante: a de destino, se não tiver um animal vivo, ou a
+     * primeira vizinha livre em ordem de bits, como em {@link Animal#moveTo}.
+     * @return A célula reivindicada, ou null se nenhuma serviu.
+     */
+    private Location claimCell(Field field, Species species, Location target) {
+        Object occupant = field.getObjectAt(target);
+        if (!(occupant instanceof Animal animal && animal.isAlive())) {
+            return target;
+        }
+        int free = field.freeAdjacentMask(target);
+        for (int bit = 0; bit < 9; bit++) {
+            if ((free & (1 << bit)) == 0) continue;
+            Location candidate = field.neighbourLocation(target, bit);
+            int row = candidate.getRow();
+            if (row >= top && row < top + rows
+                    && !Barriers.isForbidden(species, field.getTerrainAt(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /** Esvazia uma linha do campo. */
+    private void clearRow(Field field, int row) {
+        for (int col = 0; col < width; col++) {
+            field.clear(field.locationAt(row, col));
+        }
+    }
+}
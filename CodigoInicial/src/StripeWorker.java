@@ -0,0 +1,159 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Processo que executa uma {@link Stripe} da simulação distribuída.
+ * Conecta-se ao coordenador ({@link DistributedSimulator}) por um socket local,
+ * recebe a configuração da faixa e segue os comandos de passo em sincronia.
+ * Também contém o formato das mensagens trocadas com o coordenador.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class StripeWorker {
+
+    static final int CMD_STEP = 1;
+    static final int CMD_STOP = 2;
+
+    /**
+     * Ponto de entrada do processo da faixa.
+     * @param args A porta do coordenador em localhost.
+     * @throws IOException Se a conexão com o coordenador falhar.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        Barriers.loadRestrictions();
+        Diet.loadDiets();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            Stripe stripe = new Stripe(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readLong());
+
+            while (in.readInt() == CMD_STEP) {
+                writeGhosts(out, stripe.boundaryRow(true));
+                writeGhosts(out, stripe.boundaryRow(false));
+                out.flush();
+
+                stripe.act(readGhosts(in), readGhosts(in));
+                writeMigrants(out, stripe.getMigrantsUp());
+                writeMigrants(out, stripe.getMigrantsDown());
+                writeBitSet(out, stripe.getEatenAbove());
+                writeBitSet(out, stripe.getEatenBelow());
+                out.flush();
+
+                stripe.settle(readMigrants(in), readBitSet(in), readBitSet(in));
+                for (int count : stripe.getCounts()) {
+                    out.writeInt(count);
+                }
+                out.flush();
+            }
+            stripe.close();
+        }
+    }
+
+    // Formato das mensagens
+
+    /**
+     * Escreve os ocupantes de uma linha de borda (null é enviado como tamanho -1): por
+     * célula, a espécie (-1 se vazia) seguida da planta ou da idade e da comida.
+     */
+    static void writeGhosts(DataOutputStream out, Stripe.Ghost[] ghosts) throws IOException {
+        if (ghosts == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(ghosts.length);
+        for (Stripe.Ghost ghost : ghosts) {
+            if (ghost == null) {
+                out.writeByte(-1);
+            } else if (ghost.plant() != null) {
+                out.writeByte(ghost.species().ordinal());
+                out.writeByte(ghost.plant().ordinal());
+            } else {
+                out.writeByte(ghost.species().ordinal());
+                out.writeInt(ghost.age());
+                out.writeInt(ghost.foodLevel());
+            }
+        }
+    }
+
+    /** Lê os ocupantes de uma linha de borda escritos por {@link #writeGhosts}. */
+    static Stripe.Ghost[] readGhosts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        Stripe.Ghost[] ghosts = new Stripe.Ghost[length];
+        for (int i = 0; i < length; i++) {
+            int id = in.readByte();
+            if (id < 0) continue;
+            Species species = Species.byId(id);
+            ghosts[i] = species == Species.PLANT
+                ? new Stripe.Ghost(species, Plant.values()[in.readByte()], 0, 0)
+                : new Stripe.Ghost(species, null, in.readInt(), in.readInt());
+        }
+        return ghosts;
+    }
+
+    /** Escreve um conjunto de colunas (null é enviado como tamanho -1). */
+    static void writeBitSet(DataOutputStream out, BitSet bits) throws IOException {
+        if (bits == null) {
+            out.writeInt(-1);
+            return;
+        }
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    /** Lê um conjunto de colunas escrito por {@link #writeBitSet}. */
+    static BitSet readBitSet(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /** Escreve uma lista de migrantes. */
+    static void writeMigrants(DataOutputStream out, List<Stripe.Migrant> migrants) throws IOException {
+        out.writeInt(migrants.size());
+        for (Stripe.Migrant m : migrants) {
+            out.writeByte(m.species().ordinal());
+            out.writeInt(m.row());
+            out.writeInt(m.col());
+            out.writeInt(m.age());
+            out.writeInt(m.foodLevel());
+            out.writeInt(m.fromRow());
+            out.writeInt(m.fromCol());
+        }
+    }
+
+    /** Lê uma lista de migrantes escrita por {@link #writeMigrants}. */
+    static List<Stripe.Migrant> readMigrants(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Stripe.Migrant> migrants = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            migrants.add(new Stripe.Migrant(Species.byId(in.readByte()), in.readInt(), in.readInt(),
+                                            in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+        }
+        return migrants;
+    }
+}
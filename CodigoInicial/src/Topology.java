@@ -0,0 +1,52 @@
+/**
+ * Topologias de vizinhança do {@link Field}. Todas cabem na janela 3x3 de
+ * vizinhança do campo (bit = (dr+1)*3 + (dc+1)): cada topologia é só a máscara dos
+ * bits que contam como vizinhos e a regra das bordas.
+ * <ul>
+ *   <li>{@link #BOUNDED}: os 8 vizinhos (Moore), sem nada além das bordas. É o padrão.</li>
+ *   <li>{@link #TORUS}: os 8 vizinhos, com as bordas opostas ligadas, para estudos sem
+ *       efeito de borda.</li>
+ *   <li>{@link #VON_NEUMANN}: só os 4 vizinhos ortogonais.</li>
+ *   <li>{@link #HEXAGONAL}: 6 vizinhos, com as linhas ímpares deslocadas meia célula
+ *       para a direita (as pares enxergam as diagonais da esquerda, as ímpares as da direita).</li>
+ * </ul>
+ * Só a vizinhança imediata (movimento, nascimento, presas adjacentes) segue a
+ * topologia; consultas por raio (visão, densidade, campos de fluxo) continuam
+ * quadradas e limitadas pelas bordas.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public enum Topology {
+
+    BOUNDED(0b111101111, 0b111101111, false),
+    TORUS(0b111101111, 0b111101111, true),
+    VON_NEUMANN(0b010101010, 0b010101010, false),
+    HEXAGONAL(0b011101011, 0b110101110, false);
+
+    /** Máscaras dos vizinhos nas linhas pares e ímpares. */
+    private final int evenRowMask, oddRowMask;
+    /** Se as bordas opostas são ligadas. */
+    private final boolean wraps;
+
+    Topology(int evenRowMask, int oddRowMask, boolean wraps) {
+        this.evenRowMask = evenRowMask;
+        this.oddRowMask = oddRowMask;
+        this.wraps = wraps;
+    }
+
+    /**
+     * @param row A linha da célula.
+     * @return Os bits da janela 3x3 que são vizinhos de uma célula dessa linha.
+     */
+    public int getNeighbourMask(int row) {
+        return (row & 1) == 0 ? evenRowMask : oddRowMask;
+    }
+
+    /**
+     * @return true se quem sai por uma borda entra pela borda oposta.
+     */
+    public boolean wraps() {
+        return wraps;
+    }
+}
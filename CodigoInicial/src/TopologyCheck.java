@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+
+/**
+ * Verificação das bordas do toro: uma águia cercada por lobos numa borda só tem
+ * células livres do outro lado do campo, e depois do passo precisa estar no campo
+ * de destino, na célula para onde foi. O passo segue o do {@link Simulator}: blocos
+ * ativos, {@link Field#prepareNext}, a ação do animal e {@link Field#wakeChunks}.
+ * A visão também precisa atravessar as bordas: {@link Field#nearestOf} a partir de uma
+ * borda deve achar a presa a duas células, do outro lado, antes de uma a três células
+ * do mesmo lado.
+ * <p>
+ * Uso: {@code java TopologyCheck}; termina com código 1 se alguma travessia falhar.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class TopologyCheck {
+
+    /** Três blocos de altura e quatro de largura, para que as bordas fiquem em blocos distintos. */
+    private static final int DEPTH = 192;
+    private static final int WIDTH = 256;
+    private static final String[] SIDES = { "cima", "baixo", "esquerda", "direita" };
+
+    /**
+     * Ponto de entrada.
+     * @param args Não usados.
+     */
+    public static void main(String[] args) {
+        Barriers.loadRestrictions();
+        Diet.loadDiets();
+        int failures = 0;
+        for (int side = 0; side < SIDES.length; side++) {
+            String problem = crossEdge(side);
+            System.out.println("Borda de " + SIDES[side] + ": " + (problem == null ? "ok" : problem));
+            if (problem != null) failures++;
+            problem = seeAcrossEdge(side);
+            System.out.println("Visão pela borda de " + SIDES[side] + ": " + (problem == null ? "ok" : problem));
+            if (problem != null) failures++;
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Tenta atravessar uma borda a partir de posições ao longo dela (do meio para as
+     * pontas), até a águia atravessar; uma posição em que as células do outro lado são
+     * montanhas é trocada pela seguinte.
+     * @return null se a travessia deu certo, ou a descrição do problema.
+     */
+    private static String crossEdge(int side) {
+        int length = side < 2 ? WIDTH : DEPTH;
+        for (int offset = 0; offset < length / 2 - 1; offset++) {
+            int along = length / 2 + (offset % 2 == 0 ? offset / 2 : -(offset / 2 + 1));
+            int row = side == 0 ? 0 : side == 1 ? DEPTH - 1 : along;
+            int col = side == 2 ? 0 : side == 3 ? WIDTH - 1 : along;
+
+            Field current = new Field(DEPTH, WIDTH);
+            current.setTopology(Topology.TORUS);
+            Eagle eagle = new Eagle();
+            eagle.setFoodLevel(eagle.getFoodValue());
+            Location start = current.locationAt(row, col);
+            eagle.setLocation(start);
+            current.place(eagle, start);
+            // Lobos (que a águia não come) em todas as vizinhas do mesmo lado da borda
+            for (int bit = 0; bit < 9; bit++) {
+                int r = row + bit / 3 - 1, c = col + bit % 3 - 1;
+                if (bit != 4 && r >= 0 && r < DEPTH && c >= 0 && c < WIDTH) {
+                    current.place(new Wolf(), current.locationAt(r, c));
+                }
+            }
+
+            int chunks = current.getChunkRows() * current.getChunkCols();
+            boolean[] activeBefore = new boolean[chunks], activeAfter = new boolean[chunks];
+            current.findActiveChunks(activeBefore);
+            Field next = new Field(current);
+            next.prepareNext(current, activeBefore);
+            eagle.act(current, next, new ArrayList<>());
+            next.findActiveChunks(activeAfter);
+            next.wakeChunks(activeBefore, activeAfter);
+
+            Location end = eagle.getLocation();
+            if (Math.abs(end.getRow() - row) <= 1 && Math.abs(end.getCol() - col) <= 1) {
+                continue; // não atravessou (montanhas do outro lado)
+            }
+            if (next.getObjectAt(end) != eagle) {
+                return "a águia foi de " + start + " para " + end + " e sumiu do campo";
+            }
+            if (next.getCount(Species.EAGLE) != 1) {
+                return "contagem de águias " + next.getCount(Species.EAGLE) + " depois da travessia";
+            }
+            return null;
+        }
+        return "nenhuma posição da borda permitiu a travessia";
+    }
+
+    /**
+     * Procura um coelho a partir de uma posição na borda: um coelho está a duas células,
+     * do outro lado da borda, e outro a três células, do mesmo lado. Com linha de visão,
+     * a célula entre o centro e o coelho do outro lado não pode ser montanha; as posições
+     * ao longo da borda são testadas do meio para as pontas até achar uma assim.
+     * @return null se a busca achou o coelho do outro lado, ou a descrição do problema.
+     */
+    private static String seeAcrossEdge(int side) {
+        int length = side < 2 ? WIDTH : DEPTH;
+        // Deslocamento (linha, coluna) para dentro do campo a partir da borda
+        int inRow = side == 0 ? 1 : side == 1 ? -1 : 0;
+        int inCol = side == 2 ? 1 : side == 3 ? -1 : 0;
+        for (int along = length / 2; along < length; along++) {
+            int row = side == 0 ? 0 : side == 1 ? DEPTH - 1 : along;
+            int col = side == 2 ? 0 : side == 3 ? WIDTH - 1 : along;
+
+            Field field = new Field(DEPTH, WIDTH);
+            field.setTopology(Topology.TORUS);
+            Location center = field.locationAt(row, col);
+            Location between = wrapped(field, row - inRow, col - inCol);
+            if (field.getTerrainAt(between) == Terrain.MOUNTAIN) continue;
+            Location across = wrapped(field, row - 2 * inRow, col - 2 * inCol);
+            field.place(new Rabbit(), across);
+            field.place(new Rabbit(), field.locationAt(row + 3 * inRow, col + 3 * inCol));
+
+            for (boolean lineOfSight : new boolean[] { false, true }) {
+                Location seen = field.nearestOf(center, Species.RABBIT.mask(), 5, lineOfSight);
+                if (!across.equals(seen)) {
+                    return "de " + center + (lineOfSight ? ", com linha de visão," : "")
+                         + " a busca achou " + seen + " em vez de " + across;
+                }
+            }
+            return null;
+        }
+        return "nenhuma posição da borda tinha visão livre para o outro lado";
+    }
+
+    /** @return A localização (linha, coluna) depois de dar a volta nas bordas. */
+    private static Location wrapped(Field field, int row, int col) {
+        return field.locationAt(Math.floorMod(row, DEPTH), Math.floorMod(col, WIDTH));
+    }
+}
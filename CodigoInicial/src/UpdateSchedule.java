@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/**
+ * Frequência de atualização de cada espécie: uma espécie com período k só age a
+ * cada k passos, e nos passos em que age o faz "por k passos" (idade e fome avançam
+ * k unidades e as probabilidades por passo são reescaladas para k passos).
+ * <p>
+ * Nos passos em que não age, o ator só é recolocado no campo de destino, sem sortear
+ * números aleatórios nem examinar a vizinhança. Isso reduz o trabalho quando a
+ * população é dominada por atores lentos (ex: plantas, cobras). Para distribuir a
+ * carga, cada espécie começa em um passo diferente (deslocado pelo seu ordinal).
+ * <p>
+ * Por padrão todas as espécies têm período 1, o que reproduz o comportamento de
+ * sempre (e a mesma sequência de números aleatórios).
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class UpdateSchedule {
+
+    /** Períodos de atualização, indexados pelo ordinal de {@link Species}. */
+    private final int[] periods = new int[Species.count()];
+
+    /**
+     * Cria uma agenda em que todas as espécies agem a cada passo.
+     */
+    public UpdateSchedule() {
+        Arrays.fill(periods, 1);
+    }
+
+    /**
+     * Define a cada quantos passos uma espécie age.
+     * @param species A espécie (ou {@link Species#PLANT} para a camada de plantas).
+     * @param period O período, em passos (1 = todo passo).
+     */
+    public void setPeriod(Species species, int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Período inválido para " + species + ": " + period);
+        }
+        periods[species.ordinal()] = period;
+    }
+
+    /**
+     * @param species Uma espécie.
+     * @return A cada quantos passos a espécie age.
+     */
+    public int getPeriod(Species species) {
+        return periods[species.ordinal()];
+    }
+
+    /**
+     * @param species Uma espécie.
+     * @param step O passo atual.
+     * @return true se a espécie age neste passo.
+     */
+    public boolean isDue(Species species, int step) {
+        int period = periods[species.ordinal()];
+        return period == 1 || (step + species.ordinal()) % period == 0;
+    }
+
+    /**
+     * Converte uma probabilidade por passo na probabilidade de o evento acontecer
+     * ao menos uma vez em vários passos: 1 - (1 - p)^passos.
+     * @param probability A probabilidade por passo.
+     * @param steps O número de passos.
+     * @return A probabilidade reescalada.
+     */
+    public static double rescale(double probability, int steps) {
+        return steps == 1 ? probability : 1 - Math.pow(1 - probability, steps);
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+/**
+ * Raio de percepção de cada espécie: até quantas células (na distância de
+ * Chebyshev, a mesma dos passos em 8 direções) um animal enxerga a comida quando
+ * não há nenhuma presa adjacente. Com raio maior que 1, o animal dá um passo em
+ * direção à presa mais próxima (ver {@link Animal#approachPrey(Field)}).
+ * <p>
+ * A busca usa os bitboards do {@link Field} como índice espacial (ver
+ * {@link Field#nearestOf}): cada linha da janela é lida em palavras de 64 células
+ * e a busca para na distância da presa mais próxima já achada, então o custo acompanha
+ * essa distância e não a área R² da janela. Opcionalmente, {@link Terrain#MOUNTAIN}
+ * bloqueia a linha de visão.
+ * <p>
+ * Por padrão todas as espécies têm raio 1 (só as células adjacentes), o que reproduz
+ * o comportamento de sempre.
+ *
+ * @author Grupo 1
+ * @version 2025
+ */
+public class Vision {
+
+    /** Raio de percepção indexado pelo ordinal da espécie. */
+    private static final int[] RADII = new int[Species.count()];
+    /** Se montanhas bloqueiam a linha de visão. */
+    private static boolean lineOfSight = false;
+
+    static {
+        loadDefaults();
+    }
+
+    /**
+     * Construtor privado: classe utilitária.
+     */
+    private Vision() {
+    }
+
+    /**
+     * Restaura o raio 1 para todas as espécies e desliga a linha de visão.
+     */
+    public static void loadDefaults() {
+        Arrays.fill(RADII, 1);
+        lineOfSight = false;
+    }
+
+    /**
+     * Define o raio de percepção de uma espécie.
+     * @param species A espécie.
+     * @param radius O raio, em células (1 = só as células adjacentes).
+     */
+    public static void setRadius(Species species, int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Raio de visão inválido para " + species + ": " + radius);
+        }
+        RADII[species.ordinal()] = radius;
+    }
+
+    /**
+     * @param species A espécie.
+     * @return O raio de percepção da espécie, em células.
+     */
+    public static int getRadius(Species species) {
+        return RADII[species.ordinal()];
+    }
+
+    /**
+     * Liga ou desliga o bloqueio da visão por montanhas.
+     * @param enabled true para que {@link Terrain#MOUNTAIN} esconda o que está atrás.
+     */
+    public static void setLineOfSight(boolean enabled) {
+        lineOfSight = enabled;
+    }
+
+    /**
+     * @return true se montanhas bloqueiam a linha de visão.
+     */
+    public static boolean isLineOfSight() {
+        return lineOfSight;
+    }
+}
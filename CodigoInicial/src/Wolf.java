@@ -1,4 +1,3 @@
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -24,11 +23,11 @@ public class Wolf extends Animal {
     }
     
     /**
-     * Define se o lobo pode comer o objeto fornecido.
+     * Retorna a espécie do lobo, usada na matriz de dietas.
      */
     @Override
-    public boolean canEat(Object obj) {
-        return (obj instanceof Rabbit) || (obj instanceof Fox);
+    public Species getSpecies() {
+        return Species.WOLF;
     }
 
     /**
@@ -36,19 +35,16 @@ public class Wolf extends Animal {
      */
     @Override
     public Location findFood(Field currentField) {
-        Iterator<Location> adjacent = currentField.adjacentLocations(getLocation()).iterator();
-        while (adjacent.hasNext()) {
-            Location where = adjacent.next();
+        int candidates = currentField.adjacentMaskOf(getLocation(), Diet.getPreyMask(getSpecies()));
+        while (candidates != 0) {
+            int bit = currentField.randomBit(candidates);
+            candidates &= ~(1 << bit);
+            Location where = currentField.neighbourLocation(getLocation(), bit);
             Object obj = currentField.getObjectAt(where);
             
-            if (canEat(obj)) {
-                Animal prey = (Animal) obj;
-                if (prey.isAlive()) {
-                    prey.setDead();
-                    currentField.clear(where); 
-                    setFoodLevel(FOOD_VALUE);
-                    return where;
-                }
+            if (canEat(obj) && eat(currentField, where, obj)) {
+                setFoodLevel(FOOD_VALUE);
+                return where;
             }
         }
         return null;
@@ -66,6 +62,9 @@ public class Wolf extends Animal {
         giveBirth(currentField, updatedField, newActors);
 
         Location nextLocation = findFood(currentField);
+        if (nextLocation == null) {
+            nextLocation = approachPrey(currentField);
+        }
         if (nextLocation == null) {
             nextLocation = currentField.freeAdjacentLocation(getLocation());
         }
@@ -79,17 +78,15 @@ public class Wolf extends Animal {
     private void attemptMove(Field currentField, Field updatedField, Location nextLocation) {
         if (nextLocation != null) {
             Terrain terrain = currentField.getTerrainAt(nextLocation);
-            String actorName = this.getClass().getSimpleName();
-            
-            if (!Barriers.isForbidden(actorName, terrain)) {
-                updatedField.clear(getLocation()); 
-                setLocation(nextLocation);
-                updatedField.place(this, nextLocation);
+            if (!Barriers.isForbidden(getSpecies(), terrain)) {
+                updatedField.clear(getLocation(), this);
+                moveTo(currentField, updatedField, nextLocation);
             } else {
-                updatedField.place(this, getLocation());
+                SimulationEvents.recordBlockedMove();
+                stay(currentField, updatedField);
             }
         } else {
-            updatedField.place(this, getLocation());
+            stay(currentField, updatedField);
         }
     }
 
@@ -98,17 +95,24 @@ public class Wolf extends Animal {
      */
     @Override
     public void giveBirth(Field currentField, Field updatedField, List<Actor> newActors) {
-        List<Location> freeLocations = currentField.getFreeAdjacent(getLocation());
-        int births = breed();
+        int free = currentField.freeAdjacentMask(getLocation());
+        int births = breed(currentField);
         
-        for (int i = 0; i < births && !freeLocations.isEmpty(); i++) {
-            Location newLoc = freeLocations.remove(0);
+        int born = 0;
+        while (born < births && free != 0) {
+            int bit = currentField.randomBit(free);
+            free &= ~(1 << bit);
+            Location newLoc = currentField.neighbourLocation(getLocation(), bit);
             
-            Wolf newAnimal = new Wolf();
+            Wolf newAnimal = (Wolf) AnimalPool.obtain(Species.WOLF);
+            // Célula já tomada no campo de destino: o filhote tenta a próxima livre
+            if (!updatedField.claim(newAnimal, newLoc)) {
+                AnimalPool.release(newAnimal);
+                continue;
+            }
             newAnimal.setLocation(newLoc);
-            
-            updatedField.place(newAnimal, newLoc);
             newActors.add(newAnimal);
+            born++;
         }
     }
 